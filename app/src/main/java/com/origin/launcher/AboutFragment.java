@@ -17,18 +17,14 @@ import android.app.ActivityManager;
 import android.content.Context;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.text.ParseException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -50,7 +46,6 @@ public class AboutFragment extends BaseThemedFragment {
     private static final String GITHUB_URL = "https://github.com/Xelo-Client/Xelo-Client";
     private static final String DISCORD_URL = "https://discord.gg/CHUchrEWwc";
     private static final String TAG = "AboutFragment";
-    private ExecutorService executor;
     private Handler mainHandler;
 
     @Override
@@ -76,8 +71,7 @@ public class AboutFragment extends BaseThemedFragment {
         githubButton = view.findViewById(R.id.github_button);
         discordButton = view.findViewById(R.id.discord_button);
         
-        // Initialize executor and handler
-        executor = Executors.newSingleThreadExecutor();
+        // Initialize handler
         mainHandler = new Handler(Looper.getMainLooper());
         
         // Set up button click listeners
@@ -164,7 +158,7 @@ public class AboutFragment extends BaseThemedFragment {
     }
     
     private void loadCommits() {
-        executor.execute(() -> {
+        TaskScheduler.get().submit(TaskScheduler.Lane.NETWORK, TaskScheduler.Priority.NORMAL, this, () -> {
             String result = fetchCommitsFromApi();
             mainHandler.post(() -> {
                 if (result != null && isAdded()) {
@@ -177,27 +171,16 @@ public class AboutFragment extends BaseThemedFragment {
     }
     
     private String fetchCommitsFromApi() {
-        try {
-            URL url = new URL(GITHUB_API_URL + "?per_page=5");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                return response.toString();
+        Request request = new Request.Builder()
+                .url(GITHUB_API_URL + "?per_page=5")
+                .header("Accept", "application/vnd.github.v3+json")
+                .build();
+        // The shared client's disk cache revalidates with GitHub's ETag, so reopening this screen is cheap
+        try (Response response = NetworkClient.get().newCall(request).execute()) {
+            if (response.code() == 200 && response.body() != null) {
+                return response.body().string();
             } else {
-                Log.e(TAG, "HTTP Error: " + responseCode);
+                Log.e(TAG, "HTTP Error: " + response.code());
                 return null;
             }
         } catch (Exception e) {
@@ -339,12 +322,5 @@ public class AboutFragment extends BaseThemedFragment {
         // Update Discord RPC when leaving about
         DiscordRPCHelper.getInstance().updateIdlePresence();
     }
-    
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        if (executor != null) {
-            executor.shutdown();
-        }
-    }
+
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed catalog of the APKs in the versions directory: the SHA-256 of every file,
+ * remembered together with its size and modification time so an entry is only trusted while the file
+ * is unchanged. A download whose hash we already have is satisfied from disk, and identical files are
+ * hard-linked instead of stored twice where the filesystem allows it. The versions directory lives on
+ * shared storage, which on most devices is a FUSE mount without hard links; there a reused APK is a
+ * full copy, which still saves the download but not the space.
+ *
+ * Files nobody cataloged (older downloads, copies made by hand) are only hashed when a download asks
+ * for a hash the catalog does not know, and each is hashed once: its record keeps it skipped until
+ * its size or modification time changes.
+ */
+public class ApkCatalog {
+    private static final String TAG = "ApkCatalog";
+    private static final String CATALOG_FILE_NAME = "apk_catalog.json";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static ApkCatalog instance;
+
+    private static final class Record {
+        final String path;
+        final String sha256;
+        final long length;
+        final long modified;
+
+        Record(String path, String sha256, long length, long modified) {
+            this.path = path;
+            this.sha256 = sha256;
+            this.length = length;
+            this.modified = modified;
+        }
+
+        boolean isCurrent() {
+            File file = new File(path);
+            return file.isFile() && file.length() == length && file.lastModified() == modified;
+        }
+    }
+
+    private final File catalogFile;
+    private final File versionsDir;
+    private final Map<String, Record> byPath = new LinkedHashMap<>();
+    private final Map<String, List<Record>> byHash = new HashMap<>();
+
+    public static synchronized ApkCatalog getInstance(Context context) {
+        if (instance == null) {
+            instance = new ApkCatalog(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ApkCatalog(Context context) {
+        catalogFile = new File(context.getFilesDir(), CATALOG_FILE_NAME);
+        File external = context.getExternalFilesDir(null);
+        versionsDir = external != null ? new File(external, "versions") : null;
+        load();
+    }
+
+    /**
+     * Make target a copy of the cataloged file with hash sha256, if there is one: a hard link where
+     * the filesystem allows it, a plain copy otherwise. Returns false if no such file is known.
+     * May hash the APKs in the versions directory that are not cataloged yet, so call it off the
+     * main thread.
+     */
+    public boolean materialize(String sha256, File target) throws IOException {
+        Record source;
+        synchronized (this) {
+            Record existing = current(byPath.get(target.getAbsolutePath()));
+            if (existing != null && existing.sha256.equals(sha256)) {
+                return true;
+            }
+            source = findCurrent(sha256, null);
+        }
+        if (source == null && indexVersionsDir() > 0) {
+            synchronized (this) {
+                source = findCurrent(sha256, null);
+            }
+        }
+        if (source == null) {
+            return false;
+        }
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent.getAbsolutePath());
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        temp.delete();
+        if (!link(new File(source.path), temp)) {
+            try (InputStream in = new FileInputStream(source.path)) {
+                CopyEngine.copy(in, temp, true);
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Failed to move " + temp.getName() + " to " + target.getName());
+        }
+        Log.d(TAG, "Reused " + new File(source.path).getName() + " for " + target.getName());
+        add(target, sha256);
+        return true;
+    }
+
+    /**
+     * Record file under sha256. If an identical file is already cataloged elsewhere, file is replaced
+     * by a hard link to it so the bytes are stored once.
+     */
+    public synchronized void add(File file, String sha256) {
+        Record duplicate = findCurrent(sha256, file.getAbsolutePath());
+        if (duplicate != null && !sameFile(new File(duplicate.path), file)) {
+            File temp = new File(file.getPath() + ".tmp");
+            temp.delete();
+            if (link(new File(duplicate.path), temp) && temp.renameTo(file)) {
+                Log.d(TAG, "Deduplicated " + file.getName() + " against " + new File(duplicate.path).getName());
+            } else {
+                temp.delete();
+            }
+        }
+        put(new Record(file.getAbsolutePath(), sha256, file.length(), file.lastModified()));
+        save();
+    }
+
+    /**
+     * SHA-256 of file if it is cataloged and unchanged since, else null
+     */
+    public synchronized String lookup(File file) {
+        Record record = current(byPath.get(file.getAbsolutePath()));
+        return record != null ? record.sha256 : null;
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            out[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Hash the APKs in the versions directory that have no current record, and return how many that was
+     */
+    private int indexVersionsDir() {
+        File[] files = versionsDir != null ? versionsDir.listFiles((dir, name) -> name.endsWith(".apk")) : null;
+        if (files == null) {
+            return 0;
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int indexed = 0;
+        for (File file : files) {
+            if (lookup(file) != null) {
+                continue;
+            }
+            try (InputStream in = new FileInputStream(file)) {
+                MessageDigest digest = newSha256();
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+                add(file, toHex(digest.digest()));
+                indexed++;
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to hash " + file.getName(), e);
+            }
+        }
+        if (indexed > 0) {
+            Log.d(TAG, "Indexed " + indexed + " APKs in " + versionsDir);
+        }
+        return indexed;
+    }
+
+    /** A current record with hash sha256 at a path other than exceptPath, dropping stale ones on the way */
+    private Record findCurrent(String sha256, String exceptPath) {
+        List<Record> records = byHash.get(sha256);
+        if (records == null) {
+            return null;
+        }
+        for (Record record : new ArrayList<>(records)) {
+            if (record.path.equals(exceptPath)) {
+                continue;
+            }
+            if (current(record) != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /** record if its file is unchanged; otherwise forget it and return null */
+    private Record current(Record record) {
+        if (record == null || record.isCurrent()) {
+            return record;
+        }
+        remove(record.path);
+        save();
+        return null;
+    }
+
+    private void put(Record record) {
+        remove(record.path);
+        byPath.put(record.path, record);
+        List<Record> records = byHash.get(record.sha256);
+        if (records == null) {
+            records = new ArrayList<>(1);
+            byHash.put(record.sha256, records);
+        }
+        records.add(record);
+    }
+
+    private void remove(String path) {
+        Record old = byPath.remove(path);
+        if (old != null) {
+            List<Record> records = byHash.get(old.sha256);
+            records.remove(old);
+            if (records.isEmpty()) {
+                byHash.remove(old.sha256);
+            }
+        }
+    }
+
+    private static boolean link(File source, File target) {
+        try {
+            Os.link(source.getAbsolutePath(), target.getAbsolutePath());
+            return true;
+        } catch (ErrnoException e) {
+            // Some shared-storage filesystems do not support hard links
+            Log.d(TAG, "Hard link not possible for " + target.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean sameFile(File a, File b) {
+        try {
+            return Files.isSameFile(a.toPath(), b.toPath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void load() {
+        if (!catalogFile.isFile()) {
+            return;
+        }
+        try {
+            JSONArray entries = new JSONObject(new String(Files.readAllBytes(catalogFile.toPath()), StandardCharsets.UTF_8))
+                    .getJSONArray("files");
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                put(new Record(entry.getString("path"), entry.getString("sha256"),
+                        entry.getLong("length"), entry.getLong("modified")));
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Discarding unreadable APK catalog", e);
+        }
+    }
+
+    private void save() {
+        try {
+            JSONArray entries = new JSONArray();
+            for (Record record : byPath.values()) {
+                JSONObject entry = new JSONObject();
+                entry.put("path", record.path);
+                entry.put("sha256", record.sha256);
+                entry.put("length", record.length);
+                entry.put("modified", record.modified);
+                entries.put(entry);
+            }
+            JSONObject catalog = new JSONObject();
+            catalog.put("files", entries);
+            File temp = new File(catalogFile.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(catalog.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (!temp.renameTo(catalogFile)) {
+                throw new IOException("Failed to publish " + CATALOG_FILE_NAME);
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to save APK catalog", e);
+        }
+    }
+}
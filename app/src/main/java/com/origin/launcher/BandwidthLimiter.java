@@ -0,0 +1,56 @@
+package com.origin.launcher;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Token bucket shared by every connection of every download, so a cap holds for the app as a whole
+ * rather than per connection. Readers take what they read and, once the bucket is in debt, sleep
+ * until the debt is paid back at the configured rate.
+ */
+final class BandwidthLimiter {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // How much unused allowance may be saved up; bounds the burst after an idle period
+    private static final double MAX_BURST_SECONDS = 0.25;
+
+    private long bytesPerSecond;
+    private double available;
+    private long lastRefillNanos = System.nanoTime();
+
+    /** Cap in bytes per second; 0 or less removes it */
+    synchronized void setRate(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        available = 0;
+        lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized long getRate() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Account for bytes just read and wait as long as the cap requires
+     */
+    void acquire(int bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            available = Math.min(bytesPerSecond * MAX_BURST_SECONDS,
+                    available + (now - lastRefillNanos) * (double) bytesPerSecond / NANOS_PER_SECOND);
+            lastRefillNanos = now;
+            available -= bytes;
+            if (available >= 0) {
+                return;
+            }
+            waitNanos = (long) (-available * NANOS_PER_SECOND / bytesPerSecond);
+        }
+        try {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        }
+    }
+}
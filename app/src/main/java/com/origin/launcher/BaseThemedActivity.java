@@ -8,6 +8,9 @@ import androidx.appcompat.app.AppCompatActivity;
 public abstract class BaseThemedActivity extends AppCompatActivity {
     private static final String TAG = "BaseThemedActivity";
     
+    // Kept here because ThemeManager holds listeners weakly; registered until the activity is destroyed
+    private final ThemeManager.ThemeChangeListener themeListener = themeName -> refreshTheme();
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -17,6 +20,15 @@ public abstract class BaseThemedActivity extends AppCompatActivity {
         
         // Apply theme after initialization
         applyTheme();
+        
+        // Retheme when the theme changes, including when the saved theme finishes loading
+        ThemeManager.getInstance().addThemeChangeListener(themeListener);
+    }
+    
+    @Override
+    protected void onDestroy() {
+        ThemeManager.getInstance().removeThemeChangeListener(themeListener);
+        super.onDestroy();
     }
     
     @Override
@@ -6,12 +6,16 @@ import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import com.google.android.material.button.MaterialButton;
-import com.google.android.material.card.MaterialCardView;
 
 public abstract class BaseThemedFragment extends Fragment {
     private static final String TAG = "BaseThemedFragment";
     
+    // View and theme generation onApplyTheme last ran for
+    private View themedView;
+    private int themedGeneration;
+    // Kept here because ThemeManager holds listeners weakly; registered while the view exists
+    private final ThemeManager.ThemeChangeListener themeListener = themeName -> applyTheme();
+    
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
@@ -21,6 +25,16 @@ public abstract class BaseThemedFragment extends Fragment {
         
         // Apply theme when view is created
         applyTheme();
+        
+        // Retheme when the theme changes, including when the saved theme finishes loading
+        ThemeManager.getInstance().addThemeChangeListener(themeListener);
+    }
+    
+    @Override
+    public void onDestroyView() {
+        ThemeManager.getInstance().removeThemeChangeListener(themeListener);
+        super.onDestroyView();
+        themedView = null;
     }
     
     @Override
@@ -52,64 +66,35 @@ public abstract class BaseThemedFragment extends Fragment {
     }
     
     private void applyTheme() {
+        applyTheme(false);
+    }
+    
+    private void applyTheme(boolean force) {
         try {
             View rootView = getView();
             if (rootView != null) {
-                ThemeUtils.applyThemeToRootView(rootView);
+                long createdBefore = ThemeStyleCache.getCreatedCount();
                 
-                // Apply themes to common Material components that might not be caught by hierarchy walk
-                applyThemeToCommonViews(rootView);
+                // One walk covers cards and buttons too; views already themed at this generation are skipped
+                ThemeUtils.applyThemeToRootView(rootView, true);
                 
-                // Allow subclasses to apply additional theming
-                onApplyTheme();
+                // Subclasses rebuild their own views, so only call them for a new view or a theme change
+                int generation = ThemeManager.getInstance().getGeneration();
+                if (force || rootView != themedView || generation != themedGeneration) {
+                    themedView = rootView;
+                    themedGeneration = generation;
+                    onApplyTheme();
+                }
                 
-                Log.d(TAG, "Theme applied successfully in fragment");
+                Log.d(TAG, "Theme applied successfully in fragment, "
+                        + (ThemeStyleCache.getCreatedCount() - createdBefore) + " theme objects created ("
+                        + ThemeStyleCache.describeCounts() + " in total)");
             }
         } catch (Exception e) {
             Log.e(TAG, "Failed to apply theme in fragment", e);
         }
     }
     
-    /**
-     * Apply themes to common Material Design components
-     */
-    private void applyThemeToCommonViews(View rootView) {
-        try {
-            // Find and theme common components by ID patterns
-            applyThemeToViewById(rootView, "card", MaterialCardView.class);
-            applyThemeToViewById(rootView, "button", MaterialButton.class);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to apply theme to common views", e);
-        }
-    }
-    
-    @SuppressWarnings("unchecked")
-    private <T extends View> void applyThemeToViewById(View rootView, String idPattern, Class<T> viewClass) {
-        try {
-            if (rootView instanceof android.view.ViewGroup) {
-                android.view.ViewGroup viewGroup = (android.view.ViewGroup) rootView;
-                for (int i = 0; i < viewGroup.getChildCount(); i++) {
-                    View child = viewGroup.getChildAt(i);
-                    
-                    // Check if this view matches our criteria
-                    if (viewClass.isInstance(child)) {
-                        // Apply appropriate theme
-                        if (child instanceof MaterialCardView) {
-                            ThemeUtils.applyThemeToCard((MaterialCardView) child, requireContext());
-                        } else if (child instanceof MaterialButton) {
-                            ThemeUtils.applyThemeToButton((MaterialButton) child, requireContext());
-                        }
-                    }
-                    
-                    // Recursively check children
-                    applyThemeToViewById(child, idPattern, viewClass);
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to apply theme to view by ID", e);
-        }
-    }
-    
     /**
      * Override this method in subclasses to apply theme to specific views
      */
@@ -121,6 +106,6 @@ public abstract class BaseThemedFragment extends Fragment {
      * Call this method when theme changes to refresh the current fragment
      */
     protected void refreshTheme() {
-        applyTheme();
+        applyTheme(true);
     }
 }
\ No newline at end of file
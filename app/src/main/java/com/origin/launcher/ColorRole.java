@@ -0,0 +1,93 @@
+package com.origin.launcher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every color a theme can define, with its key in colors.json and the color used when a theme
+ * leaves it out. The ordinal indexes ThemePalette, so a lookup by role is a single array read.
+ */
+public enum ColorRole {
+    BACKGROUND("background", 0xFF0A0A0A),
+    ON_BACKGROUND("onBackground", 0xFFFFFFFF),
+    SURFACE("surface", 0xFF141414),
+    ON_SURFACE("onSurface", 0xFFFFFFFF),
+    SURFACE_VARIANT("surfaceVariant", 0xFF1F1F1F),
+    ON_SURFACE_VARIANT("onSurfaceVariant", 0xFFCCCCCC),
+    OUTLINE("outline", 0xFF505050),
+    PRIMARY("primary", 0xFFFFFFFF),
+    ON_PRIMARY("onPrimary", 0xFF000000),
+    PRIMARY_CONTAINER("primaryContainer", 0xFF1F1F1F),
+    ON_PRIMARY_CONTAINER("onPrimaryContainer", 0xFFFFFFFF),
+    SECONDARY("secondary", 0xFFFFFFFF),
+    ON_SECONDARY("onSecondary", 0xFF000000),
+    SECONDARY_CONTAINER("secondaryContainer", 0xFF2A2A2A),
+    ON_SECONDARY_CONTAINER("onSecondaryContainer", 0xFFFFFFFF),
+    TERTIARY("tertiary", 0xFFF5F5F5),
+    ON_TERTIARY("onTertiary", 0xFF000000),
+    TERTIARY_CONTAINER("tertiaryContainer", 0xFF3A3A3A),
+    ON_TERTIARY_CONTAINER("onTertiaryContainer", 0xFFFFFFFF),
+    ERROR("error", 0xFFFF6659),
+    ON_ERROR("onError", 0xFFFFFFFF),
+    ERROR_CONTAINER("errorContainer", 0xFFB00020),
+    ON_ERROR_CONTAINER("onErrorContainer", 0xFFFFFFFF),
+    SUCCESS("success", 0xFF00E676),
+    INFO("info", 0xFF64B5F6),
+    WARNING("warning", 0xFFFFC107),
+    BOTTOM_NAVIGATION("bottom_navigation", 0xFF141414),
+    // Nested under "toggle" in colors.json
+    TOGGLE_TRACK("toggle_track", 0xFF2A2A2A),
+    TOGGLE_TRACK_CHECKED("toggle_trackChecked", 0xFF4CAF50),
+    TOGGLE_THUMB("toggle_thumb", 0xFFFFFFFF),
+    TOGGLE_THUMB_CHECKED("toggle_thumbChecked", 0xFF000000),
+    TOGGLE_RIPPLE("toggle_ripple", 0xFF4CAF50);
+
+    static final String TOGGLE_PREFIX = "toggle_";
+    private static final ColorRole[] VALUES = values();
+    private static final Map<String, ColorRole> BY_KEY = new HashMap<>();
+
+    static {
+        for (ColorRole role : VALUES) {
+            BY_KEY.put(role.key, role);
+        }
+    }
+
+    /** Name used by the string-keyed API, e.g. "onSurface" or "toggle_track" */
+    public final String key;
+    public final int defaultColor;
+
+    ColorRole(String key, int defaultColor) {
+        this.key = key;
+        this.defaultColor = defaultColor;
+    }
+
+    public boolean isToggle() {
+        return key.startsWith(TOGGLE_PREFIX);
+    }
+
+    /**
+     * Role for key, or null if no role has that name
+     */
+    public static ColorRole fromKey(String key) {
+        return key != null ? BY_KEY.get(key) : null;
+    }
+
+    /**
+     * Bitmask of roles, with bit i standing for the role with ordinal i
+     */
+    public static long mask(ColorRole... roles) {
+        long mask = 0;
+        for (ColorRole role : roles) {
+            mask |= 1L << role.ordinal();
+        }
+        return mask;
+    }
+
+    static ColorRole fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
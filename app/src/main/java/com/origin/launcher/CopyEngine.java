@@ -0,0 +1,275 @@
+package com.origin.launcher;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies streams to files through pooled direct buffers and a FileChannel. Sources larger than one
+ * buffer are copied in two stages, the caller reading (and inflating) while an IO-lane task writes.
+ */
+public final class CopyEngine {
+    private static final String TAG = "CopyEngine";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int PIPELINE_DEPTH = 3;
+    private static final int MAX_POOLED_BUFFERS = 8;
+    private static final long POLL_MILLIS = 100;
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+    private static final ThreadLocal<byte[]> chunk = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[CHUNK_SIZE];
+        }
+    };
+
+    private CopyEngine() {
+    }
+
+    /**
+     * Copy from into to, replacing its contents, and close from. With sync the data is on disk
+     * before this returns. Returns the number of bytes written.
+     */
+    public static long copy(InputStream from, File to, boolean sync) throws IOException {
+        return copy(from, to, sync, null);
+    }
+
+    /**
+     * Like copy(from, to, sync), also adding every byte read to progress unless that is null
+     */
+    public static long copy(InputStream from, File to, boolean sync, ProgressAggregator.Task progress) throws IOException {
+        File parentDir = to.getParentFile();
+        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+            throw new IOException("Failed to create directories");
+        }
+        long start = System.nanoTime();
+        long total;
+        try (InputStream input = from;
+             FileOutputStream output = new FileOutputStream(to)) {
+            FileChannel channel = output.getChannel();
+            total = copy(input, channel, to.getName(), progress);
+            if (sync) {
+                channel.force(false);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > 0) {
+            Log.d(TAG, "Copied " + total + " bytes to " + to.getName() + " in " + elapsed / 1_000_000 + " ms ("
+                    + (long) (total * 1_000_000_000.0 / elapsed / 1024) + " KB/s)");
+        }
+        return total;
+    }
+
+    private static long copy(InputStream input, FileChannel channel, String name, ProgressAggregator.Task progress) throws IOException {
+        ByteBuffer first = acquire();
+        boolean ended = fill(input, first, name, progress);
+        first.flip();
+        // Small sources and callers already on the IO lane (which must not wait on their own lane) copy inline
+        if (ended || TaskScheduler.isOnLane(TaskScheduler.Lane.IO)) {
+            return copyInline(input, channel, name, first, ended, progress);
+        }
+        return pipeline(input, channel, name, first, progress);
+    }
+
+    /**
+     * Write buffer, which holds data already read, then read and write the rest of input on this
+     * thread; buffer goes back to the pool
+     */
+    private static long copyInline(InputStream input, FileChannel channel, String name, ByteBuffer buffer, boolean ended, ProgressAggregator.Task progress) throws IOException {
+        try {
+            long total = writeFully(channel, buffer);
+            while (!ended) {
+                buffer.clear();
+                ended = fill(input, buffer, name, progress);
+                buffer.flip();
+                total += writeFully(channel, buffer);
+            }
+            release(buffer);
+            return total;
+        } catch (IOException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Read into buffers on this thread while an IO-lane task drains them into channel. The writer
+     * only runs if it gets an IO thread before this thread needs it: if the pipeline is full or the
+     * input ended and the writer has not started, this thread takes its place and writes inline, so
+     * a copy never waits on an IO lane whose threads are all busy. Buffers are only returned to the
+     * pool when both stages finished cleanly, since a cancelled writer may still hold one.
+     */
+    private static long pipeline(InputStream input, FileChannel channel, String name, ByteBuffer first, ProgressAggregator.Task progress) throws IOException {
+        BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(PIPELINE_DEPTH + 1);
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        for (int i = 1; i < PIPELINE_DEPTH; i++) {
+            free.add(acquire());
+        }
+        filled.add(first);
+
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<Long> writer = TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.currentPriority(), () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null; // The reader already wrote everything itself
+            }
+            long written = 0;
+            while (true) {
+                ByteBuffer buffer = filled.take();
+                if (buffer == END_OF_STREAM) {
+                    return written;
+                }
+                written += writeFully(channel, buffer);
+                buffer.clear();
+                free.put(buffer);
+            }
+        });
+
+        boolean completed = false;
+        try {
+            boolean ended = false;
+            while (!ended) {
+                ByteBuffer buffer = free.poll();
+                if (buffer == null && claimed.compareAndSet(false, true)) {
+                    return writeRest(input, channel, name, filled, free, false, progress);
+                }
+                while (buffer == null) {
+                    if (writer.isDone()) {
+                        // The writer only stops early on failure; get() rethrows it
+                        awaitWriter(writer, name);
+                        throw new IOException("Writer of " + name + " stopped early");
+                    }
+                    buffer = free.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                ended = fill(input, buffer, name, progress);
+                buffer.flip();
+                filled.put(buffer);
+            }
+            if (claimed.compareAndSet(false, true)) {
+                return writeRest(input, channel, name, filled, free, true, progress);
+            }
+            filled.put(END_OF_STREAM);
+            long total = awaitWriter(writer, name);
+            completed = true;
+            for (ByteBuffer buffer : free) {
+                release(buffer);
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Copy of " + name + " cancelled");
+        } finally {
+            if (!completed) {
+                writer.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Take over from a writer that never started: write the buffers it would have drained, in order,
+     * then copy whatever input has left on this thread
+     */
+    private static long writeRest(InputStream input, FileChannel channel, String name, BlockingQueue<ByteBuffer> filled,
+                                  BlockingQueue<ByteBuffer> free, boolean ended, ProgressAggregator.Task progress) throws IOException {
+        Log.d(TAG, "No IO thread free for the writer of " + name + ", writing inline");
+        for (ByteBuffer buffer : free) {
+            release(buffer);
+        }
+        long total = 0;
+        ByteBuffer last = null;
+        ByteBuffer buffer;
+        while ((buffer = filled.poll()) != null) {
+            if (last != null) {
+                release(last);
+            }
+            last = buffer;
+            try {
+                total += writeFully(channel, buffer);
+            } catch (IOException e) {
+                release(buffer);
+                throw e;
+            }
+        }
+        // Carry on with the last buffer, empty, as a plain inline copy
+        ByteBuffer rest = last != null ? last : acquire();
+        rest.clear();
+        rest.flip();
+        return total + copyInline(input, channel, name, rest, ended, progress);
+    }
+
+    /**
+     * Fill buffer from input; returns true once input is exhausted
+     */
+    private static boolean fill(InputStream input, ByteBuffer buffer, String name, ProgressAggregator.Task progress) throws IOException {
+        byte[] bytes = chunk.get();
+        while (buffer.hasRemaining()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Copy of " + name + " cancelled");
+            }
+            int read = input.read(bytes, 0, Math.min(bytes.length, buffer.remaining()));
+            if (read == -1) {
+                return true;
+            }
+            buffer.put(bytes, 0, read);
+            if (progress != null) {
+                progress.add(read);
+            }
+        }
+        return false;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static long awaitWriter(Future<Long> writer, String name) throws IOException, InterruptedException {
+        try {
+            return writer.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to write " + name, cause);
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        if (pooled.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            pool.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
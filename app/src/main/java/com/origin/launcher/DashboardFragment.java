@@ -56,8 +56,6 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import android.content.Context;
-import android.content.res.ColorStateList;
-import android.graphics.drawable.RippleDrawable;
 import android.graphics.Color;
 
 public class DashboardFragment extends BaseThemedFragment {
@@ -246,8 +244,8 @@ public class DashboardFragment extends BaseThemedFragment {
                         int currentStroke = card.getStrokeColor();
                         
                         // Get target colors
-                        int targetBackground = ThemeManager.getInstance().getColor("surfaceVariant");
-                        int targetStroke = ThemeManager.getInstance().getColor("outline");
+                        int targetBackground = ThemeManager.getInstance().getColor(ColorRole.SURFACE_VARIANT);
+                        int targetStroke = ThemeManager.getInstance().getColor(ColorRole.OUTLINE);
                         
                         // Animate color transitions
                         ThemeUtils.animateBackgroundColorTransition(card, currentBackground, targetBackground, 300);
@@ -283,13 +281,13 @@ public class DashboardFragment extends BaseThemedFragment {
                     }
                 }
                 
-                int targetBackground = ThemeManager.getInstance().getColor("background");
+                int targetBackground = ThemeManager.getInstance().getColor(ColorRole.BACKGROUND);
                 
                 // Animate background color transition
                 ThemeUtils.animateBackgroundColorTransition(rootView, currentBackground, targetBackground, 300);
             } catch (Exception e) {
                 // Fallback to immediate theme application
-                rootView.setBackgroundColor(ThemeManager.getInstance().getColor("background"));
+                rootView.setBackgroundColor(ThemeManager.getInstance().getColor(ColorRole.BACKGROUND));
             }
         }
         
@@ -1022,8 +1020,8 @@ public class DashboardFragment extends BaseThemedFragment {
                 ThemeManager themeManager = ThemeManager.getInstance();
                 if (themeManager != null && themeManager.isThemeLoaded()) {
                     // Apply theme to the card
-                    cardView.setCardBackgroundColor(themeManager.getColor("surfaceVariant"));
-                    cardView.setStrokeColor(themeManager.getColor("outline"));
+                    cardView.setCardBackgroundColor(themeManager.getColor(ColorRole.SURFACE_VARIANT));
+                    cardView.setStrokeColor(themeManager.getColor(ColorRole.OUTLINE));
                     cardView.setStrokeWidth((int) (1 * itemView.getContext().getResources().getDisplayMetrics().density));
                     cardView.setCardElevation(2 * itemView.getContext().getResources().getDisplayMetrics().density);
                     
@@ -1031,18 +1029,13 @@ public class DashboardFragment extends BaseThemedFragment {
                     cardView.setRadius(12 * itemView.getContext().getResources().getDisplayMetrics().density);
                     
                     // Apply theme to the text
-                    textView.setTextColor(themeManager.getColor("onSurface"));
+                    textView.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
                     
                     // Apply theme to the icon
-                    iconView.setColorFilter(themeManager.getColor("primary"));
+                    iconView.setColorFilter(themeManager.getColor(ColorRole.PRIMARY));
                     
                     // Add ripple effect
-                    RippleDrawable ripple = new RippleDrawable(
-                        ColorStateList.valueOf(ThemeUtils.createOptimizedRippleColor("onSurface", "card")),
-                        null,
-                        null
-                    );
-                    cardView.setForeground(ripple);
+                    cardView.setForeground(themeManager.getStyleCache().cardRipple(ColorRole.ON_SURFACE));
                 }
             } catch (Exception e) {
                 // Handle error gracefully
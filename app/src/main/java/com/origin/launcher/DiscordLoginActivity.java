@@ -19,8 +19,6 @@ import com.google.android.material.floatingactionbutton.ExtendedFloatingActionBu
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -35,7 +33,6 @@ public class DiscordLoginActivity extends BaseThemedActivity {
     private WebView webView;
     private ProgressBar progressBar;
     private ExtendedFloatingActionButton backButton;
-    private ExecutorService executor;
     private Handler mainHandler;
     private boolean isTokenExtractionInProgress = false;
     
@@ -44,7 +41,6 @@ public class DiscordLoginActivity extends BaseThemedActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_discord_login);
         
-        executor = Executors.newSingleThreadExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
         
         setupToolbar();
@@ -184,7 +180,7 @@ public class DiscordLoginActivity extends BaseThemedActivity {
             }
         });
         
-        executor.execute(() -> {
+        TaskScheduler.get().submit(TaskScheduler.Lane.NETWORK, TaskScheduler.Priority.HIGH, this, () -> {
             try {
                 Log.d(TAG, "Starting token extraction process");
                 
@@ -277,7 +273,8 @@ public class DiscordLoginActivity extends BaseThemedActivity {
     private void validateTokenAndGetUserInfo(String token) {
         // Test the token with Discord Gateway (similar to your friend's validation)
         try {
-            OkHttpClient client = new OkHttpClient.Builder()
+            // The token travels in this exchange, so keep it out of the disk cache
+            OkHttpClient client = NetworkClient.getUncached().newBuilder()
                 .connectTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
                 .readTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
                 .build();
@@ -428,9 +425,6 @@ public class DiscordLoginActivity extends BaseThemedActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-        }
         
         // Clear WebView to prevent memory leaks
         if (webView != null) {
@@ -8,8 +8,7 @@ import android.app.Activity;
 import android.os.Handler;
 import android.os.Looper;
 import androidx.fragment.app.Fragment;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 public class DiscordManager {
     private static final String TAG = "DiscordManager";
@@ -24,7 +23,7 @@ public class DiscordManager {
     private Context context;
     private Fragment fragment; // Add fragment reference for startActivityForResult
     private SharedPreferences prefs;
-    private ExecutorService executor;
+    private Executor executor;
     private Handler mainHandler;
     private DiscordLoginCallback callback;
     private DiscordRPC discordRPC;
@@ -59,7 +58,7 @@ public class DiscordManager {
     public DiscordManager(Context context) {
         this.context = context;
         this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = TaskScheduler.get().serial(TaskScheduler.Lane.IO, TaskScheduler.Priority.NORMAL);
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.discordRPC = new DiscordRPC(context);
         this.discordRPC.setCallback(new DiscordRPC.DiscordRPCCallback() {
@@ -315,18 +314,6 @@ public class DiscordManager {
         if (discordRPC != null) {
             discordRPC.destroy();
         }
-        
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
     }
     
     public DiscordRPC getDiscordRPC() {
@@ -8,9 +8,8 @@ import org.java_websocket.handshake.ServerHandshake;
 import org.json.JSONObject;
 import org.json.JSONArray;
 import java.net.URI;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -29,8 +28,9 @@ public class DiscordRPC {
     private Context context;
     private SharedPreferences prefs;
     private WebSocketClient webSocket;
-    private ExecutorService executor;
-    private ScheduledExecutorService heartbeatExecutor;
+    // Connects, presence updates, heartbeats and reconnects all run here, one at a time and in order
+    private Executor executor;
+    private ScheduledFuture<?> heartbeatTask;
     private Handler mainHandler;
     private DiscordRPCCallback callback;
     
@@ -59,8 +59,7 @@ public class DiscordRPC {
     public DiscordRPC(Context context) {
         this.context = context;
         this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.executor = Executors.newSingleThreadExecutor();
-        this.heartbeatExecutor = Executors.newScheduledThreadPool(1);
+        this.executor = TaskScheduler.get().serial(TaskScheduler.Lane.NETWORK, TaskScheduler.Priority.NORMAL);
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.startTime = System.currentTimeMillis();
     }
@@ -115,10 +114,7 @@ public class DiscordRPC {
                         connecting.set(false);
                         
                         // Stop heartbeat
-                        if (heartbeatExecutor != null && !heartbeatExecutor.isShutdown()) {
-                            heartbeatExecutor.shutdownNow();
-                            heartbeatExecutor = Executors.newScheduledThreadPool(1);
-                        }
+                        stopHeartbeat();
                         
                         mainHandler.post(() -> {
                             if (callback != null) {
@@ -163,17 +159,12 @@ public class DiscordRPC {
     }
     
     private void reconnectWithDelay() {
-        executor.execute(() -> {
-            try {
-                Log.d(TAG, "Reconnecting to Discord Gateway in 5 seconds...");
-                Thread.sleep(5000);
-                if (shouldReconnect) {
-                    connect();
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        Log.d(TAG, "Reconnecting to Discord Gateway in 5 seconds...");
+        TaskScheduler.get().schedule(executor, () -> {
+            if (shouldReconnect) {
+                connect();
             }
-        });
+        }, 5, TimeUnit.SECONDS);
     }
     
     private void handleMessage(String message) {
@@ -364,12 +355,10 @@ public class DiscordRPC {
         });
     }
     
-    private void startHeartbeat() {
-        if (heartbeatExecutor.isShutdown()) {
-            heartbeatExecutor = Executors.newScheduledThreadPool(1);
-        }
+    private synchronized void startHeartbeat() {
+        stopHeartbeat();
         
-        heartbeatExecutor.scheduleAtFixedRate(() -> {
+        heartbeatTask = TaskScheduler.get().scheduleAtFixedRate(executor, () -> {
             if (connected.get() && webSocket != null && webSocket.isOpen()) {
                 if (!heartbeatAcknowledged) {
                     Log.w(TAG, "Previous heartbeat not acknowledged, reconnecting...");
@@ -382,6 +371,13 @@ public class DiscordRPC {
         }, 0, heartbeatInterval.get(), TimeUnit.MILLISECONDS);
     }
     
+    private synchronized void stopHeartbeat() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+            heartbeatTask = null;
+        }
+    }
+    
     private void sendHeartbeat() {
         try {
             JSONObject heartbeat = new JSONObject();
@@ -444,16 +440,11 @@ public class DiscordRPC {
         disconnect();
         
         // Wait a bit before reconnecting
-        executor.execute(() -> {
-            try {
-                Thread.sleep(2000);
-                if (shouldReconnect) {
-                    connect();
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        TaskScheduler.get().schedule(executor, () -> {
+            if (shouldReconnect) {
+                connect();
             }
-        });
+        }, 2, TimeUnit.SECONDS);
     }
     
     public void disconnect() {
@@ -468,33 +459,11 @@ public class DiscordRPC {
             webSocket.close();
         }
         
-        if (heartbeatExecutor != null && !heartbeatExecutor.isShutdown()) {
-            heartbeatExecutor.shutdown();
-            try {
-                if (!heartbeatExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    heartbeatExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                heartbeatExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        stopHeartbeat();
     }
     
     public void destroy() {
         disconnect();
-        
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
     }
     
     public void setAccessToken(String accessToken) {
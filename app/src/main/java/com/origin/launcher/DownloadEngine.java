@@ -0,0 +1,741 @@
+package com.origin.launcher;
+
+import android.util.Log;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Downloads a file over several connections at once. The file is preallocated and split into chunks
+ * that are fetched with Range requests and written in place; per-chunk progress is kept in a sidecar
+ * state file so an interrupted download resumes where each chunk stopped. Servers without range
+ * support get a single plain stream. The SHA-256 of the file is computed while it downloads and
+ * checked against the expected hash, if there is one, before the file is published.
+ *
+ * All downloads share an optional bandwidth cap. Chunk size follows the throughput and round-trip
+ * time measured on earlier chunks, and every download records a throughput histogram.
+ */
+public class DownloadEngine {
+    private static final String TAG = "DownloadEngine";
+    private static final String PART_SUFFIX = ".part";
+    private static final String STATE_SUFFIX = ".part.json";
+    private static final int READ_TIMEOUT_MS = 45000;
+    // Connections per ranged download; the DOWNLOAD lane is sized from this
+    static final int MAX_CONNECTIONS = 4;
+    private static final long DEFAULT_CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 16L * 1024 * 1024;
+    // A chunk should take this long on one connection: long enough that the request round trip is
+    // noise, short enough that the last chunks do not leave the other connections idle
+    private static final double TARGET_CHUNK_SECONDS = 2.0;
+    // ...and at least this many round trips, so a slow-to-answer server still gets chunks worth asking for
+    private static final int MIN_CHUNK_ROUND_TRIPS = 20;
+    // Chunks shorter than this say more about request overhead than about throughput
+    private static final long MIN_MEASURED_CHUNK = 256 * 1024;
+    private static final double ESTIMATE_SMOOTHING = 0.3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    private static final long STATE_SAVE_INTERVAL_MS = 1000;
+    private static final long PROGRESS_INTERVAL_MS = 16; // about a frame; listeners feed ProgressAggregator, which coalesces
+    private static final long SAMPLE_INTERVAL_MS = 250;
+
+    private static DownloadEngine instance;
+
+    public interface Listener {
+        /**
+         * The size of the file is known (-1 if the server did not say); throughput is where this
+         * download records its rate samples, live until it ends
+         */
+        void onStart(long total, ThroughputHistogram throughput);
+
+        /** Called from download threads, at most every PROGRESS_INTERVAL_MS */
+        void onProgress(long downloaded, long total);
+    }
+
+    public static synchronized DownloadEngine get() {
+        if (instance == null) {
+            instance = new DownloadEngine();
+        }
+        return instance;
+    }
+
+    private final OkHttpClient client;
+    private final BandwidthLimiter limiter = new BandwidthLimiter();
+    // Estimates over recent chunks of all downloads; 0 until something was measured
+    private double connectionThroughput; // bytes per second on one connection
+    private double roundTripMillis;
+
+    private DownloadEngine() {
+        // APKs bypass the HTTP cache; the longer read timeout covers slow mirrors mid-chunk. HTTP/2
+        // would multiplex every chunk onto one TCP connection, so parallel ranges stay on HTTP/1.1.
+        client = NetworkClient.getUncached().newBuilder()
+                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Cap the combined rate of all downloads at bytesPerSecond; 0 removes the cap
+     */
+    public void setBandwidthLimit(long bytesPerSecond) {
+        limiter.setRate(bytesPerSecond);
+        Log.d(TAG, bytesPerSecond > 0 ? "Bandwidth capped at " + bytesPerSecond / 1024 + " KB/s" : "Bandwidth cap removed");
+    }
+
+    public long getBandwidthLimit() {
+        return limiter.getRate();
+    }
+
+    /**
+     * Download url to outFile, resuming a previous partial download of the same file if the server
+     * still serves the same content, and return the file's SHA-256 as lowercase hex. If expectedSha256
+     * is not null and does not match, the download is discarded and an IOException thrown. The calling
+     * thread fetches chunks itself and borrows extra threads of the DOWNLOAD lane only while they are
+     * free, so it is safe to call from a DOWNLOAD lane task.
+     */
+    public String download(String url, File outFile, String expectedSha256, Listener listener) throws IOException, InterruptedException {
+        File parent = outFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent.getAbsolutePath());
+        }
+        File partFile = new File(outFile.getPath() + PART_SUFFIX);
+        File stateFile = new File(outFile.getPath() + STATE_SUFFIX);
+
+        long start = System.nanoTime();
+        Probe probe = probe(url);
+        ThroughputHistogram throughput = new ThroughputHistogram();
+        listener.onStart(probe.length, throughput);
+        Progress progress = new Progress(listener, probe.length, throughput);
+        MessageDigest digest = ApkCatalog.newSha256();
+        long bytes;
+        try {
+            if (probe.acceptsRanges && probe.length > 0) {
+                bytes = downloadRanges(url, probe, partFile, stateFile, digest, progress);
+            } else {
+                Log.d(TAG, "Server does not support ranges, downloading " + url + " in one stream");
+                stateFile.delete();
+                bytes = downloadStream(probe, partFile, digest, progress);
+            }
+        } finally {
+            progress.sampleRest();
+            Log.d(TAG, "Throughput of " + outFile.getName() + ": " + throughput);
+        }
+        String sha256 = ApkCatalog.toHex(digest.digest());
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+            // Corrupt or not what the feed promised; resuming from these bytes would not help
+            discardPartial(outFile);
+            throw new IOException("SHA-256 mismatch for " + outFile.getName() + ": expected " + expectedSha256 + ", got " + sha256);
+        }
+
+        if (outFile.exists() && !outFile.delete()) {
+            throw new IOException("Failed to replace " + outFile.getName());
+        }
+        if (!partFile.renameTo(outFile)) {
+            throw new IOException("Failed to move " + partFile.getName() + " to " + outFile.getName());
+        }
+        stateFile.delete();
+        long elapsed = System.nanoTime() - start;
+        Log.d(TAG, "Downloaded " + outFile.getName() + " (" + bytes + " bytes) in " + elapsed / 1_000_000 + " ms ("
+                + (elapsed > 0 ? (long) (bytes * 1_000_000_000.0 / elapsed / 1024) : 0) + " KB/s), sha256 " + sha256);
+        return sha256;
+    }
+
+    /**
+     * Delete the partial data and resume state of an unfinished download of outFile
+     */
+    public void discardPartial(File outFile) {
+        new File(outFile.getPath() + PART_SUFFIX).delete();
+        new File(outFile.getPath() + STATE_SUFFIX).delete();
+    }
+
+    private static class Probe {
+        URL finalUrl;
+        long length = -1;
+        boolean acceptsRanges;
+        String etag;
+        String lastModified;
+    }
+
+    /**
+     * Send a one-byte range request, letting the client follow redirects, to learn the final URL,
+     * the length and whether ranges are honoured
+     */
+    private Probe probe(String url) throws IOException {
+        try (Response response = open(new URL(url), "bytes=0-0", null)) {
+            Probe probe = new Probe();
+            probe.finalUrl = response.request().url().url();
+            int code = response.code();
+            if (code == HttpURLConnection.HTTP_PARTIAL) {
+                probe.length = parseContentRangeTotal(response.header("Content-Range"));
+                probe.acceptsRanges = probe.length > 0;
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                probe.length = response.body() != null ? response.body().contentLength() : -1;
+            } else {
+                throw new IOException("HTTP " + code);
+            }
+            probe.etag = response.header("ETag");
+            probe.lastModified = response.header("Last-Modified");
+            recordRoundTrip(response);
+            return probe;
+        }
+    }
+
+    private long downloadStream(Probe probe, File partFile, MessageDigest digest, Progress progress) throws IOException {
+        try (Response response = open(probe.finalUrl, null, null)) {
+            int code = response.code();
+            if (code != HttpURLConnection.HTTP_OK || response.body() == null) {
+                throw new IOException("HTTP " + code);
+            }
+            progress.start(0);
+            try (InputStream in = response.body().byteStream();
+                 FileOutputStream out = new FileOutputStream(partFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    checkInterrupted();
+                    out.write(buffer, 0, read);
+                    digest.update(buffer, 0, read);
+                    total += read;
+                    progress.add(read);
+                    limiter.acquire(read);
+                }
+                out.getFD().sync();
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Shared state of one ranged download: the chunk queue, per-chunk progress and the part file
+     */
+    private final class RangedDownload {
+        final Probe probe;
+        final File stateFile;
+        final String sourceUrl;
+        final long chunkSize;
+        final AtomicLongArray done;
+        final ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicLong lastSave = new AtomicLong();
+        final MessageDigest digest;
+        final ByteBuffer hashBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long hashed; // guarded by digest
+        FileChannel channel;
+        Progress progress;
+
+        RangedDownload(String sourceUrl, Probe probe, File stateFile, long chunkSize, long[] resumed, MessageDigest digest) {
+            this.sourceUrl = sourceUrl;
+            this.probe = probe;
+            this.stateFile = stateFile;
+            this.chunkSize = chunkSize;
+            this.done = new AtomicLongArray(resumed);
+            this.digest = digest;
+        }
+
+        int chunkCount() {
+            return done.length();
+        }
+
+        long chunkStart(int chunk) {
+            return chunk * chunkSize;
+        }
+
+        long chunkLength(int chunk) {
+            return Math.min(chunkSize, probe.length - chunkStart(chunk));
+        }
+
+        long completedBytes() {
+            long total = 0;
+            for (int i = 0; i < done.length(); i++) total += done.get(i);
+            return total;
+        }
+
+        /** Fetch chunks until none is left; returns normally also when another worker failed */
+        void work() throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            Integer chunk;
+            while (!failed.get() && (chunk = pending.poll()) != null) {
+                try {
+                    fetchChunk(chunk, buffer);
+                } catch (IOException | RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+                saveState(false);
+            }
+        }
+
+        private void fetchChunk(int chunk, byte[] buffer) throws IOException {
+            for (int attempt = 1; ; attempt++) {
+                long offset = chunkStart(chunk) + done.get(chunk);
+                long end = chunkStart(chunk) + chunkLength(chunk) - 1;
+                if (offset > end) {
+                    return;
+                }
+                try (Response response = open(probe.finalUrl, "bytes=" + offset + "-" + end,
+                        probe.etag != null ? probe.etag : probe.lastModified)) {
+                    int code = response.code();
+                    if (code != HttpURLConnection.HTTP_PARTIAL || response.body() == null) {
+                        // 200 here means If-Range failed: the file changed under us, so no chunk can be trusted
+                        throw new ContentChangedException("HTTP " + code + " for range of " + sourceUrl);
+                    }
+                    recordRoundTrip(response);
+                    long bodyStart = System.nanoTime();
+                    long bodyOffset = offset;
+                    try (InputStream in = response.body().byteStream()) {
+                        int read;
+                        while (offset <= end && (read = in.read(buffer, 0, (int) Math.min(buffer.length, end - offset + 1))) != -1) {
+                            checkInterrupted();
+                            if (failed.get()) {
+                                return;
+                            }
+                            ByteBuffer src = ByteBuffer.wrap(buffer, 0, read);
+                            while (src.hasRemaining()) {
+                                offset += channel.write(src, offset);
+                            }
+                            done.addAndGet(chunk, read);
+                            hashWritten(offset - read, buffer, read);
+                            progress.add(read);
+                            limiter.acquire(read);
+                        }
+                    }
+                    if (offset > end) {
+                        recordChunk(offset - bodyOffset, System.nanoTime() - bodyStart);
+                        return;
+                    }
+                    throw new IOException("Connection closed early in chunk " + chunk);
+                } catch (ContentChangedException | InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                        throw e;
+                    }
+                    Log.w(TAG, "Chunk " + chunk + " attempt " + attempt + " failed, retrying", e);
+                    sleepBackoff(attempt);
+                }
+            }
+        }
+
+        /**
+         * Feed bytes just written at offset to the digest if they are the next ones it needs. Bytes
+         * that land ahead of the hash position are read back once the position reaches them, so the
+         * file is hashed in order while it downloads and no pass is needed at the end.
+         */
+        void hashWritten(long offset, byte[] buffer, int length) throws IOException {
+            synchronized (digest) {
+                if (offset != hashed) {
+                    return;
+                }
+                digest.update(buffer, 0, length);
+                hashed += length;
+                hashCatchUp();
+            }
+        }
+
+        /** Hash everything that is already on disk directly after the hash position */
+        void hashCatchUp() throws IOException {
+            synchronized (digest) {
+                while (hashed < probe.length) {
+                    int chunk = (int) (hashed / chunkSize);
+                    long available = chunkStart(chunk) + done.get(chunk);
+                    if (available <= hashed) {
+                        return;
+                    }
+                    hashBuffer.clear();
+                    hashBuffer.limit((int) Math.min(hashBuffer.capacity(), available - hashed));
+                    int read = channel.read(hashBuffer, hashed);
+                    if (read <= 0) {
+                        throw new IOException("Short read while hashing at " + hashed);
+                    }
+                    digest.update(hashBuffer.array(), 0, read);
+                    hashed += read;
+                }
+            }
+        }
+
+        void saveState(boolean force) {
+            long now = System.currentTimeMillis();
+            long last = lastSave.get();
+            if (!force && (now - last < STATE_SAVE_INTERVAL_MS || !lastSave.compareAndSet(last, now))) {
+                return;
+            }
+            try {
+                JSONObject state = new JSONObject();
+                state.put("url", sourceUrl);
+                state.put("length", probe.length);
+                state.put("etag", probe.etag);
+                state.put("last_modified", probe.lastModified);
+                state.put("chunk_size", chunkSize);
+                JSONArray chunks = new JSONArray();
+                for (int i = 0; i < done.length(); i++) chunks.put(done.get(i));
+                state.put("done", chunks);
+                writeAtomically(stateFile, state.toString());
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Failed to save download state", e);
+            }
+        }
+    }
+
+    private long downloadRanges(String url, Probe probe, File partFile, File stateFile, MessageDigest digest, Progress progress) throws IOException, InterruptedException {
+        SavedState saved = readState(stateFile, url, probe, partFile);
+        long chunkSize;
+        long[] resumed;
+        if (saved == null) {
+            chunkSize = chooseChunkSize(probe.length);
+            resumed = new long[(int) ((probe.length + chunkSize - 1) / chunkSize)];
+            partFile.delete();
+        } else {
+            // Keep the layout the saved progress refers to
+            chunkSize = saved.chunkSize;
+            resumed = saved.done;
+        }
+        RangedDownload download = new RangedDownload(url, probe, stateFile, chunkSize, resumed, digest);
+        for (int i = 0; i < download.chunkCount(); i++) {
+            if (download.done.get(i) < download.chunkLength(i)) {
+                download.pending.add(i);
+            }
+        }
+        long alreadyDone = download.completedBytes();
+        if (alreadyDone > 0) {
+            Log.d(TAG, "Resuming " + url + " at " + alreadyDone + "/" + probe.length + " bytes");
+        }
+        Log.d(TAG, "Fetching " + download.chunkCount() + " chunks of " + chunkSize / 1024 + " KB");
+        progress.start(alreadyDone);
+        download.progress = progress;
+
+        boolean discarded = false;
+        try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+            raf.setLength(probe.length);
+            download.channel = raf.getChannel();
+            download.saveState(true);
+            // A resumed download's finished prefix is hashed now; the rest is hashed as it arrives
+            download.hashCatchUp();
+            runWorkers(download);
+            download.hashCatchUp();
+            if (download.hashed != probe.length) {
+                throw new IOException("Hashed " + download.hashed + " of " + probe.length + " bytes");
+            }
+            download.channel.force(false);
+        } catch (ContentChangedException e) {
+            // Start over on the next attempt rather than mixing two versions of the file
+            discarded = true;
+            stateFile.delete();
+            partFile.delete();
+            throw e;
+        } finally {
+            if (!discarded && (download.failed.get() || Thread.currentThread().isInterrupted())) {
+                download.saveState(true);
+            }
+        }
+        return probe.length - alreadyDone;
+    }
+
+    /**
+     * Work on the chunk queue from this thread plus up to MAX_CONNECTIONS - 1 helpers on the DOWNLOAD
+     * lane, never the NETWORK lane, whose few threads serve short calls elsewhere in the app.
+     * Helpers that have not started by the time the queue is drained are skipped, so this never
+     * waits on a lane thread that is not available.
+     */
+    private void runWorkers(RangedDownload download) throws IOException, InterruptedException {
+        int helpers = Math.min(MAX_CONNECTIONS, download.pending.size()) - 1;
+        List<AtomicBoolean> claims = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < helpers; i++) {
+            AtomicBoolean claimed = new AtomicBoolean();
+            claims.add(claimed);
+            futures.add(TaskScheduler.get().submit(TaskScheduler.Lane.DOWNLOAD, TaskScheduler.currentPriority(),
+                    () -> {
+                        if (!claimed.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        download.work();
+                        return null;
+                    }));
+        }
+
+        IOException failure = null;
+        try {
+            download.work();
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            if (failure != null || Thread.currentThread().isInterrupted()) {
+                download.failed.set(true);
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                if (claims.get(i).compareAndSet(false, true)) {
+                    futures.get(i).cancel(false);
+                    continue;
+                }
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    download.failed.set(true);
+                    futures.get(i).cancel(true);
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        checkInterrupted();
+        // A helper may have stopped early because of a failure we already reported; anything left is an error
+        if (!download.pending.isEmpty() || download.completedBytes() != download.probe.length) {
+            throw new IOException("Download incomplete: " + download.completedBytes() + "/" + download.probe.length);
+        }
+    }
+
+    private static class SavedState {
+        final long chunkSize;
+        final long[] done;
+
+        SavedState(long chunkSize, long[] done) {
+            this.chunkSize = chunkSize;
+            this.done = done;
+        }
+    }
+
+    /**
+     * Chunk layout and per-chunk progress from a previous attempt, or null if there is none or it is
+     * for other content
+     */
+    private SavedState readState(File stateFile, String url, Probe probe, File partFile) {
+        if (!stateFile.isFile() || !partFile.isFile() || partFile.length() != probe.length) {
+            return null;
+        }
+        try {
+            JSONObject state = new JSONObject(new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8));
+            boolean sameSource = url.equals(state.optString("url"))
+                    && state.optLong("length") == probe.length
+                    && equalsOrNull(state.optString("etag", null), probe.etag)
+                    && equalsOrNull(state.optString("last_modified", null), probe.lastModified);
+            if (!sameSource || (probe.etag == null && probe.lastModified == null)) {
+                return null;
+            }
+            long chunkSize = state.getLong("chunk_size");
+            JSONArray chunks = state.getJSONArray("done");
+            if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE || chunkSize % BUFFER_SIZE != 0
+                    || chunks.length() != (probe.length + chunkSize - 1) / chunkSize) {
+                return null;
+            }
+            long[] done = new long[chunks.length()];
+            for (int i = 0; i < done.length; i++) {
+                done[i] = Math.max(0, Math.min(chunks.getLong(i), Math.min(chunkSize, probe.length - i * chunkSize)));
+            }
+            return new SavedState(chunkSize, done);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Ignoring unreadable download state", e);
+            return null;
+        }
+    }
+
+    /**
+     * Chunk size for a new download of length bytes. Too small and every chunk pays a request round
+     * trip for little data; too large and the last chunks run on one connection while the others sit
+     * idle. So aim for TARGET_CHUNK_SECONDS (or MIN_CHUNK_ROUND_TRIPS round trips, if longer) at the
+     * measured per-connection rate, never more than the cap allows, and give every connection a chunk.
+     */
+    private long chooseChunkSize(long length) {
+        double throughput;
+        double roundTrip;
+        synchronized (this) {
+            throughput = connectionThroughput;
+            roundTrip = roundTripMillis;
+        }
+        return chunkSizeFor(length, throughput, roundTrip, limiter.getRate());
+    }
+
+    /**
+     * chooseChunkSize for the given estimates (0 where nothing was measured) and cap (0 for none)
+     */
+    static long chunkSizeFor(long length, double throughput, double roundTrip, long cap) {
+        if (cap > 0) {
+            double share = cap / (double) MAX_CONNECTIONS;
+            throughput = throughput > 0 ? Math.min(throughput, share) : share;
+        }
+        long size = DEFAULT_CHUNK_SIZE;
+        if (throughput > 0) {
+            double seconds = Math.max(TARGET_CHUNK_SECONDS, MIN_CHUNK_ROUND_TRIPS * roundTrip / 1000);
+            size = (long) (throughput * seconds);
+        }
+        size = Math.min(size, (length + MAX_CONNECTIONS - 1) / MAX_CONNECTIONS);
+        size = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size));
+        // Whole buffers, so a chunk boundary never splits a read
+        return (size + BUFFER_SIZE - 1) / BUFFER_SIZE * BUFFER_SIZE;
+    }
+
+    private void recordRoundTrip(Response response) {
+        long millis = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+        if (millis < 0) {
+            return;
+        }
+        synchronized (this) {
+            roundTripMillis = roundTripMillis > 0 ? roundTripMillis + (millis - roundTripMillis) * ESTIMATE_SMOOTHING : millis;
+        }
+    }
+
+    /** One connection moved bytes of a chunk body in nanos */
+    private void recordChunk(long bytes, long nanos) {
+        if (bytes < MIN_MEASURED_CHUNK || nanos <= 0) {
+            return;
+        }
+        double rate = bytes * 1_000_000_000.0 / nanos;
+        synchronized (this) {
+            connectionThroughput = connectionThroughput > 0 ? connectionThroughput + (rate - connectionThroughput) * ESTIMATE_SMOOTHING : rate;
+        }
+    }
+
+    /**
+     * Start a GET of url on the shared connection pool; redirects are followed by the client
+     */
+    private Response open(URL url, String range, String ifRange) throws IOException {
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .header("Accept", "*/*")
+                .header("Accept-Encoding", "identity");
+        if (range != null) {
+            request.header("Range", range);
+        }
+        if (ifRange != null) {
+            request.header("If-Range", ifRange);
+        }
+        return client.newCall(request.build()).execute();
+    }
+
+    private static long parseContentRangeTotal(String contentRange) {
+        // "bytes 0-0/12345"
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || slash == contentRange.length() - 1 || contentRange.charAt(slash + 1) == '*') {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeAtomically(File file, String content) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to publish " + file.getName());
+        }
+    }
+
+    private static boolean equalsOrNull(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Download cancelled");
+        }
+    }
+
+    private static void sleepBackoff(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(1000L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        }
+    }
+
+    /**
+     * Byte counter shared by all connections of one download, reporting at most every
+     * PROGRESS_INTERVAL_MS and sampling the combined rate into the histogram every SAMPLE_INTERVAL_MS
+     */
+    private static final class Progress {
+        private final Listener listener;
+        private final long total;
+        private final ThroughputHistogram throughput;
+        private final AtomicLong downloaded = new AtomicLong();
+        private final AtomicLong lastReport = new AtomicLong();
+        private final AtomicLong sampleStart = new AtomicLong();
+        private volatile long sampleStartBytes;
+
+        Progress(Listener listener, long total, ThroughputHistogram throughput) {
+            this.listener = listener;
+            this.total = total;
+            this.throughput = throughput;
+        }
+
+        /** Transfer begins, with alreadyDownloaded bytes carried over from an earlier attempt */
+        void start(long alreadyDownloaded) {
+            downloaded.set(alreadyDownloaded);
+            sampleStartBytes = alreadyDownloaded;
+            sampleStart.set(System.nanoTime() / 1_000_000);
+        }
+
+        void add(long bytes) {
+            long now = downloaded.addAndGet(bytes);
+            long time = System.nanoTime() / 1_000_000;
+            long last = lastReport.get();
+            if (time - last >= PROGRESS_INTERVAL_MS && lastReport.compareAndSet(last, time)) {
+                listener.onProgress(now, total);
+            }
+            long windowStart = sampleStart.get();
+            if (time - windowStart >= SAMPLE_INTERVAL_MS && sampleStart.compareAndSet(windowStart, time)) {
+                // Only the thread that closed the window gets here, so the byte mark has one writer
+                throughput.record((now - sampleStartBytes) * 1000 / (time - windowStart));
+                sampleStartBytes = now;
+            }
+        }
+
+        /** Record the last, partial window once all connections have stopped */
+        void sampleRest() {
+            long elapsed = System.nanoTime() / 1_000_000 - sampleStart.get();
+            long bytes = downloaded.get() - sampleStartBytes;
+            if (elapsed > 0 && bytes > 0) {
+                throughput.record(bytes * 1000 / elapsed);
+            }
+        }
+    }
+
+    private static class ContentChangedException extends IOException {
+        ContentChangedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * App-wide queue of APK downloads. At most maxConcurrent transfers run at once; the rest wait in
+ * order. Unfinished downloads are journaled, so after process death they are restored and resumed
+ * (the engine's per-chunk state makes that cheap). The journal is read and written on the IO lane;
+ * nothing starts until it has been read. State changes go to any registered observer on the main
+ * thread; byte progress goes to ProgressAggregator.
+ *
+ * With deferOnMetered set, nothing runs while the default network is metered: running downloads go
+ * back to the queue and continue once an unmetered network is up. The bandwidth cap is handed to
+ * DownloadEngine and journaled along with the queue.
+ */
+public class DownloadQueue {
+    private static final String TAG = "DownloadQueue";
+    private static final String JOURNAL_FILE_NAME = "download_queue.json";
+    private static final int DEFAULT_MAX_CONCURRENT = 2;
+    // Throughput histograms of the most recent runs; the oldest are dropped
+    private static final int MAX_THROUGHPUT_HISTORY = 16;
+
+    private static DownloadQueue instance;
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * Snapshot of one download as handed to observers; a new one is published on every change
+     */
+    public static class Item {
+        public final String id;
+        public final String url;
+        public final String title;
+        public final File target;
+        public final String sha256; // expected SHA-256 from the feed, or null
+        public final State state;
+        public final long downloaded;
+        public final long total;
+        public final String error;
+
+        Item(String id, String url, String title, File target, String sha256, State state, long downloaded, long total, String error) {
+            this.id = id;
+            this.url = url;
+            this.title = title;
+            this.target = target;
+            this.sha256 = sha256;
+            this.state = state;
+            this.downloaded = downloaded;
+            this.total = total;
+            this.error = error;
+        }
+
+        Item with(State state, long downloaded, long total, String error) {
+            return new Item(id, url, title, target, sha256, state, downloaded, total, error);
+        }
+
+        public boolean isActive() {
+            return state == State.QUEUED || state == State.RUNNING || state == State.PAUSED;
+        }
+
+        /** Completed and cancelled downloads leave the queue; failed ones stay so they can be retried */
+        boolean isFinal() {
+            return state == State.COMPLETED || state == State.CANCELLED;
+        }
+    }
+
+    public interface Observer {
+        /** A download changed state; byte progress is reported through ProgressAggregator instead */
+        void onDownloadChanged(Item item);
+    }
+
+    private final Context context;
+    private final File journalFile;
+    // Reads and writes the journal in order, off the threads that change the queue
+    private final Executor journalExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+    private final Map<String, Item> items = new LinkedHashMap<>();
+    private final Map<String, Transfer> running = new LinkedHashMap<>();
+    private final Map<String, ThroughputHistogram> throughput = new LinkedHashMap<String, ThroughputHistogram>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ThroughputHistogram> eldest) {
+            return size() > MAX_THROUGHPUT_HISTORY;
+        }
+    };
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private boolean deferOnMetered;
+    private long bandwidthLimit;
+    private boolean unmetered = true;
+    // Set by the first network callback, which is newer than what restore() asked for
+    private boolean networkReported;
+    // False until the journal has been read; nothing starts before then
+    private boolean restored;
+    // Set when a setting changes before the journal is read, so the journal does not undo it
+    private boolean settingsChanged;
+    // A journal write is queued and has not taken its snapshot yet; later changes ride along with it
+    private boolean journalWritePending;
+
+    /**
+     * The first call reads the journal in the background and then resumes unfinished downloads
+     */
+    public static synchronized DownloadQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new DownloadQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DownloadQueue(Context context) {
+        this.context = context;
+        journalFile = new File(context.getFilesDir(), JOURNAL_FILE_NAME);
+        journalExecutor = TaskScheduler.get().serial(TaskScheduler.Lane.IO, TaskScheduler.Priority.NORMAL);
+        journalExecutor.execute(this::restore);
+    }
+
+    /**
+     * Queue url for download to target, verified against sha256 unless that is null; id identifies
+     * the download (re-queueing an active id is a no-op)
+     */
+    public synchronized Item enqueue(String id, String url, String title, File target, String sha256) {
+        Item existing = items.get(id);
+        if (existing != null && existing.isActive()) {
+            return existing;
+        }
+        Item item = new Item(id, url, title, target, sha256, State.QUEUED, 0, -1, null);
+        items.put(id, item);
+        publish(item);
+        pump();
+        return item;
+    }
+
+    public synchronized void pause(String id) {
+        Item item = items.get(id);
+        if (item == null || !(item.state == State.QUEUED || item.state == State.RUNNING)) {
+            return;
+        }
+        // Set the state first so the interrupted worker reports PAUSED rather than FAILED
+        Item live = withLiveProgress(item);
+        publish(live.with(State.PAUSED, live.downloaded, live.total, null));
+        stop(id);
+        pump();
+    }
+
+    public synchronized void resume(String id) {
+        Item item = items.get(id);
+        if (item == null || !(item.state == State.PAUSED || item.state == State.FAILED)) {
+            return;
+        }
+        publish(item.with(State.QUEUED, item.downloaded, item.total, null));
+        pump();
+    }
+
+    /**
+     * Stop a download and throw away what it fetched so far
+     */
+    public synchronized void cancel(String id) {
+        Item item = items.get(id);
+        if (item == null) {
+            return;
+        }
+        publish(item.with(State.CANCELLED, 0, item.total, null));
+        Transfer transfer = running.get(id);
+        if (transfer != null) {
+            transfer.cancelled = true;
+        }
+        stop(id);
+        // Delete now, so a download queued again for the same file starts from nothing
+        DownloadEngine.get().discardPartial(item.target);
+        pump();
+    }
+
+    public synchronized void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        settingsChanged = true;
+        sizeDownloadLane();
+        saveJournal();
+        pump();
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Hold downloads while the network is metered, and run them again once it is not
+     */
+    public synchronized void setDeferOnMetered(boolean deferOnMetered) {
+        this.deferOnMetered = deferOnMetered;
+        settingsChanged = true;
+        saveJournal();
+        if (isDeferring()) {
+            deferRunning();
+        }
+        pump();
+    }
+
+    public synchronized boolean getDeferOnMetered() {
+        return deferOnMetered;
+    }
+
+    /**
+     * True while queued downloads are held back because the network is metered
+     */
+    public synchronized boolean isDeferring() {
+        return deferOnMetered && !unmetered;
+    }
+
+    /**
+     * Cap the combined rate of all downloads at bytesPerSecond; 0 removes the cap
+     */
+    public synchronized void setBandwidthLimit(long bytesPerSecond) {
+        bandwidthLimit = Math.max(0, bytesPerSecond);
+        settingsChanged = true;
+        DownloadEngine.get().setBandwidthLimit(bandwidthLimit);
+        saveJournal();
+    }
+
+    public synchronized long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    /**
+     * Throughput samples of the current or most recent run of id, or null if it has none
+     */
+    public synchronized ThroughputHistogram getThroughput(String id) {
+        return throughput.get(id);
+    }
+
+    public synchronized List<Item> getItems() {
+        List<Item> result = new ArrayList<>(items.size());
+        for (Item item : items.values()) {
+            result.add(withLiveProgress(item));
+        }
+        return result;
+    }
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Observe until owner is destroyed; must be called on the main thread
+     */
+    public void addObserver(LifecycleOwner owner, Observer observer) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        addObserver(observer);
+        owner.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                removeObserver(observer);
+            }
+        });
+    }
+
+    /**
+     * Give every transfer that may run room for all of its connections on the DOWNLOAD lane
+     */
+    private void sizeDownloadLane() {
+        TaskScheduler.get().setLaneThreads(TaskScheduler.Lane.DOWNLOAD, maxConcurrent * DownloadEngine.MAX_CONNECTIONS);
+    }
+
+    /**
+     * Start queued downloads while there is room
+     */
+    private synchronized void pump() {
+        if (!restored || isDeferring()) {
+            return;
+        }
+        for (Item item : items.values()) {
+            if (running.size() >= maxConcurrent) {
+                break;
+            }
+            if (item.state == State.QUEUED && !running.containsKey(item.id)) {
+                start(item);
+            }
+        }
+    }
+
+    private void start(Item queued) {
+        publish(queued.with(State.RUNNING, queued.downloaded, queued.total, null));
+        Transfer transfer = new Transfer(queued);
+        transfer.future = TaskScheduler.get().submit(TaskScheduler.Lane.DOWNLOAD, TaskScheduler.Priority.NORMAL, transfer);
+        running.put(queued.id, transfer);
+    }
+
+    /**
+     * One run of one download; a paused and resumed download gets a new Transfer
+     */
+    private class Transfer implements Runnable, DownloadEngine.Listener {
+        final Item item;
+        // Byte counts go straight to the aggregator; observers only hear about state changes.
+        // Begun when the run starts, so a transfer waiting for a thread shows no progress.
+        volatile ProgressAggregator.Task progress;
+        Future<?> future;
+        volatile boolean started;
+        volatile boolean cancelled;
+
+        Transfer(Item item) {
+            this.item = item;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            ProgressAggregator.Task task = ProgressAggregator.get().begin(item.title, item.total);
+            task.set(item.downloaded);
+            progress = task;
+            Exception failure = null;
+            try {
+                ApkCatalog catalog = ApkCatalog.getInstance(context);
+                if (item.sha256 != null && catalog.materialize(item.sha256, item.target)) {
+                    Log.d(TAG, item.title + " is already on disk, skipping the download");
+                } else {
+                    catalog.add(item.target, DownloadEngine.get().download(item.url, item.target, item.sha256, this));
+                }
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("Download stopped");
+            } catch (Exception e) {
+                failure = e;
+            }
+            if (cancelled) {
+                // The interrupted engine saves resume state as it stops; drop that too before the slot is
+                // released, or a new run of the same download would resume from it
+                DownloadEngine.get().discardPartial(item.target);
+            }
+            progress.finish();
+            finished(this, failure);
+        }
+
+        @Override
+        public void onStart(long total, ThroughputHistogram histogram) {
+            progress.setTotal(total);
+            synchronized (DownloadQueue.this) {
+                throughput.remove(item.id);
+                throughput.put(item.id, histogram);
+            }
+        }
+
+        @Override
+        public void onProgress(long downloaded, long total) {
+            progress.set(downloaded);
+        }
+    }
+
+    /**
+     * item with the byte counts of its running transfer, if it has one
+     */
+    private Item withLiveProgress(Item item) {
+        Transfer transfer = running.get(item.id);
+        ProgressAggregator.Task progress = transfer != null ? transfer.progress : null;
+        if (progress == null) {
+            return item;
+        }
+        return item.with(item.state, progress.getDone(), progress.getTotal(), item.error);
+    }
+
+    private synchronized void finished(Transfer transfer, Exception failure) {
+        String id = transfer.item.id;
+        Item item = items.get(id);
+        if (running.get(id) != transfer) {
+            return;
+        }
+        running.remove(id);
+        if (item != null && item.state == State.RUNNING) {
+            if (failure == null) {
+                long size = item.target.length();
+                publish(item.with(State.COMPLETED, size, size, null));
+            } else {
+                Log.e(TAG, "Download of " + item.title + " failed", failure);
+                publish(item.with(State.FAILED, transfer.progress.getDone(), transfer.progress.getTotal(),
+                        String.valueOf(failure.getMessage())));
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Interrupt the current run of id. A run that never started is dropped at once; one that did
+     * keeps its slot until it has wound down, so a quick resume cannot race it on the same files.
+     */
+    private void stop(String id) {
+        Transfer transfer = running.get(id);
+        if (transfer != null && transfer.future.cancel(true) && !transfer.started) {
+            running.remove(id);
+        }
+    }
+
+    /**
+     * Put running downloads back in the queue; they resume from their partial files later
+     */
+    private void deferRunning() {
+        for (String id : new ArrayList<>(running.keySet())) {
+            Item item = items.get(id);
+            if (item != null && item.state == State.RUNNING) {
+                // Set the state first so the interrupted worker does not report FAILED
+                Item live = withLiveProgress(item);
+                publish(live.with(State.QUEUED, live.downloaded, live.total, null));
+                stop(id);
+            }
+        }
+    }
+
+    /**
+     * Follow the default network from now on; returns whether it is unmetered now
+     */
+    private boolean watchNetwork() {
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) {
+            return true;
+        }
+        boolean nowUnmetered = !connectivity.isActiveNetworkMetered();
+        connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                networkChanged(capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                // No default network; downloads wait for the next one to say whether it is metered
+                networkChanged(false);
+            }
+        });
+        return nowUnmetered;
+    }
+
+    /**
+     * The default network is now unmetered or not; called by the network callback, and by tests
+     */
+    synchronized void networkChanged(boolean nowUnmetered) {
+        networkReported = true;
+        if (unmetered == nowUnmetered) {
+            return;
+        }
+        unmetered = nowUnmetered;
+        Log.d(TAG, "Network is now " + (nowUnmetered ? "unmetered" : "metered or gone"));
+        if (isDeferring()) {
+            deferRunning();
+        }
+        pump();
+    }
+
+    /**
+     * Record a state change, journal it and tell observers
+     */
+    private void publish(Item item) {
+        items.put(item.id, item);
+        if (item.isFinal()) {
+            // Finished downloads are only reported, not kept
+            items.remove(item.id);
+        }
+        saveJournal();
+        notifyObservers(item);
+    }
+
+    private void notifyObservers(Item item) {
+        mainHandler.post(() -> {
+            for (Observer observer : observers) {
+                observer.onDownloadChanged(item);
+            }
+        });
+    }
+
+    /**
+     * Read the journal, merge it with anything queued meanwhile and start the queue; runs once, on
+     * the journal executor
+     */
+    private void restore() {
+        Map<String, Item> journaled = new LinkedHashMap<>();
+        JSONObject journal = null;
+        if (journalFile.isFile()) {
+            try {
+                journal = new JSONObject(new String(Files.readAllBytes(journalFile.toPath()), StandardCharsets.UTF_8));
+                JSONArray entries = journal.optJSONArray("downloads");
+                for (int i = 0; entries != null && i < entries.length(); i++) {
+                    JSONObject entry = entries.getJSONObject(i);
+                    State state = State.valueOf(entry.getString("state"));
+                    if (state == State.RUNNING) {
+                        // The process died mid-transfer; queue it again and let the engine resume
+                        state = State.QUEUED;
+                    }
+                    Item item = new Item(entry.getString("id"), entry.getString("url"), entry.optString("title"),
+                            new File(entry.getString("target")), entry.optString("sha256", null), state, entry.optLong("downloaded", 0), entry.optLong("total", -1), null);
+                    journaled.put(item.id, item);
+                }
+                Log.d(TAG, "Restored " + journaled.size() + " unfinished downloads");
+            } catch (IOException | JSONException | IllegalArgumentException e) {
+                Log.w(TAG, "Discarding unreadable download journal", e);
+                journal = null;
+                journaled.clear();
+            }
+        }
+        boolean nowUnmetered = watchNetwork();
+
+        synchronized (this) {
+            if (journal != null && !settingsChanged) {
+                maxConcurrent = Math.max(1, journal.optInt("max_concurrent", DEFAULT_MAX_CONCURRENT));
+                deferOnMetered = journal.optBoolean("defer_on_metered", false);
+                bandwidthLimit = Math.max(0, journal.optLong("bandwidth_limit", 0));
+            }
+            // Journaled downloads keep their place ahead of ones queued while the journal was read
+            for (Item item : items.values()) {
+                journaled.put(item.id, item);
+            }
+            items.clear();
+            items.putAll(journaled);
+            if (!networkReported) {
+                unmetered = nowUnmetered;
+            }
+            restored = true;
+            sizeDownloadLane();
+            DownloadEngine.get().setBandwidthLimit(bandwidthLimit);
+            pump();
+        }
+    }
+
+    /**
+     * Queue a journal write. Changes made before the queued write takes its snapshot are written
+     * with it, so a burst of state changes costs one write.
+     */
+    private synchronized void saveJournal() {
+        if (journalWritePending) {
+            return;
+        }
+        journalWritePending = true;
+        journalExecutor.execute(this::writeJournal);
+    }
+
+    private void writeJournal() {
+        String snapshot;
+        try {
+            snapshot = journalSnapshot();
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to save download journal", e);
+            return;
+        }
+        try {
+            File temp = new File(journalFile.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(snapshot.getBytes(StandardCharsets.UTF_8));
+            }
+            if (!temp.renameTo(journalFile)) {
+                throw new IOException("Failed to publish " + JOURNAL_FILE_NAME);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save download journal", e);
+        }
+    }
+
+    /**
+     * The journal as it should be now; clears the pending write, as later changes need a new one
+     */
+    private synchronized String journalSnapshot() throws JSONException {
+        journalWritePending = false;
+        JSONArray entries = new JSONArray();
+        for (Item item : items.values()) {
+            JSONObject entry = new JSONObject();
+            entry.put("id", item.id);
+            entry.put("url", item.url);
+            entry.put("title", item.title);
+            entry.put("target", item.target.getAbsolutePath());
+            entry.put("sha256", item.sha256);
+            entry.put("state", item.state.name());
+            entry.put("downloaded", item.downloaded);
+            entry.put("total", item.total);
+            entries.put(entry);
+        }
+        JSONObject journal = new JSONObject();
+        journal.put("max_concurrent", maxConcurrent);
+        journal.put("defer_on_metered", deferOnMetered);
+        journal.put("bandwidth_limit", bandwidthLimit);
+        journal.put("downloads", entries);
+        return journal.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.origin.launcher;
+
+import android.util.Log;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * Persistent cache of files extracted from an APK, keyed by the source APK identity
+ * (path, size, mtime) and the ZIP entry CRC32, so unchanged files are reused across launches.
+ */
+public class ExtractionCache {
+    private static final String TAG = "ExtractionCache";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File dir;
+    private final File manifestFile;
+    private final JSONObject manifest;
+
+    public ExtractionCache(File dir, String manifestName) {
+        this.dir = dir;
+        this.manifestFile = new File(dir, manifestName);
+        this.manifest = readManifest(manifestFile);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Build a cache key for a ZIP entry of the given APK
+     */
+    public static String keyFor(File apk, ZipEntry entry) {
+        return keyFor(apk, entry.getName()) + "|" + entry.getSize() + "|" + Long.toHexString(entry.getCrc());
+    }
+
+    /**
+     * Same key as keyFor(apk, ZipEntry), for an entry indexed by ZipCentralDirectory
+     */
+    public static String keyFor(File apk, ZipCentralDirectory.Entry entry) {
+        return keyFor(apk, entry.name) + "|" + entry.size + "|" + Long.toHexString(entry.crc);
+    }
+
+    /**
+     * Build a cache key for a named file shipped inside the given APK (e.g. an asset)
+     */
+    public static String keyFor(File apk, String name) {
+        return apk.getAbsolutePath() + "|" + apk.length() + "|" + apk.lastModified() + "|" + name;
+    }
+
+    /**
+     * Returns true if the cached copy of name was produced from the same source as key
+     */
+    public synchronized boolean isFresh(String name, String key) {
+        File file = new File(dir, name);
+        return file.isFile() && key.equals(manifest.optString(name, null));
+    }
+
+    /**
+     * Drop any previous copy of name and return the temp file the new copy should be written to
+     */
+    public synchronized File begin(String name) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir.getAbsolutePath());
+        }
+        if (manifest.remove(name) != null) {
+            // Forget the old key on disk first so a launch killed mid-write never trusts the new file
+            save();
+        }
+        File temp = new File(dir, name + TEMP_SUFFIX);
+        if (temp.exists() && !temp.delete()) {
+            throw new IOException("Failed to delete stale " + temp.getName());
+        }
+        return temp;
+    }
+
+    /**
+     * Publish a temp file written after begin() under its final name and record its key
+     */
+    public File commit(String name, String key, File temp) throws IOException {
+        File target = new File(dir, name);
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Failed to replace " + name);
+        }
+        if (!temp.renameTo(target)) {
+            throw new IOException("Failed to move " + temp.getName() + " to " + name);
+        }
+        synchronized (this) {
+            try {
+                manifest.put(name, key);
+            } catch (JSONException e) {
+                throw new IOException(e);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Delete every cached file not listed in keep, including leftovers of interrupted writes
+     */
+    public synchronized List<String> retainOnly(Collection<String> keep) {
+        List<String> evicted = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (!file.isFile() || name.equals(manifestFile.getName()) || keep.contains(name)) {
+                    continue;
+                }
+                if (file.delete()) {
+                    evicted.add(name);
+                }
+            }
+        }
+        List<String> stale = new ArrayList<>();
+        Iterator<String> keys = manifest.keys();
+        while (keys.hasNext()) {
+            String name = keys.next();
+            if (!keep.contains(name)) {
+                stale.add(name);
+            }
+        }
+        for (String name : stale) {
+            manifest.remove(name);
+        }
+        return evicted;
+    }
+
+    /**
+     * Write the manifest to disk; entries only become trusted on the next launch after this
+     */
+    public synchronized void save() {
+        File temp = new File(dir, manifestFile.getName() + TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write " + manifestFile.getName(), e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(manifestFile)) {
+            Log.w(TAG, "Failed to publish " + manifestFile.getName());
+            temp.delete();
+        }
+    }
+
+    private static JSONObject readManifest(File file) {
+        if (file.isFile()) {
+            try {
+                return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Discarding unreadable " + file.getName(), e);
+            }
+        }
+        return new JSONObject();
+    }
+}
@@ -10,6 +10,7 @@ import android.view.View;
 import android.widget.TextView;
 import android.widget.Button;
 import android.widget.EditText;
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
@@ -19,27 +20,26 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Build;
+import android.system.Os;
+import android.system.OsConstants;
 import androidx.fragment.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import dalvik.system.BaseDexClassLoader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.FileOutputStream;
-import java.io.FileInputStream;
+import java.io.InterruptedIOException;
 import java.io.FileWriter;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -56,10 +56,17 @@ import android.widget.Toast;
 public class HomeFragment extends BaseThemedFragment {
 
     private static final String TAG = "HomeFragment";
+    private static final String DEX_CACHE_MANIFEST = "dex_cache.json";
+    private static final String LIB_CACHE_MANIFEST = "lib_cache.json";
+    private static final String LAUNCHER_DEX_NAME = "launcher_mbl2.dex";
+    // Held while dex/lib caches are being filled, so a pre-warm and a real launch never write them together
+    private static final Object PREPARE_LOCK = new Object();
     private TextView listener;
     private Button mbl2_button;
     private Button versions_button;
     private com.google.android.material.button.MaterialButton shareLogsButton;
+    private volatile Future<?> prewarmTask;
+    private volatile String prewarmSource;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -82,7 +89,7 @@ public class HomeFragment extends BaseThemedFragment {
                 
                 // Get package name from settings
                 String packageName = getPackageNameFromSettings();
-                startLauncher(handler, listener, "launcher_mbl2.dex", packageName);
+                startLauncher(handler, listener, LAUNCHER_DEX_NAME, packageName);
             }
         });
         
@@ -160,19 +167,19 @@ public class HomeFragment extends BaseThemedFragment {
                     vb.setBackgroundTintList(ColorStateList.valueOf(Color.TRANSPARENT));
                     vb.setStrokeWidth(0);
                     try {
-                        vb.setIconTint(ColorStateList.valueOf(themeManager.getColor("onSurfaceVariant")));
+                        vb.setIconTint(ColorStateList.valueOf(themeManager.getColor(ColorRole.ON_SURFACE_VARIANT)));
                     } catch (Exception ignored) {}
                 }
                 
                 // Apply theme to log text area
                 if (listener != null) {
-                    listener.setTextColor(themeManager.getColor("onSurfaceVariant"));
+                    listener.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE_VARIANT));
                     // Set background color for the log text area
                     View logCard = view.findViewById(R.id.logCard);
                     if (logCard instanceof MaterialCardView) {
                         MaterialCardView card = (MaterialCardView) logCard;
-                        card.setCardBackgroundColor(themeManager.getColor("surfaceVariant"));
-                        card.setStrokeColor(themeManager.getColor("outline"));
+                        card.setCardBackgroundColor(themeManager.getColor(ColorRole.SURFACE_VARIANT));
+                        card.setStrokeColor(themeManager.getColor(ColorRole.OUTLINE));
                     }
                 }
             }
@@ -231,17 +238,26 @@ public class HomeFragment extends BaseThemedFragment {
             writer.close();
             
             // Create the sharing intent
-            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            Intent shareIntent = new Intent(Intent.ACTION_SEND_MULTIPLE);
             shareIntent.setType("text/plain");
             
-            // Get the file URI using FileProvider
-            android.net.Uri fileUri = FileProvider.getUriForFile(
+            // Get the file URIs using FileProvider, attaching the launch timing history when we have one
+            ArrayList<android.net.Uri> fileUris = new ArrayList<>();
+            fileUris.add(FileProvider.getUriForFile(
                 requireContext(),
                 "com.origin.launcher.fileprovider",
                 logFile
-            );
+            ));
+            File traceFile = LaunchTrace.getTraceFile(requireContext().getFilesDir());
+            if (traceFile.isFile()) {
+                fileUris.add(FileProvider.getUriForFile(
+                    requireContext(),
+                    "com.origin.launcher.fileprovider",
+                    traceFile
+                ));
+            }
             
-            shareIntent.putExtra(Intent.EXTRA_STREAM, fileUri);
+            shareIntent.putParcelableArrayListExtra(Intent.EXTRA_STREAM, fileUris);
             shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Xelo Client Logs");
             shareIntent.putExtra(Intent.EXTRA_TEXT, "Xelo Client Latest Logs");
             shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
@@ -256,58 +272,18 @@ public class HomeFragment extends BaseThemedFragment {
     }
 
     private void startLauncher(Handler handler, TextView listener, String launcherDexName, String mcPackageName) {    
-        Executors.newSingleThreadExecutor().execute(() -> {
+        TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.HIGH, () -> {
             try {
                 // Check if fragment is still attached
                 if (!isAdded()) {
                     return;
                 }
-                
-                File cacheDexDir = new File(requireActivity().getCodeCacheDir(), "dex");
-                handleCacheCleaning(cacheDexDir, handler, listener);
-                
-                ApplicationInfo mcInfo = null;
-                String selectedApkPath = getSelectedApkPath();
-                
-                if (selectedApkPath != null && new File(selectedApkPath).exists()) {
-                    // Use selected APK instead of installed one
-                    try {
-                        mcInfo = requireActivity().getPackageManager().getApplicationInfo(mcPackageName, PackageManager.GET_META_DATA);
-                        // Override the sourceDir with our selected APK
-                        mcInfo.sourceDir = selectedApkPath;
-                        handler.post(() -> listener.append("\n-> Using selected APK: " + selectedApkPath));
-                    } catch(Exception e) {
-                        handler.post(() -> alertAndExit("Selected APK not found", "The selected APK file is missing or corrupted"));
-                        return;
-                    }
-                } else {
-                    // Use installed APK as fallback
-                    try {
-                        mcInfo = requireActivity().getPackageManager().getApplicationInfo(mcPackageName, PackageManager.GET_META_DATA);
-                        final ApplicationInfo finalMcInfo = mcInfo;
-                        handler.post(() -> listener.append("\n-> Found Minecraft at: " + finalMcInfo.sourceDir));
-                    } catch(Exception e) {
-                        handler.post(() -> alertAndExit("Minecraft cant be found", "Perhaps you dont have it installed?"));
-                        return;
-                    }
-                }
-                
-                Object pathList = getPathList(requireActivity().getClassLoader());
-                processDexFiles(mcInfo, cacheDexDir, pathList, handler, listener, launcherDexName);
-                if (!processNativeLibraries(mcInfo, pathList, handler, listener)) {
-                    return;
-                };
-                
-                handler.post(() -> listener.append("\n-> Launching Minecraft..."));
-                
-                // Final check before launching
-                if (isAdded()) {
-                    launchMinecraft(mcInfo);
-                } else {
-                    handler.post(() -> {
-                        listener.setText("Fragment no longer attached, cannot launch Minecraft");
-                        mbl2_button.setEnabled(true);
-                    });
+                File filesDir = requireActivity().getFilesDir();
+                LaunchTrace trace = new LaunchTrace();
+                try {
+                    runLaunchPipeline(handler, listener, launcherDexName, mcPackageName, trace);
+                } finally {
+                    trace.save(filesDir);
                 }
             } catch (Exception e) {
                 String logMessage = e.getCause() != null ? e.getCause().toString() : e.toString();                
@@ -319,15 +295,94 @@ public class HomeFragment extends BaseThemedFragment {
         });    
     }
 
-    @SuppressLint("SetTextI18n")
-    private void handleCacheCleaning(@NotNull File cacheDexDir, Handler handler, TextView listener) {
-        if (cacheDexDir.exists() && cacheDexDir.isDirectory()) {
-            handler.post(() -> listener.setText("-> " + cacheDexDir.getAbsolutePath() + " not empty, do cleaning"));
-            for (File file : Objects.requireNonNull(cacheDexDir.listFiles())) {
-                if (file.delete()) {
-                    handler.post(() -> listener.append("\n-> " + file.getName() + " deleted"));
+    private void runLaunchPipeline(Handler handler, TextView listener, String launcherDexName, String mcPackageName, LaunchTrace trace) throws Exception {
+        try {
+            long phaseStart = System.nanoTime();
+            File cacheDexDir = new File(requireActivity().getCodeCacheDir(), "dex");
+            ExtractionCache dexCache = new ExtractionCache(cacheDexDir, DEX_CACHE_MANIFEST);
+            handleCacheCleaning(dexCache, handler, listener);
+            trace.record(LaunchTrace.CACHE_CLEANING, phaseStart);
+            
+            ApplicationInfo mcInfo = null;
+            String selectedApkPath = getSelectedApkPath();
+            
+            if (selectedApkPath != null && new File(selectedApkPath).exists()) {
+                // Use selected APK instead of installed one
+                try {
+                    mcInfo = requireActivity().getPackageManager().getApplicationInfo(mcPackageName, PackageManager.GET_META_DATA);
+                    // Override the sourceDir with our selected APK
+                    mcInfo.sourceDir = selectedApkPath;
+                    handler.post(() -> listener.append("\n-> Using selected APK: " + selectedApkPath));
+                } catch(Exception e) {
+                    handler.post(() -> alertAndExit("Selected APK not found", "The selected APK file is missing or corrupted"));
+                    trace.finish("selected_apk_missing");
+                    return;
+                }
+            } else {
+                // Use installed APK as fallback
+                try {
+                    mcInfo = requireActivity().getPackageManager().getApplicationInfo(mcPackageName, PackageManager.GET_META_DATA);
+                    final ApplicationInfo finalMcInfo = mcInfo;
+                    handler.post(() -> listener.append("\n-> Found Minecraft at: " + finalMcInfo.sourceDir));
+                } catch(Exception e) {
+                    handler.post(() -> alertAndExit("Minecraft cant be found", "Perhaps you dont have it installed?"));
+                    trace.finish("minecraft_not_found");
+                    return;
+                }
+            }
+            
+            trace.setSource(mcInfo.sourceDir);
+            
+            // A pre-warm runs at LOW priority and holds PREPARE_LOCK for its whole extraction, so waiting
+            // for it would run this launch at its pace; stop it instead. Files it already committed stay
+            // in the caches and are reused below.
+            Future<?> pending = prewarmTask;
+            if (pending != null && !pending.isDone()) {
+                pending.cancel(true);
+                if (mcInfo.sourceDir.equals(prewarmSource)) {
+                    handler.post(() -> listener.append("\n-> Taking over background preparation"));
+                }
+            }
+            
+            Object pathList = getPathList(requireActivity().getClassLoader());
+            phaseStart = System.nanoTime();
+            synchronized (PREPARE_LOCK) {
+                trace.record(LaunchTrace.PREWARM_WAIT, phaseStart);
+                // Re-read the manifest: a pre-warm that held the lock may have filled the cache meanwhile
+                dexCache = new ExtractionCache(cacheDexDir, DEX_CACHE_MANIFEST);
+                processDexFiles(mcInfo, dexCache, pathList, handler, listener, launcherDexName, trace);
+                if (!processNativeLibraries(mcInfo, pathList, handler, listener, trace)) {
+                    trace.finish("wrong_architecture");
+                    return;
                 }
             }
+            
+            handler.post(() -> listener.append("\n-> Launching Minecraft..."));
+            
+            // Final check before launching
+            if (isAdded()) {
+                phaseStart = System.nanoTime();
+                launchMinecraft(mcInfo);
+                trace.record(LaunchTrace.LAUNCH_MINECRAFT, phaseStart);
+                trace.finish("launched");
+            } else {
+                trace.finish("detached");
+                handler.post(() -> {
+                    listener.setText("Fragment no longer attached, cannot launch Minecraft");
+                    mbl2_button.setEnabled(true);
+                });
+            }
+        } catch (Exception e) {
+            trace.finish("failed: " + e);
+            throw e;
+        }
+    }
+
+    @SuppressLint("SetTextI18n")
+    private void handleCacheCleaning(@NotNull ExtractionCache dexCache, Handler handler, TextView listener) {
+        File cacheDexDir = dexCache.getDir();
+        if (cacheDexDir.exists() && cacheDexDir.isDirectory()) {
+            handler.post(() -> listener.setText("-> " + cacheDexDir.getAbsolutePath() + " not empty, reusing unchanged dex files"));
         } else {
             handler.post(() -> listener.setText("-> " + cacheDexDir.getAbsolutePath() + " is empty, skip cleaning"));
         }
@@ -339,76 +394,190 @@ public class HomeFragment extends BaseThemedFragment {
         return pathListField.get(classLoader);
     }
 
-    private void processDexFiles(ApplicationInfo mcInfo, File cacheDexDir, @NotNull Object pathList, @NotNull Handler handler, TextView listener, String launcherDexName) throws Exception {
+    private void processDexFiles(ApplicationInfo mcInfo, ExtractionCache dexCache, @NotNull Object pathList, @NotNull Handler handler, TextView listener, String launcherDexName, LaunchTrace trace) throws Exception {
         Method addDexPath = pathList.getClass().getDeclaredMethod("addDexPath", String.class, File.class);
-        File launcherDex = new File(cacheDexDir, launcherDexName);
+        ArrayList<String> cachedDexes = new ArrayList<>();
 
-        copyFile(requireActivity().getAssets().open(launcherDexName), launcherDex);
-        handler.post(() -> listener.append("\n-> " + launcherDexName + " copied to " + launcherDex.getAbsolutePath()));
+        String launcherKey = ExtractionCache.keyFor(new File(requireActivity().getApplicationInfo().sourceDir), launcherDexName);
+        final File launcherDex;
+        long phaseStart = System.nanoTime();
+        long copiedBytes = 0;
+        if (dexCache.isFresh(launcherDexName, launcherKey)) {
+            launcherDex = new File(dexCache.getDir(), launcherDexName);
+            handler.post(() -> listener.append("\n-> " + launcherDexName + " unchanged, reusing " + launcherDex.getAbsolutePath()));
+        } else {
+            File temp = dexCache.begin(launcherDexName);
+            copiedBytes = CopyEngine.copy(requireActivity().getAssets().open(launcherDexName), temp, false);
+            launcherDex = dexCache.commit(launcherDexName, launcherKey, temp);
+            handler.post(() -> listener.append("\n-> " + launcherDexName + " copied to " + launcherDex.getAbsolutePath()));
+        }
+        cachedDexes.add(launcherDexName);
+        trace.record(LaunchTrace.LAUNCHER_DEX_COPY, phaseStart, copiedBytes);
 
         if (launcherDex.setReadOnly()) {
+            phaseStart = System.nanoTime();
             addDexPath.invoke(pathList, launcherDex.getAbsolutePath(), null);
+            trace.record(LaunchTrace.ADD_DEX_PATH, phaseStart);
             handler.post(() -> listener.append("\n-> " + launcherDexName + " added to dex path list"));
         } else {
             throw new Exception("Failed to set launcher dex as read-only");
         }
         
         ArrayList<String> copiedDexes = new ArrayList<String>();
-        try (ZipFile zipFile = new ZipFile(mcInfo.sourceDir)) {
-            for (int i = 10; i >= 0; i--) {
-                String dexName = "classes" + (i == 0 ? "" : i) + ".dex";
-                ZipEntry dexFile = zipFile.getEntry(dexName);
-                if (dexFile != null) {
-                    File mcDex = new File(cacheDexDir, dexName);
-                    copyFile(zipFile.getInputStream(dexFile), mcDex);
-                    if (mcDex.setReadOnly()) {
-                        addDexPath.invoke(pathList, mcDex.getAbsolutePath(), null);
+        ArrayList<String> reusedDexes = new ArrayList<String>();
+        File mcApk = new File(mcInfo.sourceDir);
+        try (ZipFile zipFile = new ZipFile(mcApk)) {
+            // Collect the dex entries in the order they must be added, extracting changed ones in parallel
+            ArrayList<String> dexNames = new ArrayList<>();
+            List<ZipEntry> staleEntries = collectDexEntries(zipFile, mcApk, dexCache, dexNames, reusedDexes);
+            phaseStart = System.nanoTime();
+            long extractedBytes = extractDexFiles(mcApk, staleEntries, dexCache, TaskScheduler.Priority.HIGH, true);
+            trace.record(LaunchTrace.MC_DEX_COPY, phaseStart, extractedBytes);
+
+            for (String dexName : dexNames) {
+                File mcDex = new File(dexCache.getDir(), dexName);
+                cachedDexes.add(dexName);
+                if (mcDex.setReadOnly()) {
+                    phaseStart = System.nanoTime();
+                    addDexPath.invoke(pathList, mcDex.getAbsolutePath(), null);
+                    trace.record(LaunchTrace.ADD_DEX_PATH, phaseStart);
+                    if (!reusedDexes.contains(dexName)) {
                         copiedDexes.add(dexName);
-                    } else {
-                        handler.post(() -> listener.append("\n-> Warning: Failed to set " + dexName + " as read-only"));
                     }
+                } else {
+                    reusedDexes.remove(dexName);
+                    handler.post(() -> listener.append("\n-> Warning: Failed to set " + dexName + " as read-only"));
                 }
             }
+            for (String evicted : dexCache.retainOnly(cachedDexes)) {
+                handler.post(() -> listener.append("\n-> Stale " + evicted + " deleted"));
+            }
         } catch (Throwable th) {
-            handler.post(() -> listener.append("\n-> Warning: Error processing dex files: " + th.getMessage()));
-        }    
-        handler.post(() -> listener.append("\n-> Dex files " + copiedDexes.toString() + " copied and added to dex path list"));        
+            Throwable cause = th instanceof ExecutionException && th.getCause() != null ? th.getCause() : th;
+            handler.post(() -> listener.append("\n-> Warning: Error processing dex files: " + cause.getMessage()));
+        } finally {
+            dexCache.save();
+        }
+        handler.post(() -> listener.append("\n-> Dex files " + copiedDexes.toString() + " copied, " + reusedDexes.toString() + " reused and added to dex path list"));
     }
 
-    private boolean processNativeLibraries(ApplicationInfo mcInfo, @NotNull Object pathList, @NotNull Handler handler, TextView listener) throws Exception {
-        FileInputStream inStream = new FileInputStream(getApkWithLibs(mcInfo));
-        BufferedInputStream bufInStream = new BufferedInputStream(inStream);
-        ZipInputStream inZipStream = new ZipInputStream(bufInStream);
-        if (!checkLibCompatibility(inZipStream)) {
-            handler.post(() -> alertAndExit("Wrong minecraft architecture", "The minecraft you have installed does not support the same main architecture (" + Build.SUPPORTED_ABIS[0] + ") your device uses, Xelo client cant work with it"));
-            return false;
-        } 		    
-        Method addNativePath = pathList.getClass().getDeclaredMethod("addNativePath", Collection.class);
-        ArrayList<String> libDirList = new ArrayList<>();
-        File libdir = new File(mcInfo.nativeLibraryDir);
-        if (libdir.list() == null || libdir.list().length == 0 
-         || (mcInfo.flags & ApplicationInfo.FLAG_EXTRACT_NATIVE_LIBS) != ApplicationInfo.FLAG_EXTRACT_NATIVE_LIBS) {
-            loadUnextractedLibs(mcInfo);
-            libDirList.add(requireActivity().getCodeCacheDir().getAbsolutePath() + "/");
-        } else {
-            libDirList.add(mcInfo.nativeLibraryDir);
+    /**
+     * Fill dexNames with the dex entries in addDexPath order and return those the cache can't serve
+     */
+    private static List<ZipEntry> collectDexEntries(ZipFile zipFile, File mcApk, ExtractionCache dexCache, List<String> dexNames, List<String> reusedDexes) {
+        ArrayList<ZipEntry> staleEntries = new ArrayList<>();
+        for (int i = 10; i >= 0; i--) {
+            String dexName = "classes" + (i == 0 ? "" : i) + ".dex";
+            ZipEntry dexFile = zipFile.getEntry(dexName);
+            if (dexFile != null) {
+                dexNames.add(dexName);
+                if (dexCache.isFresh(dexName, ExtractionCache.keyFor(mcApk, dexFile))) {
+                    reusedDexes.add(dexName);
+                } else {
+                    staleEntries.add(dexFile);
+                }
+            }
+        }
+        return staleEntries;
+    }
+
+    /**
+     * Extract the given dex entries concurrently on the CPU lane, each task reading through its own ZipFile handle
+     */
+    private static long extractDexFiles(File apk, List<ZipEntry> entries, ExtractionCache dexCache, TaskScheduler.Priority priority, boolean showProgress) throws Exception {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        // Start the largest entries first so one big classes.dex does not finish last on its own
+        ArrayList<ZipEntry> ordered = new ArrayList<>(entries);
+        Collections.sort(ordered, (a, b) -> Long.compare(b.getSize(), a.getSize()));
+        ProgressAggregator.Task progress = showProgress
+                ? ProgressAggregator.get().begin("Extracting dex files", totalSize(ordered)) : null;
+        ArrayList<Callable<File>> tasks = new ArrayList<>();
+        for (ZipEntry entry : ordered) {
+            tasks.add(() -> {
+                try (ZipFile zip = new ZipFile(apk)) {
+                    File temp = dexCache.begin(entry.getName());
+                    CopyEngine.copy(zip.getInputStream(entry), temp, false, progress);
+                    return dexCache.commit(entry.getName(), ExtractionCache.keyFor(apk, entry), temp);
+                }
+            });
+        }
+        try {
+            long extractedBytes = 0;
+            for (File extracted : TaskScheduler.get().invokeAll(TaskScheduler.Lane.CPU, priority, tasks)) {
+                extractedBytes += extracted.length();
+            }
+            return extractedBytes;
+        } finally {
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+    }
+
+    /**
+     * Uncompressed size of entries, or -1 if the zip does not record one of them
+     */
+    private static long totalSize(List<ZipEntry> entries) {
+        long total = 0;
+        for (ZipEntry entry : entries) {
+            if (entry.getSize() < 0) {
+                return -1;
+            }
+            total += entry.getSize();
+        }
+        return total;
+    }
+
+    private boolean processNativeLibraries(ApplicationInfo mcInfo, @NotNull Object pathList, @NotNull Handler handler, TextView listener, LaunchTrace trace) throws Exception {
+        // The central directory is read once; the ABI check, the in-APK check and the extraction all work from it
+        File apkFile = new File(getApkWithLibs(mcInfo));
+        long phaseStart = System.nanoTime();
+        String abiLibDir = "lib/" + Build.SUPPORTED_ABIS[0] + "/";
+        try (ZipCentralDirectory libIndex = ZipCentralDirectory.open(apkFile, abiLibDir)) {
+            // The check is whether the index found libraries for our ABI, so it is timed with the read
+            boolean compatible = checkLibCompatibility(libIndex);
+            trace.record(LaunchTrace.ABI_CHECK, phaseStart);
+            if (!compatible) {
+                handler.post(() -> alertAndExit("Wrong minecraft architecture", "The minecraft you have installed does not support the same main architecture (" + Build.SUPPORTED_ABIS[0] + ") your device uses, Xelo client cant work with it"));
+                return false;
+            }
+            Method addNativePath = pathList.getClass().getDeclaredMethod("addNativePath", Collection.class);
+            ArrayList<String> libDirList = new ArrayList<>();
+            if (needsLibExtraction(mcInfo)) {
+                phaseStart = System.nanoTime();
+                if (canLoadFromApk(apkFile, libIndex, requireActivity().getClassLoader())) {
+                    // Stored, page-aligned libraries can be mapped by the linker straight from the APK
+                    ExtractionCache libCache = openLibCache();
+                    libCache.retainOnly(Collections.<String>emptyList());
+                    libCache.save();
+                    libDirList.add(apkFile.getAbsolutePath() + "!/" + abiLibDir.substring(0, abiLibDir.length() - 1));
+                    trace.record(LaunchTrace.NATIVE_LIB_EXTRACTION, phaseStart);
+                } else {
+                    File extractedLibDir = loadUnextractedLibs(apkFile, libIndex, abiLibDir, phaseStart, trace);
+                    libDirList.add(extractedLibDir.getAbsolutePath() + "/");
+                }
+            } else {
+                libDirList.add(mcInfo.nativeLibraryDir);
+            }
+            phaseStart = System.nanoTime();
+            addNativePath.invoke(pathList, libDirList);
+            trace.record(LaunchTrace.ADD_NATIVE_PATH, phaseStart);
+            handler.post(() -> listener.append("\n-> " + libDirList.get(0) + " added to native library directory path"));
         }
-        addNativePath.invoke(pathList, libDirList);
-        handler.post(() -> listener.append("\n-> " + mcInfo.nativeLibraryDir + " added to native library directory path"));
         return true;
     }
 
-    private static Boolean checkLibCompatibility(ZipInputStream zip) throws Exception{
-         ZipEntry ze = null;
-         String requiredLibDir = "lib/" + Build.SUPPORTED_ABIS[0] + "/";
-         while ((ze = zip.getNextEntry()) != null) {
-             if (ze.getName().startsWith(requiredLibDir)) {
-                 return true;
-             }
-         }
-         zip.close();
-         return false;
-     }
+    private static boolean needsLibExtraction(ApplicationInfo mcInfo) {
+        String[] installedLibs = new File(mcInfo.nativeLibraryDir).list();
+        return installedLibs == null || installedLibs.length == 0
+         || (mcInfo.flags & ApplicationInfo.FLAG_EXTRACT_NATIVE_LIBS) != ApplicationInfo.FLAG_EXTRACT_NATIVE_LIBS;
+    }
+
+    private static boolean checkLibCompatibility(ZipCentralDirectory libIndex) {
+        return !libIndex.entries().isEmpty();
+    }
 
      private void alertAndExit(String issue, String description) {
         AlertDialog alertDialog = new AlertDialog.Builder(requireActivity()).create();
@@ -424,18 +593,73 @@ public class HomeFragment extends BaseThemedFragment {
         alertDialog.show();         
      }
 
-    private void loadUnextractedLibs(ApplicationInfo appInfo) throws Exception {
-        FileInputStream inStream = new FileInputStream(getApkWithLibs(appInfo));
-        BufferedInputStream bufInStream = new BufferedInputStream(inStream);
-        ZipInputStream inZipStream = new ZipInputStream(bufInStream);
-        String zipPath = "lib/" + Build.SUPPORTED_ABIS[0] + "/";
-        String outPath = requireActivity().getCodeCacheDir().getAbsolutePath() + "/";
-        File dir = new File(outPath);
-        dir.mkdir();
-        extractDir(appInfo, inZipStream, zipPath, outPath);
+    private File loadUnextractedLibs(File apk, ZipCentralDirectory libIndex, String zipPath, long phaseStart, LaunchTrace trace) throws Exception {
+        deleteLegacyLibs(requireActivity().getCodeCacheDir());
+        ExtractionCache libCache = openLibCache();
+        try {
+            long extractedBytes = extractDir(apk, libIndex, zipPath, libCache, true);
+            trace.record(LaunchTrace.NATIVE_LIB_EXTRACTION, phaseStart, extractedBytes);
+        } finally {
+            libCache.save();
+        }
+        return libCache.getDir();
+    }
+
+    private ExtractionCache openLibCache() {
+        return new ExtractionCache(new File(requireActivity().getCodeCacheDir(), "lib"), LIB_CACHE_MANIFEST);
+    }
+
+    /**
+     * The linker can only load a library from inside an APK when it is STORED, page-aligned and the
+     * APK lives where our linker namespace may open it (the /data partition).
+     *
+     * Extraction leaves out the APK's libc++_shared.so so that ours is the one loaded. A path into
+     * the APK cannot leave out one file, so it is only used when the APK has no libc++_shared.so or
+     * loader finds ours first: paths added later are searched after the loader's own.
+     */
+    private static boolean canLoadFromApk(File apk, ZipCentralDirectory libIndex, ClassLoader loader) {
+        if (!apk.getAbsolutePath().startsWith("/data/")) {
+            return false;
+        }
+        long pageSize = Os.sysconf(OsConstants._SC_PAGESIZE);
+        try {
+            for (ZipCentralDirectory.Entry entry : libIndex.entries()) {
+                if (!entry.name.endsWith(".so")) {
+                    continue;
+                }
+                if (entry.name.contains("c++_shared") && !hasOwnCxxShared(loader)) {
+                    return false;
+                }
+                if (!entry.isStored() || libIndex.dataOffset(entry) % pageSize != 0) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return !libIndex.entries().isEmpty();
+    }
+
+    /**
+     * Whether loader resolves libc++_shared.so from the launcher's own libraries
+     */
+    private static boolean hasOwnCxxShared(ClassLoader loader) {
+        return loader instanceof BaseDexClassLoader && ((BaseDexClassLoader) loader).findLibrary("c++_shared") != null;
+    }
+
+    /**
+     * Libraries used to be extracted into the root of codeCacheDir on every launch; drop those copies
+     */
+    private static void deleteLegacyLibs(File codeCacheDir) {
+        File[] legacyLibs = codeCacheDir.listFiles((dir, name) -> name.endsWith(".so"));
+        if (legacyLibs != null) {
+            for (File lib : legacyLibs) {
+                lib.delete();
+            }
+        }
     }
 
-    public String getApkWithLibs(ApplicationInfo pkg) throws PackageManager.NameNotFoundException {
+    public static String getApkWithLibs(ApplicationInfo pkg) throws PackageManager.NameNotFoundException {
         String[] sn=pkg.splitSourceDirs;
         if (sn != null && sn.length > 0) {
             String cur_abi = Build.SUPPORTED_ABIS[0].replace('-','_');
@@ -448,23 +672,50 @@ public class HomeFragment extends BaseThemedFragment {
         return pkg.sourceDir;
     }
 
-    private static void extractDir(ApplicationInfo mcInfo, ZipInputStream zip, String zip_folder, String out_folder ) throws Exception{
-        ZipEntry ze = null;
-        while ((ze = zip.getNextEntry()) != null) {
-            if (ze.getName().startsWith(zip_folder) && !ze.getName().contains("c++_shared")) {
-                String strippedName = ze.getName().substring(zip_folder.length());
-                String path = out_folder + "/" + strippedName;
-                OutputStream out = new FileOutputStream(path);
-                BufferedOutputStream outBuf = new BufferedOutputStream(out);
-                byte[] buffer = new byte[9000];
-                int len;
-                while ((len = zip.read(buffer)) != -1) {
-                    outBuf.write(buffer, 0, len);
+    private static long extractDir(File apk, ZipCentralDirectory libIndex, String zip_folder, ExtractionCache libCache, boolean showProgress) throws Exception {
+        ArrayList<String> libNames = new ArrayList<>();
+        ArrayList<ZipCentralDirectory.Entry> staleEntries = new ArrayList<>();
+        long staleSize = 0;
+        for (ZipCentralDirectory.Entry entry : libIndex.entries()) {
+            if (!entry.name.contains("c++_shared")) {
+                String strippedName = entry.name.substring(zip_folder.length());
+                libNames.add(strippedName);
+                if (!libCache.isFresh(strippedName, ExtractionCache.keyFor(apk, entry))) {
+                    staleEntries.add(entry);
+                    staleSize += entry.size;
                 }
-                outBuf.close();
             }
         }
-        zip.close();
+        // Sizes are known up front, so the progress bar is determinate from the first library on
+        ProgressAggregator.Task progress = showProgress && !staleEntries.isEmpty()
+                ? ProgressAggregator.get().begin("Extracting native libraries", staleSize) : null;
+        long extractedBytes = 0;
+        try {
+            for (ZipCentralDirectory.Entry entry : staleEntries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Library extraction cancelled");
+                }
+                String strippedName = entry.name.substring(zip_folder.length());
+                String key = ExtractionCache.keyFor(apk, entry);
+                File temp = libCache.begin(strippedName);
+                extractedBytes += entry.size;
+                if (entry.isStored()) {
+                    libIndex.transferStored(entry, temp);
+                    if (progress != null) {
+                        progress.add(entry.size);
+                    }
+                } else {
+                    CopyEngine.copy(libIndex.openStream(entry), temp, true, progress);
+                }
+                libCache.commit(strippedName, key, temp);
+            }
+        } finally {
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+        libCache.retainOnly(libNames);
+        return extractedBytes;
     }
 
     private void launchMinecraft(ApplicationInfo mcInfo) throws ClassNotFoundException {
@@ -488,20 +739,95 @@ public class HomeFragment extends BaseThemedFragment {
         requireActivity().finish();
     }
 
-    private static void copyFile(InputStream from, @NotNull File to) throws IOException {
-        File parentDir = to.getParentFile();
-        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
-            throw new IOException("Failed to create directories");
+    /**
+     * Start filling the dex and native lib caches for the current selection in the background,
+     * so tapping launch mostly costs addDexPath/addNativePath and the activity start
+     */
+    private void startPrewarm() {
+        if (!isAdded()) {
+            return;
+        }
+        Context appContext = requireContext().getApplicationContext();
+        String mcPackageName = getPackageNameFromSettings();
+        String selectedApkPath = getSelectedApkPath();
+        cancelPrewarm();
+        ApplicationInfo mcInfo = resolveMinecraftInfo(appContext.getPackageManager(), mcPackageName, selectedApkPath);
+        if (mcInfo == null) {
+            return;
+        }
+        // Set before the task is queued, so a launch never sees the source of an older pre-warm
+        prewarmSource = mcInfo.sourceDir;
+        prewarmTask = TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.LOW, () -> {
+            synchronized (PREPARE_LOCK) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    prepareLaunchFiles(appContext, mcInfo, LAUNCHER_DEX_NAME);
+                    Log.d(TAG, "Pre-warmed " + mcInfo.sourceDir + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                } catch (Exception e) {
+                    Log.d(TAG, "Pre-warm of " + mcInfo.sourceDir + " stopped: " + e);
+                }
+            }
+        });
+    }
+
+    private void cancelPrewarm() {
+        Future<?> pending = prewarmTask;
+        if (pending != null) {
+            pending.cancel(true);
+        }
+    }
+
+    private static ApplicationInfo resolveMinecraftInfo(PackageManager packageManager, String mcPackageName, String selectedApkPath) {
+        try {
+            ApplicationInfo mcInfo = packageManager.getApplicationInfo(mcPackageName, PackageManager.GET_META_DATA);
+            if (selectedApkPath != null && new File(selectedApkPath).exists()) {
+                mcInfo.sourceDir = selectedApkPath;
+            }
+            return mcInfo;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Bring the dex and native lib caches up to date for mcInfo without touching the class loader
+     */
+    private static void prepareLaunchFiles(Context context, ApplicationInfo mcInfo, String launcherDexName) throws Exception {
+        ExtractionCache dexCache = new ExtractionCache(new File(context.getCodeCacheDir(), "dex"), DEX_CACHE_MANIFEST);
+        try {
+            String launcherKey = ExtractionCache.keyFor(new File(context.getApplicationInfo().sourceDir), launcherDexName);
+            if (!dexCache.isFresh(launcherDexName, launcherKey)) {
+                File temp = dexCache.begin(launcherDexName);
+                CopyEngine.copy(context.getAssets().open(launcherDexName), temp, false);
+                dexCache.commit(launcherDexName, launcherKey, temp);
+            }
+            File mcApk = new File(mcInfo.sourceDir);
+            List<ZipEntry> staleEntries;
+            try (ZipFile zipFile = new ZipFile(mcApk)) {
+                staleEntries = collectDexEntries(zipFile, mcApk, dexCache, new ArrayList<>(), new ArrayList<>());
+            }
+            extractDexFiles(mcApk, staleEntries, dexCache, TaskScheduler.Priority.LOW, false);
+        } finally {
+            dexCache.save();
         }
-        if (!to.exists() && !to.createNewFile()) {
-            throw new IOException("Failed to create new file");
+
+        if (!needsLibExtraction(mcInfo)) {
+            return;
         }
-        try (BufferedInputStream input = new BufferedInputStream(from);
-             BufferedOutputStream output = new BufferedOutputStream(Files.newOutputStream(to.toPath()))) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = input.read(buffer)) != -1) {
-                output.write(buffer, 0, bytesRead);
+        File apk = new File(getApkWithLibs(mcInfo));
+        String abiLibDir = "lib/" + Build.SUPPORTED_ABIS[0] + "/";
+        try (ZipCentralDirectory libIndex = ZipCentralDirectory.open(apk, abiLibDir)) {
+            if (!checkLibCompatibility(libIndex) || canLoadFromApk(apk, libIndex, context.getClassLoader())) {
+                return;
+            }
+            ExtractionCache libCache = new ExtractionCache(new File(context.getCodeCacheDir(), "lib"), LIB_CACHE_MANIFEST);
+            try {
+                extractDir(apk, libIndex, abiLibDir, libCache, false);
+            } finally {
+                libCache.save();
             }
         }
     }
@@ -510,11 +836,13 @@ public class HomeFragment extends BaseThemedFragment {
     public void onResume() {
         super.onResume();
         DiscordRPCHelper.getInstance().updateMenuPresence("Playing");
+        startPrewarm();
     }
     
     @Override
     public void onPause() {
         super.onPause();
         DiscordRPCHelper.getInstance().updateIdlePresence();
+        cancelPrewarm();
     }
 }
\ No newline at end of file
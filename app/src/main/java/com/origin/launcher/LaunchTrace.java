@@ -0,0 +1,142 @@
+package com.origin.launcher;
+
+import android.os.Build;
+import android.util.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-phase wall time and byte counts of one Minecraft launch, kept on disk for the last few launches
+ */
+public class LaunchTrace {
+    private static final String TAG = "LaunchTrace";
+    private static final String TRACE_FILE_NAME = "launch_traces.json";
+    private static final int MAX_TRACES = 20;
+
+    public static final String CACHE_CLEANING = "cache_cleaning";
+    public static final String PREWARM_WAIT = "prewarm_wait";
+    public static final String LAUNCHER_DEX_COPY = "launcher_dex_copy";
+    public static final String MC_DEX_COPY = "mc_dex_copy";
+    public static final String ADD_DEX_PATH = "add_dex_path";
+    public static final String ABI_CHECK = "abi_check";
+    public static final String NATIVE_LIB_EXTRACTION = "native_lib_extraction";
+    public static final String ADD_NATIVE_PATH = "add_native_path";
+    public static final String LAUNCH_MINECRAFT = "launch_minecraft";
+
+    private static class Phase {
+        final String name;
+        long durationNanos;
+        long bytes;
+
+        Phase(String name, long durationNanos, long bytes) {
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>();
+    private String source;
+    private String outcome = "unfinished";
+    private long totalNanos;
+
+    public static File getTraceFile(File filesDir) {
+        return new File(filesDir, TRACE_FILE_NAME);
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Record a phase that started at startNanos (from System.nanoTime()) and ends now;
+     * repeated phases (e.g. one addDexPath per dex) are summed into a single entry
+     */
+    public synchronized void record(String phase, long startNanos, long bytes) {
+        long durationNanos = System.nanoTime() - startNanos;
+        for (Phase existing : phases) {
+            if (existing.name.equals(phase)) {
+                existing.durationNanos += durationNanos;
+                existing.bytes += bytes;
+                return;
+            }
+        }
+        phases.add(new Phase(phase, durationNanos, bytes));
+    }
+
+    public void record(String phase, long startNanos) {
+        record(phase, startNanos, 0);
+    }
+
+    public synchronized void finish(String outcome) {
+        this.outcome = outcome;
+        this.totalNanos = System.nanoTime() - startNanos;
+    }
+
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("started_at", startedAtMillis);
+        json.put("device", Build.MODEL);
+        json.put("sdk", Build.VERSION.SDK_INT);
+        json.put("abi", Build.SUPPORTED_ABIS[0]);
+        json.put("source", source);
+        json.put("outcome", outcome);
+        json.put("total_ms", totalNanos / 1_000_000.0);
+        JSONArray phaseArray = new JSONArray();
+        for (Phase phase : phases) {
+            JSONObject p = new JSONObject();
+            p.put("phase", phase.name);
+            p.put("ms", phase.durationNanos / 1_000_000.0);
+            p.put("bytes", phase.bytes);
+            if (phase.bytes > 0 && phase.durationNanos > 0) {
+                p.put("bytes_per_sec", (long) (phase.bytes * 1_000_000_000.0 / phase.durationNanos));
+            }
+            phaseArray.put(p);
+        }
+        json.put("phases", phaseArray);
+        return json;
+    }
+
+    /**
+     * Append this trace to the on-disk history, keeping only the most recent launches
+     */
+    public void save(File filesDir) {
+        File traceFile = getTraceFile(filesDir);
+        try {
+            JSONArray history = new JSONArray();
+            if (traceFile.isFile()) {
+                try {
+                    history = new JSONArray(new String(Files.readAllBytes(traceFile.toPath()), StandardCharsets.UTF_8));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Discarding unreadable launch history", e);
+                }
+            }
+            JSONArray trimmed = new JSONArray();
+            for (int i = Math.max(0, history.length() - (MAX_TRACES - 1)); i < history.length(); i++) {
+                trimmed.put(history.getJSONObject(i));
+            }
+            trimmed.put(toJson());
+
+            File temp = new File(filesDir, TRACE_FILE_NAME + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(trimmed.toString(2).getBytes(StandardCharsets.UTF_8));
+            }
+            if (!temp.renameTo(traceFile)) {
+                throw new IOException("Failed to publish " + traceFile.getName());
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to save launch trace", e);
+        }
+    }
+}
@@ -3,8 +3,12 @@ package com.origin.launcher;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.View;
+import android.widget.TextView;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction; // Add this import
@@ -21,7 +25,11 @@ public class MainActivity extends BaseThemedActivity {
     private static final String KEY_THEMES_DIALOG_SHOWN = "themes_dialog_shown";
     private SettingsFragment settingsFragment;
     private int currentFragmentIndex = 0; // Move this to class level
+    private static final int GLOBAL_PROGRESS_MAX = 1000;
     private LinearProgressIndicator globalProgress;
+    // Label, rate and time left under the bar; the builder is reused for every update
+    private TextView globalStatus;
+    private final StringBuilder statusText = new StringBuilder();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -83,6 +91,42 @@ public class MainActivity extends BaseThemedActivity {
                 .commit();
             setCurrentFragmentIndex(0); // Set initial index
         }
+
+        // Report finished downloads, and show the combined progress of everything running. The first
+        // getInstance also resumes what the last process left unfinished.
+        DownloadQueue.getInstance(this).addObserver(this, this::onDownloadChanged);
+        ProgressAggregator.get().addListener(this, this::onProgress);
+    }
+
+    private void onDownloadChanged(DownloadQueue.Item item) {
+        if (item.state == DownloadQueue.State.COMPLETED) {
+            Toast.makeText(this, "Downloaded " + item.title, Toast.LENGTH_SHORT).show();
+        } else if (item.state == DownloadQueue.State.FAILED) {
+            Toast.makeText(this, "Download failed: " + item.title, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Called about four times a second while downloads or extractions run. The bar uses a fixed scale,
+     * so totals above 2 GB still fit its int range; the line above it shows the rate and time left.
+     */
+    private void onProgress(ProgressAggregator.Snapshot progress) {
+        if (progress.active == 0) {
+            hideGlobalProgress();
+            return;
+        }
+        updateGlobalStatus(progress);
+        boolean shown = globalProgress != null && globalProgress.getVisibility() == View.VISIBLE;
+        if (progress.isIndeterminate()) {
+            if (!shown || !globalProgress.isIndeterminate()) {
+                showGlobalProgress(-1);
+            }
+            return;
+        }
+        if (!shown || globalProgress.isIndeterminate()) {
+            showGlobalProgress(GLOBAL_PROGRESS_MAX);
+        }
+        updateGlobalProgress(progress.scaled(GLOBAL_PROGRESS_MAX));
     }
     
     // Remove the duplicate navigateToFragment method - keep only this one
@@ -213,6 +257,7 @@ public class MainActivity extends BaseThemedActivity {
     @Override
     protected void onApplyTheme() {
         super.onApplyTheme();
+        applyThemeToGlobalStatus();
         
         // Refresh bottom navigation theme with animation
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
@@ -228,7 +273,7 @@ public class MainActivity extends BaseThemedActivity {
                     }
                 }
                 
-                int targetBackground = ThemeManager.getInstance().getColor("surface");
+                int targetBackground = ThemeManager.getInstance().getColor(ColorRole.SURFACE);
                 
                 // Animate background color transition
                 ThemeUtils.animateBackgroundColorTransition(bottomNavigationView, currentBackground, targetBackground, 300);
@@ -262,7 +307,43 @@ public class MainActivity extends BaseThemedActivity {
     public void updateGlobalProgress(int value) {
         if (globalProgress != null) {
             globalProgress.setIndeterminate(false);
-            globalProgress.setProgressCompat(value, true);
+            // Updates arrive every 250 ms; animating each one would only make the bar lag behind them
+            globalProgress.setProgressCompat(value, false);
+        }
+    }
+
+    /**
+     * Show what is running, how fast and, when the totals are known, how long it has left
+     */
+    private void updateGlobalStatus(ProgressAggregator.Snapshot progress) {
+        if (globalStatus == null) {
+            globalStatus = findViewById(R.id.global_download_status);
+            if (globalStatus == null) {
+                return;
+            }
+            applyThemeToGlobalStatus();
+        }
+        statusText.setLength(0);
+        if (progress.label != null) {
+            statusText.append(progress.label);
+        }
+        if (progress.active > 1) {
+            statusText.append(" (+").append(progress.active - 1).append(')');
+        }
+        if (progress.bytesPerSecond > 0) {
+            statusText.append(" - ").append(Formatter.formatShortFileSize(this, progress.bytesPerSecond)).append("/s");
+        }
+        if (progress.etaMillis >= 0) {
+            statusText.append(" - ").append(DateUtils.formatElapsedTime(progress.etaMillis / 1000)).append(" left");
+        }
+        globalStatus.setText(statusText);
+        globalStatus.setVisibility(View.VISIBLE);
+    }
+
+    private void applyThemeToGlobalStatus() {
+        if (globalStatus != null) {
+            globalStatus.setBackgroundColor(ThemeManager.getInstance().getColor(ColorRole.SURFACE));
+            globalStatus.setTextColor(ThemeManager.getInstance().getColor(ColorRole.ON_SURFACE_VARIANT));
         }
     }
 
@@ -271,6 +352,9 @@ public class MainActivity extends BaseThemedActivity {
             globalProgress.setVisibility(View.GONE);
             globalProgress.setIndeterminate(false);
         }
+        if (globalStatus != null) {
+            globalStatus.setVisibility(View.GONE);
+        }
     }
 
     @Override
@@ -186,13 +186,13 @@ public class ModulesFragment extends BaseThemedFragment {
         moduleNameText.setText(module.getName());
         moduleNameText.setTextSize(16);
         moduleNameText.setTypeface(null, android.graphics.Typeface.BOLD);
-        ThemeUtils.applyThemeToTextView(moduleNameText, "onSurface");
+        ThemeUtils.applyThemeToTextView(moduleNameText, ColorRole.ON_SURFACE);
         
         // Module description (EXACTLY matching ThemesFragment pattern)
         TextView moduleDescriptionText = new TextView(requireContext());
         moduleDescriptionText.setText(module.getDescription());
         moduleDescriptionText.setTextSize(14);
-        ThemeUtils.applyThemeToTextView(moduleDescriptionText, "onSurfaceVariant");
+        ThemeUtils.applyThemeToTextView(moduleDescriptionText, ColorRole.ON_SURFACE_VARIANT);
         LinearLayout.LayoutParams descParams = new LinearLayout.LayoutParams(
             LinearLayout.LayoutParams.WRAP_CONTENT, 
             LinearLayout.LayoutParams.WRAP_CONTENT
@@ -372,13 +372,13 @@ public class ModulesFragment extends BaseThemedFragment {
         // Apply theme to the root view background
         View rootView = getView();
         if (rootView != null) {
-            rootView.setBackgroundColor(ThemeManager.getInstance().getColor("background"));
+            rootView.setBackgroundColor(ThemeManager.getInstance().getColor(ColorRole.BACKGROUND));
         }
         
         // Apply theme to back button
         ImageView backButton = rootView != null ? rootView.findViewById(R.id.back_button) : null;
         if (backButton != null) {
-            backButton.setColorFilter(ThemeManager.getInstance().getColor("onBackground"));
+            backButton.setColorFilter(ThemeManager.getInstance().getColor(ColorRole.ON_BACKGROUND));
         }
         
         // Apply theme to ScrollView and modules container background
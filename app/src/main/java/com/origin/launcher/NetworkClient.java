@@ -0,0 +1,81 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.util.Log;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one OkHttpClient of the app. Every HTTP call goes through it (or a newBuilder() derivative,
+ * which shares its connection pool and dispatcher), so connections, TLS sessions and HTTP/2 streams
+ * to the same host are reused across screens instead of being set up again for each request.
+ */
+public final class NetworkClient {
+    private static final String TAG = "NetworkClient";
+    private static final String USER_AGENT = "Mozilla/5.0 (Linux; Android 10) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124 Mobile Safari/537.36";
+    private static final String CACHE_DIR_NAME = "http";
+    private static final long CACHE_SIZE = 10L * 1024 * 1024;
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static File cacheDir;
+    private static OkHttpClient client;
+    private static OkHttpClient uncachedClient;
+
+    private NetworkClient() {
+    }
+
+    /**
+     * Give the client a disk cache under the app's cache directory; call once from Application.onCreate
+     */
+    public static synchronized void init(Context context) {
+        if (client == null) {
+            cacheDir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+        }
+    }
+
+    public static synchronized OkHttpClient get() {
+        if (client == null) {
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .followRedirects(true)
+                    .followSslRedirects(true)
+                    .connectTimeout(15, TimeUnit.SECONDS)
+                    .readTimeout(30, TimeUnit.SECONDS)
+                    .addInterceptor(chain -> {
+                        Request request = chain.request();
+                        if (request.header("User-Agent") != null) {
+                            return chain.proceed(request);
+                        }
+                        return chain.proceed(request.newBuilder().header("User-Agent", USER_AGENT).build());
+                    });
+            if (cacheDir != null) {
+                builder.cache(new Cache(cacheDir, CACHE_SIZE));
+            } else {
+                Log.w(TAG, "HTTP client created before init, running without a disk cache");
+            }
+            client = builder.build();
+        }
+        return client;
+    }
+
+    /**
+     * Same pool and settings, but never reads or writes the disk cache; for large bodies such as APKs
+     * that would only evict everything else, for anything carrying credentials, and for responses
+     * the caller keeps its own copy of
+     */
+    public static synchronized OkHttpClient getUncached() {
+        if (uncachedClient == null) {
+            uncachedClient = get().newBuilder().cache(null).build();
+        }
+        return uncachedClient;
+    }
+}
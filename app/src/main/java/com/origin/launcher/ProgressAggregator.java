@@ -0,0 +1,253 @@
+package com.origin.launcher;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Combined progress of every running transfer and extraction. Workers only bump atomic counters on
+ * their Task; every UPDATE_INTERVAL_MS, while anything is running, the main thread sums them on a
+ * frame and hands one reused Snapshot to the listeners. Reporting therefore costs workers nothing and
+ * the UI about four updates a second, however many tasks there are or how often they report.
+ */
+public final class ProgressAggregator {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // A progress bar and a rate read just as well at four updates a second, and waking the main
+    // thread every vsync for the whole of a long download is not free
+    private static final long UPDATE_INTERVAL_MS = 250;
+    // Time constant of the smoothed rate; short enough to follow a stall, long enough not to flicker
+    private static final double RATE_SMOOTHING_SECONDS = 2.0;
+    private static final Task[] NO_TASKS = new Task[0];
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+
+    private static ProgressAggregator instance;
+
+    /**
+     * One unit of work; safe to update from any thread
+     */
+    public static final class Task {
+        public final String label;
+        private final AtomicLong done = new AtomicLong();
+        private volatile long total;
+
+        Task(String label, long total) {
+            this.label = label;
+            this.total = total;
+        }
+
+        /** Size of the work in bytes, -1 if unknown */
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public void add(long bytes) {
+            done.addAndGet(bytes);
+        }
+
+        public void set(long doneBytes) {
+            done.set(doneBytes);
+        }
+
+        public long getDone() {
+            return done.get();
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void finish() {
+            get().remove(this);
+        }
+    }
+
+    /**
+     * What listeners see. The same instance is refilled on every update, so copy what you need to keep.
+     */
+    public static final class Snapshot {
+        /** Tasks running; 0 means everything finished */
+        public int active;
+        public long done;
+        /** Sum of the totals, or -1 if any running task does not know its size */
+        public long total;
+        /** Smoothed throughput over all tasks */
+        public long bytesPerSecond;
+        /** Estimated time to completion, or -1 if it cannot be estimated */
+        public long etaMillis;
+        /** Label of the longest-running active task, or null */
+        public String label;
+
+        public boolean isIndeterminate() {
+            return total <= 0;
+        }
+
+        /** Progress scaled to 0..max, for widgets that only take an int */
+        public int scaled(int max) {
+            return total > 0 ? (int) (Math.min(done, total) * max / total) : 0;
+        }
+    }
+
+    public interface Listener {
+        /** Called on the main thread at most every UPDATE_INTERVAL_MS while the snapshot changes */
+        void onProgress(Snapshot snapshot);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Snapshot snapshot = new Snapshot();
+    private volatile Task[] tasks = NO_TASKS;
+    private volatile Listener[] listeners = NO_LISTENERS;
+    private volatile int membership;
+
+    // Frame loop state, main thread only
+    private long lastFrameNanos;
+    private long lastDone;
+    private int lastMembership = -1;
+    private double rate;
+    private boolean publishedIdle = true;
+
+    private final Choreographer.FrameCallback frameCallback = this::doFrame;
+    private final Runnable startFrames = () -> Choreographer.getInstance().postFrameCallback(frameCallback);
+
+    public static synchronized ProgressAggregator get() {
+        if (instance == null) {
+            instance = new ProgressAggregator();
+        }
+        return instance;
+    }
+
+    private ProgressAggregator() {
+    }
+
+    /**
+     * Start tracking a unit of work of total bytes (-1 if unknown); call finish() on the Task when done
+     */
+    public Task begin(String label, long total) {
+        Task task = new Task(label, total);
+        synchronized (this) {
+            Task[] current = tasks;
+            Task[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = task;
+            tasks = grown;
+            membership++;
+        }
+        ensureFrames();
+        return task;
+    }
+
+    public synchronized void addListener(Listener listener) {
+        Listener[] current = listeners;
+        Listener[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = listener;
+        listeners = grown;
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        Listener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Listener[] shrunk = new Listener[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                listeners = shrunk;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Listen until owner is destroyed; must be called on the main thread
+     */
+    public void addListener(LifecycleOwner owner, Listener listener) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        addListener(listener);
+        owner.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                removeListener(listener);
+            }
+        });
+    }
+
+    private void remove(Task task) {
+        synchronized (this) {
+            Task[] current = tasks;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == task) {
+                    Task[] shrunk = current.length == 1 ? NO_TASKS : new Task[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    tasks = shrunk;
+                    membership++;
+                    break;
+                }
+            }
+        }
+        // Make sure the final "nothing running" state gets published
+        ensureFrames();
+    }
+
+    private void ensureFrames() {
+        if (scheduled.compareAndSet(false, true)) {
+            mainHandler.post(startFrames);
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        Task[] current = tasks;
+        int currentMembership = membership;
+        long done = 0;
+        long total = 0;
+        for (Task task : current) {
+            long taskTotal = task.total;
+            done += task.done.get();
+            total = (total < 0 || taskTotal <= 0) ? -1 : total + taskTotal;
+        }
+
+        if (currentMembership != lastMembership) {
+            // Tasks came or went (or resumed with bytes already done); that jump is not throughput
+            lastMembership = currentMembership;
+        } else if (frameTimeNanos > lastFrameNanos) {
+            double seconds = (frameTimeNanos - lastFrameNanos) / (double) NANOS_PER_SECOND;
+            double instant = Math.max(0, done - lastDone) / seconds;
+            rate += (instant - rate) * (1 - Math.exp(-seconds / RATE_SMOOTHING_SECONDS));
+        }
+        lastFrameNanos = frameTimeNanos;
+
+        boolean changed = done != lastDone || current.length != snapshot.active || total != snapshot.total;
+        lastDone = done;
+        if (current.length == 0) {
+            rate = 0;
+        }
+        if (changed || (current.length == 0 && !publishedIdle)) {
+            snapshot.active = current.length;
+            snapshot.done = done;
+            snapshot.total = current.length > 0 ? total : 0;
+            snapshot.bytesPerSecond = (long) rate;
+            snapshot.etaMillis = total > 0 && rate >= 1 ? (long) ((total - Math.min(done, total)) * 1000 / rate) : -1;
+            snapshot.label = current.length > 0 ? current[0].label : null;
+            publishedIdle = current.length == 0;
+            for (Listener listener : listeners) {
+                listener.onProgress(snapshot);
+            }
+        }
+
+        if (current.length > 0) {
+            Choreographer.getInstance().postFrameCallbackDelayed(frameCallback, UPDATE_INTERVAL_MS);
+        } else {
+            scheduled.set(false);
+            // A task may have begun after we read the list but before the flag was cleared
+            if (tasks.length > 0) {
+                ensureFrames();
+            }
+        }
+    }
+}
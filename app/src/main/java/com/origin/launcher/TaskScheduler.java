@@ -0,0 +1,400 @@
+package com.origin.launcher;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide background scheduler with separate lanes for disk I/O, CPU-bound work and network calls.
+ * Use this instead of creating threads or executors in individual screens.
+ */
+public final class TaskScheduler {
+    private static final String TAG = "TaskScheduler";
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadLocal<Lane> CURRENT_LANE = new ThreadLocal<>();
+    private static final ThreadLocal<Priority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    public enum Lane {
+        IO(4),
+        CPU(Math.max(2, Runtime.getRuntime().availableProcessors())),
+        NETWORK(4),
+        // Transfers and their extra connections, kept off NETWORK so a large download cannot starve
+        // short calls; DownloadQueue sizes it to its concurrency times DownloadEngine's connections
+        DOWNLOAD(8);
+
+        final int threads;
+
+        Lane(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public enum Priority {
+        HIGH(Process.THREAD_PRIORITY_DEFAULT),
+        NORMAL(Process.THREAD_PRIORITY_DEFAULT + Process.THREAD_PRIORITY_LESS_FAVORABLE),
+        LOW(Process.THREAD_PRIORITY_BACKGROUND);
+
+        final int threadPriority;
+
+        Priority(int threadPriority) {
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    private final Map<Lane, ThreadPoolExecutor> lanes = new EnumMap<>(Lane.class);
+    private final ScheduledThreadPoolExecutor timer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong sequence = new AtomicLong();
+
+    TaskScheduler() {
+        for (Lane lane : Lane.values()) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(lane.threads, lane.threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                    namedThreads("xelo-" + lane.name().toLowerCase(), lane));
+            pool.allowCoreThreadTimeOut(true);
+            lanes.put(lane, pool);
+        }
+        timer = new ScheduledThreadPoolExecutor(1, namedThreads("xelo-timer", null));
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public static TaskScheduler get() {
+        return XeloApplication.getScheduler();
+    }
+
+    /**
+     * Returns true if the calling thread belongs to lane; a task must not block on work it queues to its own lane
+     */
+    public static boolean isOnLane(Lane lane) {
+        return CURRENT_LANE.get() == lane;
+    }
+
+    /**
+     * Priority of the task running on the calling thread, or NORMAL outside the scheduler
+     */
+    public static Priority currentPriority() {
+        Priority priority = CURRENT_PRIORITY.get();
+        return priority != null ? priority : Priority.NORMAL;
+    }
+
+    public Future<?> submit(Lane lane, Priority priority, Runnable task) {
+        return enqueue(lane, priority, new PriorityTask<Void>(priority, sequence.getAndIncrement(), task, null));
+    }
+
+    public <T> Future<T> submit(Lane lane, Priority priority, Callable<T> task) {
+        return enqueue(lane, priority, new PriorityTask<>(priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Submit a task that is cancelled (and interrupted) once owner reaches ON_DESTROY.
+     * The binding is registered on the main thread, as Lifecycle requires.
+     */
+    public Future<?> submit(Lane lane, Priority priority, LifecycleOwner owner, Runnable task) {
+        PriorityTask<Void> future = new PriorityTask<Void>(priority, sequence.getAndIncrement(), task, null);
+        bindToLifecycle(owner, future);
+        return enqueue(lane, priority, future);
+    }
+
+    /**
+     * Executor that runs its tasks one at a time and in order on the given lane,
+     * for callers that relied on a single-thread executor for ordering
+     */
+    public Executor serial(Lane lane, Priority priority) {
+        return new SerialExecutor(lane, priority);
+    }
+
+    public ScheduledFuture<?> schedule(Lane lane, Priority priority, Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(() -> submit(lane, priority, task), delay, unit);
+    }
+
+    /**
+     * Hand task to executor after delay, for example to a serial executor whose order it must keep
+     */
+    public ScheduledFuture<?> schedule(Executor executor, Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(() -> executor.execute(task), delay, unit);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(Lane lane, Priority priority, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return scheduleAtFixedRate(command -> submit(lane, priority, command), task, initialDelay, period, unit);
+    }
+
+    /**
+     * Hand task to executor every period. A tick that comes while the previous run is still queued
+     * or running is skipped, so a slow run never piles up more runs behind it.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Executor executor, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean inFlight = new AtomicBoolean();
+        Runnable run = () -> {
+            try {
+                task.run();
+            } finally {
+                inFlight.set(false);
+            }
+        };
+        return timer.scheduleAtFixedRate(() -> {
+            if (inFlight.compareAndSet(false, true)) {
+                executor.execute(run);
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * Run all tasks on lane and return their results in order. If any task fails or the caller is
+     * interrupted, the remaining tasks are cancelled and this only returns once none of them is still
+     * running. Do not call this from a thread of the same lane.
+     */
+    public <T> List<T> invokeAll(Lane lane, Priority priority, List<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        int count = tasks.size();
+        CountDownLatch finished = new CountDownLatch(count);
+        List<AtomicBoolean> claims = new ArrayList<>(count);
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (Callable<T> task : tasks) {
+            AtomicBoolean claimed = new AtomicBoolean();
+            claims.add(claimed);
+            futures.add(submit(lane, priority, () -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return task.call();
+                } finally {
+                    finished.countDown();
+                }
+            }));
+        }
+
+        boolean completed = false;
+        try {
+            List<T> results = new ArrayList<>(count);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            completed = true;
+            return results;
+        } finally {
+            if (!completed) {
+                for (int i = 0; i < count; i++) {
+                    futures.get(i).cancel(true);
+                    // Tasks that never started are accounted for here, running ones count down themselves
+                    if (claims.get(i).compareAndSet(false, true)) {
+                        finished.countDown();
+                    }
+                }
+                awaitUninterruptibly(finished);
+            }
+        }
+    }
+
+    /**
+     * Change how many threads lane runs at most; queued tasks start as threads become free
+     */
+    public void setLaneThreads(Lane lane, int threads) {
+        ThreadPoolExecutor pool = lanes.get(lane);
+        synchronized (pool) {
+            int size = Math.max(1, threads);
+            // The core size may never exceed the maximum, so the order depends on the direction
+            if (size > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(size);
+                pool.setCorePoolSize(size);
+            } else {
+                pool.setCorePoolSize(size);
+                pool.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    public int getQueueDepth(Lane lane) {
+        return lanes.get(lane).getQueue().size();
+    }
+
+    public int getActiveCount(Lane lane) {
+        return lanes.get(lane).getActiveCount();
+    }
+
+    public int getPoolSize(Lane lane) {
+        return lanes.get(lane).getPoolSize();
+    }
+
+    public long getCompletedTaskCount(Lane lane) {
+        return lanes.get(lane).getCompletedTaskCount();
+    }
+
+    /**
+     * One line per lane with queue depth, active and live threads and completed tasks
+     */
+    public String describeMetrics() {
+        StringBuilder sb = new StringBuilder();
+        for (Lane lane : Lane.values()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(lane.name())
+              .append(": queued=").append(getQueueDepth(lane))
+              .append(" active=").append(getActiveCount(lane))
+              .append(" threads=").append(getPoolSize(lane)).append('/').append(lanes.get(lane).getMaximumPoolSize())
+              .append(" completed=").append(getCompletedTaskCount(lane));
+        }
+        return sb.toString();
+    }
+
+    private <T> Future<T> enqueue(Lane lane, Priority priority, PriorityTask<T> task) {
+        lanes.get(lane).execute(task);
+        return task;
+    }
+
+    private void bindToLifecycle(LifecycleOwner owner, PriorityTask<?> task) {
+        Runnable bind = () -> {
+            Lifecycle lifecycle = owner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                task.cancel(true);
+                return;
+            }
+            LifecycleEventObserver observer = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    task.cancel(true);
+                }
+            };
+            lifecycle.addObserver(observer);
+            task.onDone = () -> mainHandler.post(() -> lifecycle.removeObserver(observer));
+            if (task.isDone()) {
+                lifecycle.removeObserver(observer);
+            }
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            bind.run();
+        } else {
+            mainHandler.post(bind);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix, Lane lane) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                CURRENT_LANE.set(lane);
+                runnable.run();
+            }, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class PriorityTask<T> extends FutureTask<T> implements Comparable<PriorityTask<?>> {
+        private final Priority priority;
+        private final long sequence;
+        volatile Runnable onDone;
+
+        PriorityTask(Priority priority, long sequence, Callable<T> callable) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        PriorityTask(Priority priority, long sequence, Runnable runnable, T result) {
+            super(runnable, result);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(priority.threadPriority);
+            CURRENT_PRIORITY.set(priority);
+            try {
+                super.run();
+            } finally {
+                CURRENT_PRIORITY.remove();
+                // Don't leave the interrupt of a cancelled task behind for the next one on this thread
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        protected void done() {
+            Runnable callback = onDone;
+            if (callback != null) {
+                callback.run();
+            }
+        }
+
+        @Override
+        public int compareTo(PriorityTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final class SerialExecutor implements Executor {
+        private final Lane lane;
+        private final Priority priority;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        SerialExecutor(Lane lane, Priority priority) {
+            this.lane = lane;
+            this.priority = priority;
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Serial task failed", e);
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (!running) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            Runnable next = tasks.poll();
+            running = next != null;
+            if (next != null) {
+                submit(lane, priority, next);
+            }
+        }
+    }
+}
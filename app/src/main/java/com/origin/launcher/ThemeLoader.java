@@ -0,0 +1,158 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads theme files, built-in ones from assets/themes and imported ones from their extracted
+ * .xtheme folder, streaming the JSON instead of loading it whole. Palettes of recently used themes
+ * are kept, so switching back to one does no I/O.
+ */
+final class ThemeLoader {
+    private static final String TAG = "ThemeLoader";
+    private static final int CACHED_THEMES = 8;
+
+    private final Context context;
+    // Access-ordered, so the eldest entry is the least recently used theme
+    private final Map<String, ThemePalette> palettes = new LinkedHashMap<String, ThemePalette>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ThemePalette> eldest) {
+            return size() > CACHED_THEMES;
+        }
+    };
+
+    ThemeLoader(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Palette of themeName if it is cached, else null
+     */
+    synchronized ThemePalette getCached(String themeName) {
+        return palettes.get(themeName);
+    }
+
+    /**
+     * Palette of themeName, read on first use; null if no theme by that name can be parsed.
+     * Reads files, so call it off the main thread unless getCached has it.
+     */
+    ThemePalette load(String themeName) {
+        ThemePalette palette = getCached(themeName);
+        if (palette != null) {
+            return palette;
+        }
+        palette = read(themeName);
+        if (palette != null) {
+            synchronized (this) {
+                palettes.put(themeName, palette);
+            }
+        }
+        return palette;
+    }
+
+    /**
+     * Drop the cached palette of themeName, after its files were replaced or deleted
+     */
+    synchronized void forget(String themeName) {
+        palettes.remove(themeName);
+    }
+
+    private ThemePalette read(String themeName) {
+        // First try the built-in themes
+        try {
+            InputStream in = context.getAssets().open(assetPath(themeName));
+            ThemePalette palette = read(in, themeName);
+            if (palette != null) {
+                return palette;
+            }
+        } catch (IOException e) {
+            Log.d(TAG, "Theme not found in assets: " + themeName);
+        }
+
+        // Then the extracted .xtheme files
+        File colorsJsonFile = colorsFile(themeName);
+        if (!colorsJsonFile.exists()) {
+            Log.d(TAG, "Theme not found in .xtheme: " + themeName);
+            return null;
+        }
+        try {
+            return read(new FileInputStream(colorsJsonFile), themeName);
+        } catch (IOException e) {
+            Log.e(TAG, "Error loading .xtheme: " + themeName, e);
+            return null;
+        }
+    }
+
+    private static ThemePalette read(InputStream in, String themeName) {
+        try (JsonReader reader = newReader(in)) {
+            return ThemePalette.read(reader);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            Log.e(TAG, "Error parsing theme: " + themeName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Name, author and description at the top level of a theme or manifest file; the rest of the
+     * file is skipped. Missing values get the same defaults as before: the key, no author, "Custom theme".
+     */
+    static ThemeManager.ThemeMetadata readMetadata(InputStream in, String themeName) throws IOException {
+        String name = themeName;
+        String author = null;
+        String description = "Custom theme";
+        try (JsonReader reader = newReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                JsonToken token = reader.peek();
+                if (token != JsonToken.STRING && token != JsonToken.NUMBER && token != JsonToken.BOOLEAN) {
+                    reader.skipValue();
+                } else if ("name".equals(key)) {
+                    name = nextText(reader, token);
+                } else if ("author".equals(key)) {
+                    author = nextText(reader, token);
+                } else if ("description".equals(key)) {
+                    description = nextText(reader, token);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed theme file", e);
+        }
+        return new ThemeManager.ThemeMetadata(name, author, description, themeName);
+    }
+
+    static String assetPath(String themeName) {
+        return "themes/" + themeName + ".json";
+    }
+
+    File themeDir(String themeName) {
+        return new File(new File(context.getExternalFilesDir(null), "themes"), themeName);
+    }
+
+    File colorsFile(String themeName) {
+        return new File(themeDir(themeName), "colors/colors.json");
+    }
+
+    private static String nextText(JsonReader reader, JsonToken token) throws IOException {
+        return token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+    }
+
+    private static JsonReader newReader(InputStream in) {
+        return new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+}
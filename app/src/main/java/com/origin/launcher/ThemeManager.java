@@ -3,29 +3,49 @@ package com.origin.launcher;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
 import java.util.Map;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ThemeManager {
     private static final String TAG = "ThemeManager";
     private static final String PREF_NAME = "theme_preferences";
     private static final String PREF_CURRENT_THEME = "current_theme";
     private static final String DEFAULT_THEME = "default";
+    // Name of the built-in colors used when not even the default theme loads; never saved
+    private static final String FALLBACK_THEME = "fallback";
+    // How many past theme changes changedSince() can still tell apart
+    private static final int CHANGE_HISTORY = 16;
     
-    private static ThemeManager instance;
-    private Context context;
-    private Map<String, Integer> currentColors;
-    private String currentThemeName;
-    private List<ThemeChangeListener> themeChangeListeners;
+    private static volatile ThemeManager instance;
+    private final Context context;
+    // Replaced as a whole on every theme load, never modified
+    private volatile ThemePalette palette = ThemePalette.EMPTY;
+    // Bumped whenever a load actually changes a color; views remember the generation they were themed at
+    private int generation;
+    // Roles changed by the load that produced generation g, at g % CHANGE_HISTORY
+    private final long[] changeHistory = new long[CHANGE_HISTORY];
+    // Lists and ripples built from palette; replaced together with it when any color changes
+    private volatile ThemeStyleCache styleCache = new ThemeStyleCache(ThemePalette.EMPTY);
+    private volatile String currentThemeName;
+    // Held weakly, so a fragment or activity that never unregisters is not leaked; BaseThemedActivity
+    // and BaseThemedFragment keep theirs in a field and unregister with their lifecycle
+    private final CopyOnWriteArrayList<WeakReference<ThemeChangeListener>> themeChangeListeners = new CopyOnWriteArrayList<>();
+    // Theme the next posted dispatch announces; null when no dispatch is pending
+    private final AtomicReference<String> pendingNotification = new AtomicReference<>();
+    private final ThemeLoader loader;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Numbers each load request, so a slow read cannot overwrite a theme picked after it
+    private final AtomicInteger loadRequests = new AtomicInteger();
     
     /**
      * Interface for theme change notifications
@@ -34,22 +54,30 @@ public class ThemeManager {
         void onThemeChanged(String themeName);
     }
     
+    /**
+     * Result of loadThemeAsync, delivered on the main thread
+     */
+    public interface ThemeLoadCallback {
+        void onThemeLoaded(String themeName, boolean success);
+    }
+    
     private ThemeManager(Context context) {
         this.context = context.getApplicationContext();
-        this.currentColors = new HashMap<>();
-        this.themeChangeListeners = new ArrayList<>();
         
-        Log.d(TAG, "Initializing ThemeManager");
+        this.loader = new ThemeLoader(this.context);
         
-        // Load default theme immediately
-        if (!loadCurrentTheme()) {
-            Log.w(TAG, "Failed to load current theme, using hardcoded fallbacks");
-            loadHardcodedFallbackColors();
-        }
+        Log.d(TAG, "Initializing ThemeManager");
         
+        // Load the current theme before the first activity draws, so its first frame already has
+        // the saved theme's colors rather than the defaults followed by a retheme. This is one
+        // small file, read once from Application.onCreate; later loads go through loadThemeAsync.
+        loadCurrentTheme();
         Log.d(TAG, "ThemeManager initialized with theme: " + currentThemeName);
     }
     
+    /**
+     * The first call loads the current theme on the calling thread; later calls return at once
+     */
     public static synchronized ThemeManager getInstance(Context context) {
         if (instance == null) {
             instance = new ThemeManager(context);
@@ -58,170 +86,146 @@ public class ThemeManager {
     }
     
     public static ThemeManager getInstance() {
-        if (instance == null) {
+        ThemeManager manager = instance;
+        if (manager == null) {
             throw new IllegalStateException("ThemeManager not initialized. Call getInstance(Context) first.");
         }
-        return instance;
+        return manager;
     }
     
     /**
-     * Load theme from JSON file in assets/themes/ or from extracted .xtheme
+     * Load theme without blocking the caller. A recently used theme is applied at once; otherwise the
+     * file is read on the IO lane and the theme applied on the main thread. Either way callback is
+     * posted to the main thread, never run before this returns. If another theme is loaded
+     * meanwhile, this one is dropped and callback is not called. callback may be null.
      */
-    public boolean loadTheme(String themeName) {
-        // First try to load from assets (built-in themes)
-        if (loadThemeFromAssets(themeName)) {
-            return true;
+    public void loadThemeAsync(String themeName, ThemeLoadCallback callback) {
+        int request = loadRequests.incrementAndGet();
+        ThemePalette cached = loader.getCached(themeName);
+        if (cached != null) {
+            boolean success = publish(themeName, cached, request);
+            if (callback != null) {
+                mainHandler.post(() -> callback.onThemeLoaded(themeName, success));
+            }
+            return;
         }
-        
-        // Then try to load from extracted .xtheme files
-        return loadThemeFromXTheme(themeName);
+        TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.HIGH, () -> {
+            ThemePalette loaded = loader.load(themeName);
+            mainHandler.post(() -> {
+                if (request != loadRequests.get()) {
+                    Log.d(TAG, "Dropping superseded theme load: " + themeName);
+                    return;
+                }
+                boolean success = publish(themeName, loaded, request);
+                if (callback != null) {
+                    callback.onThemeLoaded(themeName, success);
+                }
+            });
+        });
     }
     
-    private boolean loadThemeFromAssets(String themeName) {
-        try {
-            String jsonPath = "themes/" + themeName + ".json";
-            InputStream inputStream = context.getAssets().open(jsonPath);
-            
-            return loadThemeFromInputStream(inputStream, themeName);
-            
-        } catch (IOException e) {
-            Log.d(TAG, "Theme not found in assets: " + themeName);
-            return false;
-        }
+    /**
+     * Forget the cached colors of themeName, after its files were imported again or deleted
+     */
+    public void forgetTheme(String themeName) {
+        loader.forget(themeName);
     }
     
-    private boolean loadThemeFromXTheme(String themeName) {
-        try {
-            // Look for extracted .xtheme theme
-            File themesDir = new File(context.getExternalFilesDir(null), "themes");
-            File themeDir = new File(themesDir, themeName);
-            File colorsJsonFile = new File(themeDir, "colors/colors.json");
-            
-            if (!colorsJsonFile.exists()) {
-                Log.d(TAG, "Theme not found in .xtheme: " + themeName);
-                return false;
-            }
-            
-            InputStream inputStream = new java.io.FileInputStream(colorsJsonFile);
-            return loadThemeFromInputStream(inputStream, themeName);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading .xtheme: " + themeName, e);
+    /**
+     * Make loaded the current theme, unless it failed to load or a newer request replaced it
+     */
+    private boolean publish(String themeName, ThemePalette loaded, int request) {
+        if (loaded == null) {
             return false;
         }
-    }
-    
-    private boolean loadThemeFromInputStream(InputStream inputStream, String themeName) {
-        try {
-            byte[] buffer = new byte[inputStream.available()];
-            inputStream.read(buffer);
-            inputStream.close();
-            
-            String jsonString = new String(buffer, "UTF-8");
-            JSONObject themeJson = new JSONObject(jsonString);
-            JSONObject colors = themeJson.getJSONObject("colors");
-            
-            // Parse colors from JSON
-            Map<String, Integer> newColors = new HashMap<>();
-            String[] colorKeys = {"background", "onBackground", "surface", "onSurface", 
-                                "surfaceVariant", "onSurfaceVariant", "outline", "primary", "onPrimary",
-                                "primaryContainer", "onPrimaryContainer", "secondary", "onSecondary",
-                                "secondaryContainer", "onSecondaryContainer", "tertiary", "onTertiary",
-                                "tertiaryContainer", "onTertiaryContainer", "error", "onError",
-                                "errorContainer", "onErrorContainer", "success", "info", "warning"};
-            
-            for (String key : colorKeys) {
-                if (colors.has(key)) {
-                    String colorHex = colors.getString(key);
-                    int color = Color.parseColor(colorHex);
-                    newColors.put(key, color);
-                }
-            }
-            
-            // Parse toggle colors if they exist
-            if (colors.has("toggle")) {
-                try {
-                    JSONObject toggleColors = colors.getJSONObject("toggle");
-                    String[] toggleKeys = {"track", "trackChecked", "thumb", "thumbChecked", "ripple"};
-                    
-                    for (String toggleKey : toggleKeys) {
-                        if (toggleColors.has(toggleKey)) {
-                            String colorHex = toggleColors.getString(toggleKey);
-                            int color = Color.parseColor(colorHex);
-                            newColors.put("toggle_" + toggleKey, color);
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error parsing toggle colors, using defaults", e);
-                }
+        synchronized (this) {
+            if (request != loadRequests.get()) {
+                Log.d(TAG, "Dropping superseded theme load: " + themeName);
+                return false;
             }
-            
-            // Update current colors
-            currentColors.clear();
-            currentColors.putAll(newColors);
+            // Palette and name change together
+            setPalette(loaded);
             currentThemeName = themeName;
-            
-            // Save to preferences
+        }
+        
+        // Save to preferences; the fallback stands in for a theme that failed, so keep that one
+        if (!FALLBACK_THEME.equals(themeName)) {
             saveCurrentTheme(themeName);
-            
-            // Notify listeners of theme change
-            notifyThemeChanged(themeName);
-            
-            Log.d(TAG, "Theme loaded successfully: " + themeName);
-            return true;
-            
-        } catch (IOException | JSONException e) {
-            Log.e(TAG, "Error parsing theme: " + themeName, e);
-            return false;
         }
+        
+        // Notify listeners of theme change
+        notifyThemeChanged(themeName);
+        
+        Log.d(TAG, "Theme loaded successfully: " + themeName);
+        return true;
     }
     
     /**
-     * Get color by name
+     * Get the current theme's color for role
      */
-    public int getColor(String colorName) {
-        if (colorName == null || colorName.isEmpty()) {
-            Log.w(TAG, "Color name is null or empty, returning default");
-            return Color.parseColor("#FFFFFF");
+    public int getColor(ColorRole role) {
+        return palette.get(role);
+    }
+    
+    /**
+     * The compiled colors of the current theme
+     */
+    public ThemePalette getPalette() {
+        return palette;
+    }
+    
+    /**
+     * Shared ColorStateLists and ripples for the current palette
+     */
+    ThemeStyleCache getStyleCache() {
+        return styleCache;
+    }
+    
+    /**
+     * Current theme generation; it only changes when a theme load changes some color
+     */
+    public synchronized int getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Mask (see ColorRole.mask) of the roles that changed after generation since, or every role if
+     * that is too long ago to tell
+     */
+    public synchronized long changedSince(int since) {
+        if (since == generation) {
+            return 0;
         }
-        
-        Integer color = currentColors.get(colorName);
-        if (color != null) {
-            return color;
+        if (since > generation || generation - since >= CHANGE_HISTORY) {
+            return -1L;
         }
-        
-        // Fallback to default colors if not found
-        switch (colorName) {
-            case "background": return Color.parseColor("#0A0A0A");
-            case "onBackground": return Color.parseColor("#FFFFFF");
-            case "surface": return Color.parseColor("#141414");
-            case "onSurface": return Color.parseColor("#FFFFFF");
-            case "surfaceVariant": return Color.parseColor("#1F1F1F");
-            case "onSurfaceVariant": return Color.parseColor("#CCCCCC");
-            case "outline": return Color.parseColor("#505050");
-            case "primary": return Color.parseColor("#FFFFFF");
-            case "onPrimary": return Color.parseColor("#000000");
-            case "primaryContainer": return Color.parseColor("#1F1F1F");
-            case "onPrimaryContainer": return Color.parseColor("#FFFFFF");
-            case "secondary": return Color.parseColor("#FFFFFF");
-            case "onSecondary": return Color.parseColor("#000000");
-            case "secondaryContainer": return Color.parseColor("#2A2A2A");
-            case "onSecondaryContainer": return Color.parseColor("#FFFFFF");
-            case "tertiary": return Color.parseColor("#F5F5F5");
-            case "onTertiary": return Color.parseColor("#000000");
-            case "tertiaryContainer": return Color.parseColor("#3A3A3A");
-            case "onTertiaryContainer": return Color.parseColor("#FFFFFF");
-            case "error": return Color.parseColor("#FF6659");
-            case "onError": return Color.parseColor("#FFFFFF");
-            case "errorContainer": return Color.parseColor("#B00020");
-            case "onErrorContainer": return Color.parseColor("#FFFFFF");
-            case "success": return Color.parseColor("#00E676");
-            case "info": return Color.parseColor("#64B5F6");
-            case "warning": return Color.parseColor("#FFC107");
-            default: 
-                Log.w(TAG, "Unknown color name: " + colorName + ", returning default");
-                return Color.parseColor("#FFFFFF");
+        long changed = 0;
+        for (int g = since + 1; g <= generation; g++) {
+            changed |= changeHistory[g % CHANGE_HISTORY];
         }
+        return changed;
+    }
+    
+    private synchronized void setPalette(ThemePalette next) {
+        long changed = palette.diff(next);
+        palette = next;
+        if (changed != 0) {
+            styleCache = new ThemeStyleCache(next);
+            generation++;
+            changeHistory[generation % CHANGE_HISTORY] = changed;
+        }
+    }
+    
+    /**
+     * Get color by name; kept for callers that only have a string, prefer getColor(ColorRole)
+     */
+    public int getColor(String colorName) {
+        ColorRole role = ColorRole.fromKey(colorName);
+        if (role == null) {
+            Log.w(TAG, "Unknown color name: " + colorName + ", returning default");
+            return Color.WHITE;
+        }
+        return palette.get(role);
     }
     
     /**
@@ -230,64 +234,24 @@ public class ThemeManager {
     public ThemeMetadata getThemeMetadata(String themeName) {
         // First try to get metadata from assets (built-in themes)
         try {
-            String jsonPath = "themes/" + themeName + ".json";
-            InputStream inputStream = context.getAssets().open(jsonPath);
-            
-            byte[] buffer = new byte[inputStream.available()];
-            inputStream.read(buffer);
-            inputStream.close();
-            
-            String jsonString = new String(buffer, "UTF-8");
-            JSONObject themeJson = new JSONObject(jsonString);
-            
-            String name = themeJson.optString("name", themeName);
-            String author = themeJson.optString("author", null);
-            String description = themeJson.optString("description", "Custom theme");
-            
-            return new ThemeMetadata(name, author, description, themeName);
-            
-        } catch (IOException | JSONException e) {
+            InputStream inputStream = context.getAssets().open(ThemeLoader.assetPath(themeName));
+            return ThemeLoader.readMetadata(inputStream, themeName);
+        } catch (IOException e) {
             Log.d(TAG, "Theme metadata not found in assets: " + themeName);
         }
         
         // Then try to get metadata from .xtheme files
         try {
-            File themesDir = new File(context.getExternalFilesDir(null), "themes");
-            File themeDir = new File(themesDir, themeName);
-            File manifestFile = new File(themeDir, "manifest.json");
-            File colorsJsonFile = new File(themeDir, "colors/colors.json");
+            File manifestFile = new File(loader.themeDir(themeName), "manifest.json");
+            File colorsJsonFile = loader.colorsFile(themeName);
             
             // First try manifest.json
             if (manifestFile.exists()) {
-                InputStream inputStream = new java.io.FileInputStream(manifestFile);
-                byte[] buffer = new byte[inputStream.available()];
-                inputStream.read(buffer);
-                inputStream.close();
-                
-                String jsonString = new String(buffer, "UTF-8");
-                JSONObject manifestJson = new JSONObject(jsonString);
-                
-                String name = manifestJson.optString("name", themeName);
-                String author = manifestJson.optString("author", null);
-                String description = manifestJson.optString("description", "Custom theme");
-                
-                return new ThemeMetadata(name, author, description, themeName);
+                return ThemeLoader.readMetadata(new java.io.FileInputStream(manifestFile), themeName);
             }
             // Fallback to colors.json for compatibility
             else if (colorsJsonFile.exists()) {
-                InputStream inputStream = new java.io.FileInputStream(colorsJsonFile);
-                byte[] buffer = new byte[inputStream.available()];
-                inputStream.read(buffer);
-                inputStream.close();
-                
-                String jsonString = new String(buffer, "UTF-8");
-                JSONObject themeJson = new JSONObject(jsonString);
-                
-                String name = themeJson.optString("name", themeName);
-                String author = themeJson.optString("author", null);
-                String description = themeJson.optString("description", "Custom theme");
-                
-                return new ThemeMetadata(name, author, description, themeName);
+                return ThemeLoader.readMetadata(new java.io.FileInputStream(colorsJsonFile), themeName);
             }
             
         } catch (Exception e) {
@@ -324,63 +288,36 @@ public class ThemeManager {
      */
     public void applyTheme(Context activityContext) {
         // This method can be extended to apply theme to specific views
-        // For now, it ensures the theme is loaded
-        if (currentColors.isEmpty()) {
-            loadCurrentTheme();
+        // For now, it ensures the theme is loaded, off the caller's thread; listeners hear when it is
+        if (palette.isEmpty()) {
+            TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.HIGH, this::loadCurrentTheme);
         }
     }
     
+    /**
+     * Publish the saved theme, else the default theme, else the hardcoded fallback colors, as one
+     * request so a theme picked while this reads is never overwritten
+     */
     private boolean loadCurrentTheme() {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         String themeName = prefs.getString(PREF_CURRENT_THEME, DEFAULT_THEME);
         
         Log.d(TAG, "Loading current theme: " + themeName);
         
-        if (!loadTheme(themeName)) {
+        int request = loadRequests.incrementAndGet();
+        ThemePalette loaded = loader.load(themeName);
+        if (loaded == null) {
             // Fallback to default theme
             Log.w(TAG, "Failed to load theme " + themeName + ", falling back to default");
-            if (!loadTheme(DEFAULT_THEME)) {
+            themeName = DEFAULT_THEME;
+            loaded = loader.load(DEFAULT_THEME);
+            if (loaded == null) {
                 Log.e(TAG, "Failed to load default theme, using hardcoded fallbacks");
-                return false; // Indicate failure
+                themeName = FALLBACK_THEME;
+                loaded = ThemePalette.fallback();
             }
         }
-        return true; // Indicate success
-    }
-    
-    /**
-     * Load hardcoded fallback colors when theme loading fails
-     */
-    private void loadHardcodedFallbackColors() {
-        currentColors.clear();
-        currentColors.put("background", Color.parseColor("#0A0A0A"));
-        currentColors.put("onBackground", Color.parseColor("#FFFFFF"));
-        currentColors.put("surface", Color.parseColor("#141414"));
-        currentColors.put("onSurface", Color.parseColor("#FFFFFF"));
-        currentColors.put("surfaceVariant", Color.parseColor("#1F1F1F"));
-        currentColors.put("onSurfaceVariant", Color.parseColor("#CCCCCC"));
-        currentColors.put("outline", Color.parseColor("#505050"));
-        currentColors.put("primary", Color.parseColor("#FFFFFF"));
-        currentColors.put("onPrimary", Color.parseColor("#000000"));
-        currentColors.put("primaryContainer", Color.parseColor("#1F1F1F"));
-        currentColors.put("onPrimaryContainer", Color.parseColor("#FFFFFF"));
-        currentColors.put("secondary", Color.parseColor("#FFFFFF"));
-        currentColors.put("onSecondary", Color.parseColor("#000000"));
-        currentColors.put("secondaryContainer", Color.parseColor("#2A2A2A"));
-        currentColors.put("onSecondaryContainer", Color.parseColor("#FFFFFF"));
-        currentColors.put("tertiary", Color.parseColor("#F5F5F5"));
-        currentColors.put("onTertiary", Color.parseColor("#000000"));
-        currentColors.put("tertiaryContainer", Color.parseColor("#3A3A3A"));
-        currentColors.put("onTertiaryContainer", Color.parseColor("#FFFFFF"));
-        currentColors.put("error", Color.parseColor("#FF6659"));
-        currentColors.put("onError", Color.parseColor("#FFFFFF"));
-        currentColors.put("errorContainer", Color.parseColor("#B00020"));
-        currentColors.put("onErrorContainer", Color.parseColor("#FFFFFF"));
-        currentColors.put("success", Color.parseColor("#00E676"));
-        currentColors.put("info", Color.parseColor("#64B5F6"));
-        currentColors.put("warning", Color.parseColor("#FFC107"));
-        
-        currentThemeName = "fallback";
-        Log.d(TAG, "Hardcoded fallback colors loaded");
+        return publish(themeName, loaded, request);
     }
     
     private void saveCurrentTheme(String themeName) {
@@ -389,45 +326,60 @@ public class ThemeManager {
     }
     
     public String getCurrentThemeName() {
-        if (currentThemeName == null) {
+        String themeName = currentThemeName;
+        if (themeName == null) {
+            // Not written back, a load publishing a theme owns currentThemeName
             SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            currentThemeName = prefs.getString(PREF_CURRENT_THEME, DEFAULT_THEME);
+            themeName = prefs.getString(PREF_CURRENT_THEME, DEFAULT_THEME);
         }
-        return currentThemeName;
+        return themeName;
     }
     
     /**
-     * Force refresh the current theme
+     * Force refresh the current theme, re-reading its file in the background
      */
     public void refreshCurrentTheme() {
         Log.d(TAG, "Refreshing current theme: " + currentThemeName);
-        if (currentThemeName != null && !currentThemeName.equals("fallback")) {
-            loadTheme(currentThemeName);
-        } else {
-            loadTheme(DEFAULT_THEME);
+        String themeName = currentThemeName;
+        if (themeName == null || themeName.equals(FALLBACK_THEME)) {
+            themeName = DEFAULT_THEME;
         }
+        // Re-read the file in the background rather than reusing the cached colors
+        loader.forget(themeName);
+        loadThemeAsync(themeName, null);
     }
     
     /**
      * Check if theme is properly loaded
      */
     public boolean isThemeLoaded() {
-        return !currentColors.isEmpty() && currentThemeName != null;
+        return !palette.isEmpty() && currentThemeName != null;
     }
     
     /**
-     * Get current theme colors map
+     * Get current theme colors map, an unmodifiable snapshot of the current palette
      */
     public Map<String, Integer> getCurrentColors() {
-        return new HashMap<>(currentColors);
+        return palette.toMap();
     }
     
     /**
-     * Add a theme change listener
+     * Add a theme change listener. It is held weakly, so keep a reference to it for as long as it
+     * should be called, and remove it when done; it is called on the main thread. BaseThemedActivity
+     * and BaseThemedFragment register one for their lifetime and view lifetime.
      */
     public void addThemeChangeListener(ThemeChangeListener listener) {
-        if (listener != null && !themeChangeListeners.contains(listener)) {
-            themeChangeListeners.add(listener);
+        if (listener == null) {
+            return;
+        }
+        // Check and add as one step, so concurrent adds cannot register a listener twice
+        synchronized (themeChangeListeners) {
+            for (WeakReference<ThemeChangeListener> ref : themeChangeListeners) {
+                if (ref.get() == listener) {
+                    return;
+                }
+            }
+            themeChangeListeners.add(new WeakReference<>(listener));
         }
     }
     
@@ -436,21 +388,44 @@ public class ThemeManager {
      */
     public void removeThemeChangeListener(ThemeChangeListener listener) {
         if (listener != null) {
-            themeChangeListeners.remove(listener);
+            themeChangeListeners.removeIf(ref -> {
+                ThemeChangeListener registered = ref.get();
+                return registered == null || registered == listener;
+            });
         }
     }
     
     /**
-     * Notify all listeners of theme change
+     * Notify all listeners of theme change on the main thread. Changes made before the dispatch
+     * runs are batched into it, and listeners only hear about the latest theme.
      */
     private void notifyThemeChanged(String themeName) {
-        for (ThemeChangeListener listener : themeChangeListeners) {
+        if (pendingNotification.getAndSet(themeName) == null) {
+            mainHandler.post(this::dispatchThemeChanged);
+        }
+    }
+    
+    private void dispatchThemeChanged() {
+        String themeName = pendingNotification.getAndSet(null);
+        if (themeName == null) {
+            return;
+        }
+        boolean collected = false;
+        for (WeakReference<ThemeChangeListener> ref : themeChangeListeners) {
+            ThemeChangeListener listener = ref.get();
+            if (listener == null) {
+                collected = true;
+                continue;
+            }
             try {
                 listener.onThemeChanged(themeName);
             } catch (Exception e) {
                 Log.e(TAG, "Error notifying theme change listener", e);
             }
         }
+        if (collected) {
+            themeChangeListeners.removeIf(ref -> ref.get() == null);
+        }
     }
     
     /**
@@ -471,57 +446,18 @@ public class ThemeManager {
     }
 
     /**
-     * Get toggle color by type
+     * Get toggle color by type ("track", "thumbChecked", ...); prefer getColor(ColorRole.TOGGLE_*)
      */
     public int getToggleColor(String colorType) {
-        try {
-            // Check if toggle colors are available in the current theme
-            if (hasToggleColors()) {
-                String toggleKey = "toggle_" + colorType;
-                if (currentColors.containsKey(toggleKey)) {
-                    return currentColors.get(toggleKey);
-                }
-            }
-            // Fallback to default toggle colors
-            return getDefaultToggleColor(colorType);
-        } catch (Exception e) {
-            return getDefaultToggleColor(colorType);
-        }
-    }
-    
-    /**
-     * Get default toggle color if theme doesn't specify it
-     */
-    private int getDefaultToggleColor(String colorType) {
-        switch (colorType) {
-            case "track":
-                return Color.parseColor("#2A2A2A");
-            case "trackChecked":
-                return Color.parseColor("#4CAF50");
-            case "thumb":
-                return Color.parseColor("#FFFFFF");
-            case "thumbChecked":
-                return Color.parseColor("#000000");
-            case "ripple":
-                return Color.parseColor("#4CAF50");
-            default:
-                return Color.parseColor("#2A2A2A");
-        }
+        ColorRole role = ColorRole.fromKey(ColorRole.TOGGLE_PREFIX + colorType);
+        // Roles the theme leaves out already hold the default toggle colors
+        return role != null ? palette.get(role) : ColorRole.TOGGLE_TRACK.defaultColor;
     }
     
     /**
      * Check if toggle colors are available in current theme
      */
     public boolean hasToggleColors() {
-        try {
-            // Check if any toggle colors exist in the current theme
-            return currentColors.containsKey("toggle_track") || 
-                   currentColors.containsKey("toggle_trackChecked") ||
-                   currentColors.containsKey("toggle_thumb") ||
-                   currentColors.containsKey("toggle_thumbChecked") ||
-                   currentColors.containsKey("toggle_ripple");
-        } catch (Exception e) {
-            return false;
-        }
+        return palette.hasToggleColors();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package com.origin.launcher;
+
+import android.graphics.Color;
+import android.util.Log;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A theme's colors compiled into an int array indexed by ColorRole, built once when the theme is
+ * loaded and never changed afterwards. Roles the theme leaves out hold their default color, so a
+ * lookup never misses, parses or boxes.
+ */
+public final class ThemePalette {
+    private static final String TAG = "ThemePalette";
+
+    private static final long TOGGLE_MASK = toggleMask();
+
+    /** No theme loaded: every role at its default, none defined */
+    static final ThemePalette EMPTY = new ThemePalette(defaultColors(), 0);
+
+    private final int[] colors;
+    // Bit i set if the theme defines role i itself
+    private final long defined;
+    private volatile Map<String, Integer> map;
+
+    private ThemePalette(int[] colors, long defined) {
+        this.colors = colors;
+        this.defined = defined;
+    }
+
+    /**
+     * Stream a theme file and compile its "colors" object, skipping everything else. Malformed
+     * colors are skipped, as are toggle colors entirely if "toggle" is not an object.
+     */
+    static ThemePalette read(JsonReader reader) throws IOException {
+        ThemePalette palette = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("colors".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                palette = readColors(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (palette == null) {
+            throw new IOException("No colors object in theme");
+        }
+        return palette;
+    }
+
+    private static ThemePalette readColors(JsonReader reader) throws IOException {
+        Builder builder = new Builder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (!"toggle".equals(key)) {
+                readColor(reader, ColorRole.fromKey(key), false, builder);
+            } else if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    readColor(reader, ColorRole.fromKey(ColorRole.TOGGLE_PREFIX + reader.nextName()), true, builder);
+                }
+                reader.endObject();
+            } else {
+                Log.w(TAG, "Error parsing toggle colors, using defaults");
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return builder.build();
+    }
+
+    /**
+     * Give the next value to builder if it is a color value for role, else skip it
+     */
+    private static void readColor(JsonReader reader, ColorRole role, boolean toggle, Builder builder) throws IOException {
+        JsonToken token = reader.peek();
+        // Toggle roles only count inside "toggle", the others only outside it
+        if (role == null || role.isToggle() != toggle || (token != JsonToken.STRING && token != JsonToken.NUMBER)) {
+            reader.skipValue();
+            return;
+        }
+        builder.set(role, reader.nextString());
+    }
+
+    /**
+     * Compiles a palette one role at a time, starting from the defaults; read() feeds it from JSON
+     */
+    static final class Builder {
+        private final int[] colors = defaultColors();
+        private long defined;
+
+        /** Set role to value and count it as defined if value is a valid color; returns whether it was */
+        boolean set(ColorRole role, String value) {
+            try {
+                colors[role.ordinal()] = parseColor(value);
+                defined |= 1L << role.ordinal();
+                return true;
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Ignoring invalid color " + role.key, e);
+                return false;
+            }
+        }
+
+        ThemePalette build() {
+            return new ThemePalette(colors.clone(), defined);
+        }
+    }
+
+    /**
+     * Color.parseColor with its #RRGGBB and #AARRGGBB handling done here, so palettes also compile
+     * off Android; names such as "red" still go to Color
+     */
+    static int parseColor(String value) {
+        if (value.isEmpty() || value.charAt(0) != '#') {
+            return Color.parseColor(value);
+        }
+        long color = Long.parseLong(value.substring(1), 16);
+        if (value.length() == 7) {
+            color |= 0x00000000ff000000L;
+        } else if (value.length() != 9) {
+            throw new IllegalArgumentException("Unknown color");
+        }
+        return (int) color;
+    }
+
+    /**
+     * The built-in colors, with every non-toggle role counted as defined
+     */
+    static ThemePalette fallback() {
+        return new ThemePalette(defaultColors(), ((1L << ColorRole.count()) - 1) & ~TOGGLE_MASK);
+    }
+
+    public int get(ColorRole role) {
+        return colors[role.ordinal()];
+    }
+
+    /** Whether the theme sets role itself rather than relying on its default */
+    public boolean isDefined(ColorRole role) {
+        return (defined & (1L << role.ordinal())) != 0;
+    }
+
+    public boolean isEmpty() {
+        return defined == 0;
+    }
+
+    public boolean hasToggleColors() {
+        return (defined & TOGGLE_MASK) != 0;
+    }
+
+    /**
+     * Mask of the roles whose color, or whether the theme defines them, differs in other
+     */
+    long diff(ThemePalette other) {
+        long changed = defined ^ other.defined;
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i] != other.colors[i]) {
+                changed |= 1L << i;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * The colors the theme defines, keyed by ColorRole.key; unmodifiable, and built only once
+     */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> result = map;
+        if (result == null) {
+            Map<String, Integer> built = new HashMap<>();
+            for (int i = 0; i < colors.length; i++) {
+                if ((defined & (1L << i)) != 0) {
+                    built.put(ColorRole.fromOrdinal(i).key, colors[i]);
+                }
+            }
+            // Threads racing here build equal maps, so whichever is kept does not matter
+            map = result = Collections.unmodifiableMap(built);
+        }
+        return result;
+    }
+
+    private static long toggleMask() {
+        long mask = 0;
+        for (int i = 0; i < ColorRole.count(); i++) {
+            if (ColorRole.fromOrdinal(i).isToggle()) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    private static int[] defaultColors() {
+        int[] colors = new int[ColorRole.count()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = ColorRole.fromOrdinal(i).defaultColor;
+        }
+        return colors;
+    }
+}
@@ -0,0 +1,193 @@
+package com.origin.launcher;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.RippleDrawable;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ColorStateLists, ripple colors and ripple drawables ThemeUtils hands out, built from one
+ * palette on first use and shared by every view after that. ColorStateLists are immutable and are
+ * shared as they are; drawables keep per-view state, so each view gets a new drawable from a shared
+ * ConstantState. ThemeManager replaces the cache whenever the palette changes.
+ */
+final class ThemeStyleCache {
+    private static final int[][] ENABLED_STATES = {
+        {android.R.attr.state_enabled},
+        {-android.R.attr.state_enabled}
+    };
+    private static final int[][] CHECKED_STATES = {
+        {android.R.attr.state_checked},
+        {-android.R.attr.state_checked}
+    };
+    private static final int[][] SELECTED_STATES = {
+        {android.R.attr.state_selected},
+        {-android.R.attr.state_selected}
+    };
+
+    /** Kinds of UI element, each with its own ripple blend */
+    enum RippleKind {
+        BUTTON("button"), CARD("card"), SWITCH("switch");
+
+        final String elementType;
+
+        RippleKind(String elementType) {
+            this.elementType = elementType;
+        }
+
+        /** Kind for the element type names ThemeUtils takes; unknown names ripple like buttons */
+        static RippleKind of(String elementType) {
+            if ("card".equals(elementType)) return CARD;
+            if ("switch".equals(elementType)) return SWITCH;
+            return BUTTON;
+        }
+    }
+
+    /** Which state a two-color list switches on; the first color is for the state being set */
+    enum StateKind {
+        ENABLED(ENABLED_STATES), CHECKED(CHECKED_STATES), SELECTED(SELECTED_STATES);
+
+        final int[][] states;
+
+        StateKind(int[][] states) {
+            this.states = states;
+        }
+    }
+
+    // Objects built because they were not cached yet, and lookups the cache answered, across all caches
+    private static final AtomicLong created = new AtomicLong();
+    private static final AtomicLong reused = new AtomicLong();
+
+    private final ThemePalette palette;
+    private final int roleCount = ColorRole.count();
+    private final int[] rippleColors = new int[roleCount * RippleKind.values().length];
+    private final boolean[] hasRippleColor = new boolean[rippleColors.length];
+    private final ColorStateList[] rippleLists = new ColorStateList[rippleColors.length];
+    private final ColorStateList[] solidLists = new ColorStateList[roleCount];
+    // Indexed by StateKind, then by first role * roleCount + second role; allocated on first use
+    private final ColorStateList[][] stateLists = new ColorStateList[StateKind.values().length][];
+    private final Drawable.ConstantState[] cardRipples = new Drawable.ConstantState[roleCount];
+    private final Drawable.ConstantState[] circularRipples = new Drawable.ConstantState[roleCount];
+
+    ThemeStyleCache(ThemePalette palette) {
+        this.palette = palette;
+    }
+
+    /**
+     * Ripple color for role blended for kind of element
+     */
+    synchronized int rippleColor(ColorRole role, RippleKind kind) {
+        int index = rippleIndex(role, kind);
+        if (hasRippleColor[index]) {
+            reused.incrementAndGet();
+            return rippleColors[index];
+        }
+        return blendRippleColor(index, role, kind);
+    }
+
+    /** rippleColor(role, kind) as a ColorStateList */
+    synchronized ColorStateList rippleList(ColorRole role, RippleKind kind) {
+        int index = rippleIndex(role, kind);
+        ColorStateList list = rippleLists[index];
+        if (list != null) {
+            reused.incrementAndGet();
+            return list;
+        }
+        int color = hasRippleColor[index] ? rippleColors[index] : blendRippleColor(index, role, kind);
+        list = ColorStateList.valueOf(color);
+        created.incrementAndGet();
+        return rippleLists[index] = list;
+    }
+
+    /** The color of role in every state */
+    synchronized ColorStateList solid(ColorRole role) {
+        ColorStateList list = solidLists[role.ordinal()];
+        if (list != null) {
+            reused.incrementAndGet();
+            return list;
+        }
+        list = ColorStateList.valueOf(palette.get(role));
+        created.incrementAndGet();
+        return solidLists[role.ordinal()] = list;
+    }
+
+    /**
+     * List that shows on while the state of kind is set and off otherwise
+     */
+    synchronized ColorStateList stateList(StateKind kind, ColorRole on, ColorRole off) {
+        ColorStateList[] lists = stateLists[kind.ordinal()];
+        if (lists == null) {
+            lists = stateLists[kind.ordinal()] = new ColorStateList[roleCount * roleCount];
+        }
+        int index = on.ordinal() * roleCount + off.ordinal();
+        ColorStateList list = lists[index];
+        if (list != null) {
+            reused.incrementAndGet();
+            return list;
+        }
+        list = new ColorStateList(kind.states, new int[]{palette.get(on), palette.get(off)});
+        created.incrementAndGet();
+        return lists[index] = list;
+    }
+
+    /**
+     * Unbounded card ripple in role's card blend, as used for card foregrounds; a new drawable per call
+     */
+    synchronized RippleDrawable cardRipple(ColorRole role) {
+        Drawable.ConstantState state = cardRipples[role.ordinal()];
+        if (state == null) {
+            ColorStateList color = rippleLists[rippleIndex(role, RippleKind.CARD)];
+            RippleDrawable ripple = new RippleDrawable(
+                    color != null ? color : rippleList(role, RippleKind.CARD), null, null);
+            created.incrementAndGet();
+            cardRipples[role.ordinal()] = ripple.getConstantState();
+            return ripple;
+        }
+        reused.incrementAndGet();
+        return (RippleDrawable) state.newDrawable();
+    }
+
+    /**
+     * Ripple masked to a circle in role's button blend; a new drawable per call
+     */
+    synchronized RippleDrawable circularRipple(ColorRole role) {
+        Drawable.ConstantState state = circularRipples[role.ordinal()];
+        if (state == null) {
+            int index = rippleIndex(role, RippleKind.BUTTON);
+            int color = hasRippleColor[index] ? rippleColors[index] : blendRippleColor(index, role, RippleKind.BUTTON);
+            RippleDrawable ripple = ThemeUtils.createCircularRipple(color);
+            created.incrementAndGet();
+            circularRipples[role.ordinal()] = ripple.getConstantState();
+            return ripple;
+        }
+        reused.incrementAndGet();
+        return (RippleDrawable) state.newDrawable();
+    }
+
+    /** Objects built so far by all caches; sample before and after a screen to see what it allocated */
+    static long getCreatedCount() {
+        return created.get();
+    }
+
+    /** Lookups all caches answered without building anything */
+    static long getReusedCount() {
+        return reused.get();
+    }
+
+    static String describeCounts() {
+        return String.format(Locale.ROOT, "%d theme objects created, %d reused", created.get(), reused.get());
+    }
+
+    private int blendRippleColor(int index, ColorRole role, RippleKind kind) {
+        rippleColors[index] = ThemeUtils.createOptimizedRippleColor(palette.get(role), kind.elementType);
+        hasRippleColor[index] = true;
+        created.incrementAndGet();
+        return rippleColors[index];
+    }
+
+    private int rippleIndex(ColorRole role, RippleKind kind) {
+        return kind.ordinal() * roleCount + role.ordinal();
+    }
+}
@@ -22,6 +22,8 @@ import android.animation.ArgbEvaluator;
 import com.google.android.material.tabs.TabLayout;
 
 public class ThemeUtils {
+    // Immutable, so one instance serves every transparent button
+    private static final ColorStateList TRANSPARENT_LIST = ColorStateList.valueOf(Color.TRANSPARENT);
     
     /**
      * Ensure corner radius is preserved on a MaterialCardView
@@ -43,21 +45,16 @@ public class ThemeUtils {
             ThemeManager themeManager = ThemeManager.getInstance();
             
             if (themeManager != null && themeManager.isThemeLoaded()) {
-                card.setCardBackgroundColor(themeManager.getColor("surface"));
-                card.setStrokeColor(themeManager.getColor("outline"));
+                card.setCardBackgroundColor(themeManager.getColor(ColorRole.SURFACE));
+                card.setStrokeColor(themeManager.getColor(ColorRole.OUTLINE));
                 card.setStrokeWidth((int) (1 * context.getResources().getDisplayMetrics().density)); // 1dp stroke
                 card.setCardElevation(0f); // Remove elevation for flat design
                 
                 // DO NOT override corner radius - preserve existing value
                 // card.setRadius(12 * context.getResources().getDisplayMetrics().density);
                 
-                // Create ripple effect with theme colors
-                RippleDrawable ripple = new RippleDrawable(
-                    ColorStateList.valueOf(createOptimizedRippleColor("onSurface", "card")),
-                    null,
-                    null
-                );
-                card.setForeground(ripple);
+                // Ripple effect with theme colors, sharing its state with the other cards
+                card.setForeground(themeManager.getStyleCache().cardRipple(ColorRole.ON_SURFACE));
             } else {
                 // Fallback to default colors if theme not ready
                 card.setCardBackgroundColor(Color.parseColor("#141414"));
@@ -85,19 +82,15 @@ public class ThemeUtils {
      */
     public static void applyThemeToButton(MaterialButton button, Context context) {
         ThemeManager themeManager = ThemeManager.getInstance();
+        ThemeStyleCache styles = themeManager.getStyleCache();
         
         // Determine button type and apply appropriate styling
         String buttonType = determineButtonType(button);
         
-        // Create lighter ripple colors for better visibility
-        int lightRippleColor = createOptimizedRippleColor("primary", "button");
-        int lightSurfaceRippleColor = createOptimizedRippleColor("surfaceVariant", "button");
-        int lightOutlineRippleColor = createOptimizedRippleColor("outline", "button");
-        
         switch (buttonType) {
             case "outlined":
                 // Outlined button: transparent background, colored border and text
-                button.setBackgroundTintList(ColorStateList.valueOf(android.graphics.Color.TRANSPARENT));
+                button.setBackgroundTintList(TRANSPARENT_LIST);
                 
                 // Check if this is an export/import button and use primary color for better visibility
                 String resourceName = "";
@@ -109,19 +102,20 @@ public class ThemeUtils {
                 
                 if (resourceName.contains("import") || resourceName.contains("export")) {
                     // Export/Import buttons use primary color for better visibility
-                    button.setTextColor(themeManager.getColor("primary"));
+                    button.setTextColor(themeManager.getColor(ColorRole.PRIMARY));
                 } else {
                     // Other outlined buttons use onSurface
-                    button.setTextColor(themeManager.getColor("onSurface"));
+                    button.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
                 }
                 
-                button.setStrokeColor(ColorStateList.valueOf(themeManager.getColor("outline")));
+                button.setStrokeColor(styles.solid(ColorRole.OUTLINE));
                 button.setStrokeWidth((int) (1 * context.getResources().getDisplayMetrics().density));
-                button.setRippleColor(ColorStateList.valueOf(lightOutlineRippleColor));
+                // Lighter ripple colors for better visibility
+                button.setRippleColor(styles.rippleList(ColorRole.OUTLINE, ThemeStyleCache.RippleKind.BUTTON));
                 break;
             case "text":
                 // Text button: transparent background, colored text only
-                button.setBackgroundTintList(ColorStateList.valueOf(android.graphics.Color.TRANSPARENT));
+                button.setBackgroundTintList(TRANSPARENT_LIST);
                 
                 // Check if this is an export/import button and use primary color for better visibility
                 String textResourceName = "";
@@ -133,21 +127,21 @@ public class ThemeUtils {
                 
                 if (textResourceName.contains("import") || textResourceName.contains("export")) {
                     // Export/Import buttons use primary color for better visibility
-                    button.setTextColor(themeManager.getColor("primary"));
+                    button.setTextColor(themeManager.getColor(ColorRole.PRIMARY));
                 } else {
                     // Other text buttons use onSurface
-                    button.setTextColor(themeManager.getColor("onSurface"));
+                    button.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
                 }
                 
-                button.setRippleColor(ColorStateList.valueOf(lightRippleColor));
+                button.setRippleColor(styles.rippleList(ColorRole.PRIMARY, ThemeStyleCache.RippleKind.BUTTON));
                 break;
             case "filled":
             default:
                 // Filled button: colored background, contrasting text
-                ColorStateList enabledStates = getThemedColorStateList("primary", "surfaceVariant");
+                ColorStateList enabledStates = getThemedColorStateList(ColorRole.PRIMARY, ColorRole.SURFACE_VARIANT);
                 button.setBackgroundTintList(enabledStates);
-                button.setTextColor(themeManager.getColor("onPrimary"));
-                button.setRippleColor(ColorStateList.valueOf(lightSurfaceRippleColor));
+                button.setTextColor(themeManager.getColor(ColorRole.ON_PRIMARY));
+                button.setRippleColor(styles.rippleList(ColorRole.SURFACE_VARIANT, ThemeStyleCache.RippleKind.BUTTON));
                 break;
         }
     }
@@ -195,27 +189,29 @@ public class ThemeUtils {
      * Apply theme colors to a TextView
      */
     public static void applyThemeToTextView(TextView textView, String colorType) {
+        ColorRole role = ColorRole.fromKey(colorType);
+        if (role != null) {
+            applyThemeToTextView(textView, role);
+        } else {
+            textView.setTextColor(Color.WHITE);
+        }
+    }
+    
+    /**
+     * Apply theme colors to a TextView
+     */
+    public static void applyThemeToTextView(TextView textView, ColorRole role) {
         try {
             ThemeManager themeManager = ThemeManager.getInstance();
             if (themeManager != null && themeManager.isThemeLoaded()) {
-                textView.setTextColor(themeManager.getColor(colorType));
+                textView.setTextColor(themeManager.getColor(role));
             } else {
                 // Fallback to default colors if theme not ready
-                switch (colorType) {
-                    case "onSurface":
-                        textView.setTextColor(Color.parseColor("#FFFFFF"));
-                        break;
-                    case "onSurfaceVariant":
-                        textView.setTextColor(Color.parseColor("#CCCCCC"));
-                        break;
-                    default:
-                        textView.setTextColor(Color.parseColor("#FFFFFF"));
-                        break;
-                }
+                textView.setTextColor(role == ColorRole.ON_SURFACE_VARIANT ? ColorRole.ON_SURFACE_VARIANT.defaultColor : Color.WHITE);
             }
         } catch (Exception e) {
             // Fallback to default colors on error
-            textView.setTextColor(Color.parseColor("#FFFFFF"));
+            textView.setTextColor(Color.WHITE);
         }
     }
     
@@ -223,33 +219,35 @@ public class ThemeUtils {
      * Apply theme colors to a MaterialRadioButton
      */
     public static void applyThemeToRadioButton(MaterialRadioButton radioButton, Context context) {
-        ThemeManager themeManager = ThemeManager.getInstance();
-        
-        ColorStateList colorStateList = new ColorStateList(
-            new int[][]{
-                new int[]{android.R.attr.state_checked},
-                new int[]{-android.R.attr.state_checked}
-            },
-            new int[]{
-                themeManager.getColor("primary"),
-                themeManager.getColor("onSurfaceVariant")
-            }
-        );
-        radioButton.setButtonTintList(colorStateList);
+        radioButton.setButtonTintList(ThemeManager.getInstance().getStyleCache().stateList(
+                ThemeStyleCache.StateKind.CHECKED, ColorRole.PRIMARY, ColorRole.ON_SURFACE_VARIANT));
     }
     
     /**
      * Create a circular ripple drawable with theme colors
      */
     public static RippleDrawable createCircularRipple(String colorName) {
-        ThemeManager themeManager = ThemeManager.getInstance();
-        
+        ColorRole role = ColorRole.fromKey(colorName);
+        if (role != null) {
+            return createCircularRipple(role);
+        }
+        return createCircularRipple(createOptimizedRippleColor(colorName, "button"));
+    }
+    
+    /**
+     * Create a circular ripple drawable with theme colors
+     */
+    public static RippleDrawable createCircularRipple(ColorRole role) {
+        return ThemeManager.getInstance().getStyleCache().circularRipple(role);
+    }
+    
+    static RippleDrawable createCircularRipple(int rippleColor) {
         GradientDrawable circle = new GradientDrawable();
         circle.setShape(GradientDrawable.OVAL);
         circle.setColor(android.graphics.Color.TRANSPARENT);
         
         return new RippleDrawable(
-            ColorStateList.valueOf(createOptimizedRippleColor(colorName, "button")),
+            ColorStateList.valueOf(rippleColor),
             null,
             circle
         );
@@ -263,20 +261,43 @@ public class ThemeUtils {
         view.setBackgroundColor(themeManager.getColor(colorName));
     }
     
+    /**
+     * Apply theme background to a view
+     */
+    public static void applyThemeBackground(View view, ColorRole role) {
+        view.setBackgroundColor(ThemeManager.getInstance().getColor(role));
+    }
+    
     /**
      * Get themed color state list for various states
      */
     public static ColorStateList getThemedColorStateList(String enabledColor, String disabledColor) {
+        ColorRole enabledRole = ColorRole.fromKey(enabledColor);
+        ColorRole disabledRole = ColorRole.fromKey(disabledColor);
+        if (enabledRole != null && disabledRole != null) {
+            return getThemedColorStateList(enabledRole, disabledRole);
+        }
         ThemeManager themeManager = ThemeManager.getInstance();
-        
+        return createEnabledColorStateList(themeManager.getColor(enabledColor), themeManager.getColor(disabledColor));
+    }
+    
+    /**
+     * Get themed color state list for various states
+     */
+    public static ColorStateList getThemedColorStateList(ColorRole enabledColor, ColorRole disabledColor) {
+        return ThemeManager.getInstance().getStyleCache().stateList(
+                ThemeStyleCache.StateKind.ENABLED, enabledColor, disabledColor);
+    }
+    
+    private static ColorStateList createEnabledColorStateList(int enabledColor, int disabledColor) {
         return new ColorStateList(
             new int[][]{
                 new int[]{android.R.attr.state_enabled},
                 new int[]{-android.R.attr.state_enabled}
             },
             new int[]{
-                themeManager.getColor(enabledColor),
-                themeManager.getColor(disabledColor)
+                enabledColor,
+                disabledColor
             }
         );
     }
@@ -285,89 +306,224 @@ public class ThemeUtils {
      * Apply theme to the root view (typically the activity's main layout)
      */
     public static void applyThemeToRootView(View rootView) {
-        ThemeManager themeManager = ThemeManager.getInstance();
-        rootView.setBackgroundColor(themeManager.getColor("background"));
+        applyThemeToRootView(rootView, false);
+    }
+    
+    /**
+     * Apply theme to the root view and everything below it. Views remember the theme generation they
+     * were themed at, so views that are up to date, or only use roles the last theme change left
+     * alone, are skipped; a pass with no theme change in between only reads tags. With styleCards,
+     * cards get the full applyThemeToCard treatment (ripple, flat elevation) instead of just colors.
+     */
+    public static void applyThemeToRootView(View rootView, boolean styleCards) {
+        applyThemeToViewHierarchy(rootView, new ThemePass(ThemeManager.getInstance(), rootView, styleCards));
+    }
+    
+    /**
+     * The kinds of view the hierarchy walk themes, with the roles each one's colors come from
+     */
+    private enum ThemedKind {
+        NONE(0),
+        CARD(ColorRole.mask(ColorRole.SURFACE, ColorRole.OUTLINE, ColorRole.ON_SURFACE)),
+        BUTTON(ColorRole.mask(ColorRole.PRIMARY, ColorRole.ON_PRIMARY, ColorRole.ON_SURFACE,
+                ColorRole.OUTLINE, ColorRole.SURFACE_VARIANT)),
+        RADIO_BUTTON(ColorRole.mask(ColorRole.PRIMARY, ColorRole.ON_SURFACE_VARIANT)),
+        BOTTOM_NAVIGATION(ColorRole.mask(ColorRole.BOTTOM_NAVIGATION, ColorRole.SURFACE, ColorRole.PRIMARY,
+                ColorRole.ON_SURFACE_VARIANT)),
+        TAB_LAYOUT(ColorRole.mask(ColorRole.BACKGROUND, ColorRole.PRIMARY, ColorRole.ON_SURFACE_VARIANT)),
+        TEXT_INPUT_LAYOUT(ColorRole.mask(ColorRole.SURFACE_VARIANT, ColorRole.ON_SURFACE_VARIANT,
+                ColorRole.OUTLINE, ColorRole.ON_SURFACE)),
+        EDIT_TEXT(ColorRole.mask(ColorRole.ON_SURFACE, ColorRole.ON_SURFACE_VARIANT, ColorRole.OUTLINE)),
+        TEXT_VIEW(ColorRole.mask(ColorRole.ON_SURFACE, ColorRole.ON_SURFACE_VARIANT));
+        
+        final long roles;
+        
+        ThemedKind(long roles) {
+            this.roles = roles;
+        }
+        
+        static ThemedKind of(View view) {
+            if (view instanceof MaterialCardView) return CARD;
+            if (view instanceof MaterialButton) return BUTTON;
+            if (view instanceof MaterialRadioButton) return RADIO_BUTTON;
+            if (view instanceof com.google.android.material.bottomnavigation.BottomNavigationView) return BOTTOM_NAVIGATION;
+            if (view instanceof TabLayout) return TAB_LAYOUT;
+            if (view instanceof TextInputLayout) return TEXT_INPUT_LAYOUT;
+            if (view instanceof EditText && !(view instanceof TextInputEditText)) return EDIT_TEXT;
+            if (view instanceof TextView) return TEXT_VIEW;
+            // Removed automatic ImageView theming to preserve custom styling
+            return NONE;
+        }
+    }
+    
+    /**
+     * State of one hierarchy walk
+     */
+    private static final class ThemePass {
+        private static final long ROOT_ROLES = ColorRole.mask(ColorRole.BACKGROUND);
+        
+        final ThemeManager themeManager;
+        final View root;
+        final boolean styleCards;
+        final int generation;
+        final Integer generationTag;
+        // Views in one tree were mostly themed at the same generation; remember the last answer
+        private int lastThemedAt = -1;
+        private long lastChanged;
+        
+        ThemePass(ThemeManager themeManager, View root, boolean styleCards) {
+            this.themeManager = themeManager;
+            this.root = root;
+            this.styleCards = styleCards;
+            this.generation = themeManager.getGeneration();
+            this.generationTag = generation;
+        }
         
-        // Recursively apply themes to common view types
-        applyThemeToViewHierarchy(rootView);
+        long rolesOf(View view, ThemedKind kind) {
+            return view == root ? kind.roles | ROOT_ROLES : kind.roles;
+        }
+        
+        /** Whether view was themed before, at any generation */
+        boolean wasThemed(View view) {
+            return view.getTag(R.id.theme_generation) instanceof Integer;
+        }
+        
+        boolean needsTheme(View view, long roles) {
+            Object tag = view.getTag(R.id.theme_generation);
+            if (!(tag instanceof Integer)) {
+                return true;
+            }
+            int themedAt = (Integer) tag;
+            if (themedAt == generation) {
+                return false;
+            }
+            if (themedAt != lastThemedAt) {
+                lastThemedAt = themedAt;
+                lastChanged = themeManager.changedSince(themedAt);
+            }
+            if ((lastChanged & roles) != 0) {
+                return true;
+            }
+            // None of its colors changed, so it is as good as themed now
+            markThemed(view);
+            return false;
+        }
+        
+        void markThemed(View view) {
+            view.setTag(R.id.theme_generation, generationTag);
+        }
     }
     
     /**
-     * Recursively apply theme to all views in the hierarchy
+     * Recursively apply theme to all views in the hierarchy that need it
      */
-    private static void applyThemeToViewHierarchy(View view) {
+    private static void applyThemeToViewHierarchy(View view, ThemePass pass) {
         if (view instanceof android.view.ViewGroup) {
             android.view.ViewGroup viewGroup = (android.view.ViewGroup) view;
             for (int i = 0; i < viewGroup.getChildCount(); i++) {
                 View child = viewGroup.getChildAt(i);
-                applyThemeToViewHierarchy(child);
+                applyThemeToViewHierarchy(child, pass);
             }
         }
         
-        // Apply theme to specific view types more selectively
-        if (view instanceof MaterialCardView) {
-            MaterialCardView card = (MaterialCardView) view;
-            // Always update colors, but preserve stroke width if already set
-            ThemeManager themeManager = ThemeManager.getInstance();
-            card.setCardBackgroundColor(themeManager.getColor("surface"));
-            card.setStrokeColor(themeManager.getColor("outline"));
-            // Only set stroke width if it's currently 0 (not manually set)
-            if (card.getStrokeWidth() == 0) {
-                card.setStrokeWidth((int) (1 * view.getContext().getResources().getDisplayMetrics().density));
-            }
-        } else if (view instanceof MaterialButton) {
-            // Always apply theming to override hardcoded colors from XML
-            MaterialButton button = (MaterialButton) view;
-            applyThemeToButton(button, view.getContext());
-        } else if (view instanceof MaterialRadioButton) {
-            applyThemeToRadioButton((MaterialRadioButton) view, view.getContext());
-        } else if (view instanceof com.google.android.material.bottomnavigation.BottomNavigationView) {
-            applyThemeToBottomNavigation(view);
-        } else if (view instanceof TabLayout) {
-            applyThemeToTabLayout((TabLayout) view);
-        } else if (view instanceof TextInputLayout) {
-            applyThemeToTextInputLayout((TextInputLayout) view);
-        } else if (view instanceof EditText && !(view instanceof TextInputEditText)) {
-            // Only theme EditTexts that don't have custom styling
-            EditText editText = (EditText) view;
-            if (editText.getBackground() == null || editText.getCurrentTextColor() == android.graphics.Color.BLACK) {
-                applyThemeToEditText(editText);
-            }
-        } else if (view instanceof TextView) {
-            // Apply theme to TextViews when they still have default colors
-            TextView textView = (TextView) view;
-            applyThemeToTextViewIfDefault(textView);
+        ThemedKind kind = ThemedKind.of(view);
+        long roles = pass.rolesOf(view, kind);
+        if (roles == 0 || !pass.needsTheme(view, roles)) {
+            return;
+        }
+        boolean themed = applyThemeToView(view, kind, pass);
+        if (view == pass.root) {
+            view.setBackgroundColor(pass.themeManager.getColor(ColorRole.BACKGROUND));
+            themed = true;
+        }
+        if (themed) {
+            pass.markThemed(view);
+        }
+    }
+    
+    /**
+     * Theme one view according to its kind; returns false if the view was left alone
+     */
+    private static boolean applyThemeToView(View view, ThemedKind kind, ThemePass pass) {
+        ThemeManager themeManager = pass.themeManager;
+        switch (kind) {
+            case CARD:
+                MaterialCardView card = (MaterialCardView) view;
+                if (pass.styleCards) {
+                    applyThemeToCard(card, view.getContext());
+                    return true;
+                }
+                // Always update colors, but preserve stroke width if already set
+                card.setCardBackgroundColor(themeManager.getColor(ColorRole.SURFACE));
+                card.setStrokeColor(themeManager.getColor(ColorRole.OUTLINE));
+                // Only set stroke width if it's currently 0 (not manually set)
+                if (card.getStrokeWidth() == 0) {
+                    card.setStrokeWidth((int) (1 * view.getContext().getResources().getDisplayMetrics().density));
+                }
+                return true;
+            case BUTTON:
+                // Always apply theming to override hardcoded colors from XML
+                applyThemeToButton((MaterialButton) view, view.getContext());
+                return true;
+            case RADIO_BUTTON:
+                applyThemeToRadioButton((MaterialRadioButton) view, view.getContext());
+                return true;
+            case BOTTOM_NAVIGATION:
+                applyThemeToBottomNavigation(view);
+                return true;
+            case TAB_LAYOUT:
+                applyThemeToTabLayout((TabLayout) view);
+                return true;
+            case TEXT_INPUT_LAYOUT:
+                applyThemeToTextInputLayout((TextInputLayout) view);
+                return true;
+            case EDIT_TEXT:
+                // Only theme EditTexts that don't have custom styling; once themed, ours to keep up to date
+                EditText editText = (EditText) view;
+                if (pass.wasThemed(editText) || editText.getBackground() == null
+                        || editText.getCurrentTextColor() == android.graphics.Color.BLACK) {
+                    applyThemeToEditText(editText);
+                    return true;
+                }
+                return false;
+            case TEXT_VIEW:
+                // Apply theme to TextViews when they still have default colors
+                return applyThemeToTextViewIfDefault((TextView) view, pass.wasThemed(view));
+            default:
+                return false;
         }
-        // Removed automatic ImageView theming to preserve custom styling
     }
 
     /**
      * Apply theme to TextView only if it appears to still be using default system colors,
      * to avoid overriding explicitly styled texts. Honors an opt-out via tag containing "preserveColor".
+     * A TextView we themed before no longer has a default color, so it is re-themed regardless.
      */
-    private static void applyThemeToTextViewIfDefault(TextView textView) {
+    private static boolean applyThemeToTextViewIfDefault(TextView textView, boolean themedBefore) {
         try {
             // Opt-out: if tag asks to preserve color
             Object tag = textView.getTag();
             if (tag != null) {
                 String t = tag.toString().toLowerCase();
                 if (t.contains("preservecolor") || t.contains("no-theme") || t.contains("notheme")) {
-                    return;
+                    return false;
                 }
             }
 
             int color = textView.getCurrentTextColor();
-            if (looksLikeDefaultTextColor(color)) {
+            if (themedBefore || looksLikeDefaultTextColor(color)) {
                 // Heuristic: large/bold -> primary text; otherwise secondary
                 boolean isBold = textView.getTypeface() != null && textView.getTypeface().isBold();
                 float sp = textView.getTextSize() / textView.getResources().getDisplayMetrics().scaledDensity;
                 if (isBold || sp >= 16f) {
-                    applyThemeToTextView(textView, "onSurface");
+                    applyThemeToTextView(textView, ColorRole.ON_SURFACE);
                 } else {
-                    applyThemeToTextView(textView, "onSurfaceVariant");
+                    applyThemeToTextView(textView, ColorRole.ON_SURFACE_VARIANT);
                 }
+                return true;
             }
         } catch (Exception ignored) {}
+        return false;
     }
 
     /**
@@ -398,30 +554,18 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
         
         ThemeManager themeManager = ThemeManager.getInstance();
         
-        // Try to use bottom_navigation color first, fallback to surface
-        int backgroundColor;
-        try {
-            // Check if the theme has a specific bottom_navigation color
-            backgroundColor = themeManager.getColor("bottom_navigation");
-        } catch (Exception e) {
-            // Fallback to surface color if bottom_navigation is not defined
-            backgroundColor = themeManager.getColor("surface");
-        }
+        // Use the theme's bottom_navigation color if it has one, otherwise surface
+        int backgroundColor = themeManager.getPalette().isDefined(ColorRole.BOTTOM_NAVIGATION)
+                ? themeManager.getColor(ColorRole.BOTTOM_NAVIGATION)
+                : themeManager.getColor(ColorRole.SURFACE);
         
         // Apply background color
         bottomNav.setBackgroundColor(backgroundColor);
         
-        // Create color state list for selected/unselected states
-        ColorStateList itemColorStateList = new ColorStateList(
-            new int[][]{
-                new int[]{android.R.attr.state_checked},      // Selected item
-                new int[]{-android.R.attr.state_checked}      // Unselected item
-            },
-            new int[]{
-                themeManager.getColor("primary"),              // Selected: primary color
-                themeManager.getColor("onSurfaceVariant")     // Unselected: onSurfaceVariant
-            }
-        );
+        // Selected items in primary, unselected in onSurfaceVariant
+        ThemeStyleCache styles = themeManager.getStyleCache();
+        ColorStateList itemColorStateList = styles.stateList(
+                ThemeStyleCache.StateKind.CHECKED, ColorRole.PRIMARY, ColorRole.ON_SURFACE_VARIANT);
         
         // Apply colors to both text and icons
         bottomNav.setItemTextColor(itemColorStateList);
@@ -429,8 +573,7 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
         
         // Add ripple effect for better interaction feedback
         try {
-            int rippleColor = createOptimizedRippleColor("primary", "button");
-            bottomNav.setItemRippleColor(ColorStateList.valueOf(rippleColor));
+            bottomNav.setItemRippleColor(styles.rippleList(ColorRole.PRIMARY, ThemeStyleCache.RippleKind.BUTTON));
         } catch (Exception e) {
             // Ignore ripple errors, some Android versions might not support this
         }
@@ -444,23 +587,15 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
         try {
             ThemeManager themeManager = ThemeManager.getInstance();
             // Background should match fragment background
-            tabLayout.setBackgroundColor(themeManager.getColor("background"));
+            tabLayout.setBackgroundColor(themeManager.getColor(ColorRole.BACKGROUND));
 
             // Text colors for selected/unselected
-            ColorStateList textColors = new ColorStateList(
-                new int[][]{
-                    new int[]{android.R.attr.state_selected},
-                    new int[]{-android.R.attr.state_selected}
-                },
-                new int[]{
-                    themeManager.getColor("primary"),
-                    themeManager.getColor("onSurfaceVariant")
-                }
-            );
+            ColorStateList textColors = themeManager.getStyleCache().stateList(
+                    ThemeStyleCache.StateKind.SELECTED, ColorRole.PRIMARY, ColorRole.ON_SURFACE_VARIANT);
             tabLayout.setTabTextColors(textColors);
 
             // Indicator color
-            tabLayout.setSelectedTabIndicatorColor(themeManager.getColor("primary"));
+            tabLayout.setSelectedTabIndicatorColor(themeManager.getColor(ColorRole.PRIMARY));
 
             // Also color icons in tabs if any
             tabLayout.setTabIconTint(textColors);
@@ -473,15 +608,15 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
     public static void applyThemeToTextInputLayout(TextInputLayout textInputLayout) {
         ThemeManager themeManager = ThemeManager.getInstance();
         
-        textInputLayout.setBoxBackgroundColor(themeManager.getColor("surfaceVariant"));
-        textInputLayout.setHintTextColor(getThemedColorStateList("onSurfaceVariant", "onSurfaceVariant"));
-        textInputLayout.setBoxStrokeColor(themeManager.getColor("outline"));
+        textInputLayout.setBoxBackgroundColor(themeManager.getColor(ColorRole.SURFACE_VARIANT));
+        textInputLayout.setHintTextColor(getThemedColorStateList(ColorRole.ON_SURFACE_VARIANT, ColorRole.ON_SURFACE_VARIANT));
+        textInputLayout.setBoxStrokeColor(themeManager.getColor(ColorRole.OUTLINE));
         
         // Apply theme to the EditText inside
         EditText editText = textInputLayout.getEditText();
         if (editText != null) {
-            editText.setTextColor(themeManager.getColor("onSurface"));
-            editText.setHintTextColor(themeManager.getColor("onSurfaceVariant"));
+            editText.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
+            editText.setHintTextColor(themeManager.getColor(ColorRole.ON_SURFACE_VARIANT));
         }
     }
     
@@ -490,9 +625,9 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
      */
     public static void applyThemeToEditText(EditText editText) {
         ThemeManager themeManager = ThemeManager.getInstance();
-        editText.setTextColor(themeManager.getColor("onSurface"));
-        editText.setHintTextColor(themeManager.getColor("onSurfaceVariant"));
-        editText.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor("outline")));
+        editText.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
+        editText.setHintTextColor(themeManager.getColor(ColorRole.ON_SURFACE_VARIANT));
+        editText.setBackgroundTintList(themeManager.getStyleCache().solid(ColorRole.OUTLINE));
     }
     
     /**
@@ -503,20 +638,20 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
         
         switch (colorType) {
             case "primary":
-                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor("primary")));
-                button.setTextColor(themeManager.getColor("onPrimary"));
+                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor(ColorRole.PRIMARY)));
+                button.setTextColor(themeManager.getColor(ColorRole.ON_PRIMARY));
                 break;
             case "secondary":
-                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor("secondary")));
-                button.setTextColor(themeManager.getColor("onSecondary"));
+                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor(ColorRole.SECONDARY)));
+                button.setTextColor(themeManager.getColor(ColorRole.ON_SECONDARY));
                 break;
             case "error":
-                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor("error")));
-                button.setTextColor(themeManager.getColor("onError"));
+                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor(ColorRole.ERROR)));
+                button.setTextColor(themeManager.getColor(ColorRole.ON_ERROR));
                 break;
             case "success":
-                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor("success")));
-                button.setTextColor(themeManager.getColor("onSurface"));
+                button.setBackgroundTintList(ColorStateList.valueOf(themeManager.getColor(ColorRole.SUCCESS)));
+                button.setTextColor(themeManager.getColor(ColorRole.ON_SURFACE));
                 break;
             default:
                 applyThemeToButton(button, button.getContext());
@@ -537,7 +672,7 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
             // Get the root view and apply theme
             View dialogView = dialog.findViewById(android.R.id.content);
             if (dialogView != null) {
-                dialogView.setBackgroundColor(ThemeManager.getInstance().getColor("surface"));
+                dialogView.setBackgroundColor(ThemeManager.getInstance().getColor(ColorRole.SURFACE));
             }
             
             // Apply theme to buttons
@@ -546,13 +681,13 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
             android.widget.Button neutralButton = dialog.getButton(android.content.DialogInterface.BUTTON_NEUTRAL);
             
             if (positiveButton != null) {
-                positiveButton.setTextColor(ThemeManager.getInstance().getColor("primary"));
+                positiveButton.setTextColor(ThemeManager.getInstance().getColor(ColorRole.PRIMARY));
             }
             if (negativeButton != null) {
-                negativeButton.setTextColor(ThemeManager.getInstance().getColor("onSurfaceVariant"));
+                negativeButton.setTextColor(ThemeManager.getInstance().getColor(ColorRole.ON_SURFACE_VARIANT));
             }
             if (neutralButton != null) {
-                neutralButton.setTextColor(ThemeManager.getInstance().getColor("onSurfaceVariant"));
+                neutralButton.setTextColor(ThemeManager.getInstance().getColor(ColorRole.ON_SURFACE_VARIANT));
             }
             
         } catch (Exception e) {
@@ -568,38 +703,26 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
             ThemeManager themeManager = ThemeManager.getInstance();
             if (themeManager != null && themeManager.isThemeLoaded()) {
                 // Use toggle colors if available, otherwise fall back to theme colors
-                int trackColor, trackCheckedColor, thumbColor, thumbCheckedColor;
+                ColorRole track, trackChecked, thumb, thumbChecked;
                 
                 if (themeManager.hasToggleColors()) {
                     // Use theme-specific toggle colors
-                    trackColor = themeManager.getToggleColor("track");
-                    trackCheckedColor = themeManager.getToggleColor("trackChecked");
-                    thumbColor = themeManager.getToggleColor("thumb");
-                    thumbCheckedColor = themeManager.getToggleColor("thumbChecked");
+                    track = ColorRole.TOGGLE_TRACK;
+                    trackChecked = ColorRole.TOGGLE_TRACK_CHECKED;
+                    thumb = ColorRole.TOGGLE_THUMB;
+                    thumbChecked = ColorRole.TOGGLE_THUMB_CHECKED;
                 } else {
                     // Fall back to theme colors
-                    trackColor = themeManager.getColor("surfaceVariant");
-                    trackCheckedColor = themeManager.getColor("primary");
-                    thumbColor = themeManager.getColor("onSurface");
-                    thumbCheckedColor = themeManager.getColor("onSurface");
+                    track = ColorRole.SURFACE_VARIANT;
+                    trackChecked = ColorRole.PRIMARY;
+                    thumb = ColorRole.ON_SURFACE;
+                    thumbChecked = ColorRole.ON_SURFACE;
                 }
                 
-                // Create color state lists for different states
-                ColorStateList trackColorStateList = new ColorStateList(
-                    new int[][]{
-                        new int[]{android.R.attr.state_checked},
-                        new int[]{-android.R.attr.state_checked}
-                    },
-                    new int[]{trackCheckedColor, trackColor}
-                );
-                
-                ColorStateList thumbColorStateList = new ColorStateList(
-                    new int[][]{
-                        new int[]{android.R.attr.state_checked},
-                        new int[]{-android.R.attr.state_checked}
-                    },
-                    new int[]{thumbCheckedColor, thumbColor}
-                );
+                // Color state lists for checked and unchecked, shared by all switches
+                ThemeStyleCache styles = themeManager.getStyleCache();
+                ColorStateList trackColorStateList = styles.stateList(ThemeStyleCache.StateKind.CHECKED, trackChecked, track);
+                ColorStateList thumbColorStateList = styles.stateList(ThemeStyleCache.StateKind.CHECKED, thumbChecked, thumb);
                 
                 // Apply colors to the switch
                 materialSwitch.setTrackTintList(trackColorStateList);
@@ -650,9 +773,21 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
      * Create a ripple color optimized for specific UI element types
      */
     public static int createOptimizedRippleColor(String colorName, String elementType) {
-        ThemeManager themeManager = ThemeManager.getInstance();
-        int baseColor = themeManager.getColor(colorName);
-        
+        ColorRole role = ColorRole.fromKey(colorName);
+        if (role != null) {
+            return createOptimizedRippleColor(role, elementType);
+        }
+        return createOptimizedRippleColor(ThemeManager.getInstance().getColor(colorName), elementType);
+    }
+    
+    /**
+     * Create a ripple color optimized for specific UI element types
+     */
+    public static int createOptimizedRippleColor(ColorRole role, String elementType) {
+        return ThemeManager.getInstance().getStyleCache().rippleColor(role, ThemeStyleCache.RippleKind.of(elementType));
+    }
+    
+    static int createOptimizedRippleColor(int baseColor, String elementType) {
         switch (elementType) {
             case "button":
                 // Buttons get lighter, more visible ripples
@@ -739,8 +874,8 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
                 int currentStroke = card.getStrokeColor();
                 
                 // Get target colors
-                int targetBackground = themeManager.getColor("surface");
-                int targetStroke = themeManager.getColor("outline");
+                int targetBackground = themeManager.getColor(ColorRole.SURFACE);
+                int targetStroke = themeManager.getColor(ColorRole.OUTLINE);
                 
                 // Animate background color transition
                 animateBackgroundColorTransition(card, currentBackground, targetBackground, duration);
@@ -756,13 +891,8 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
                 card.setStrokeWidth((int) (1 * context.getResources().getDisplayMetrics().density));
                 card.setCardElevation(0f);
                 
-                // Create ripple effect with theme colors
-                RippleDrawable ripple = new RippleDrawable(
-                    ColorStateList.valueOf(createOptimizedRippleColor("onSurface", "card")),
-                    null,
-                    null
-                );
-                card.setForeground(ripple);
+                // Ripple effect with theme colors, sharing its state with the other cards
+                card.setForeground(themeManager.getStyleCache().cardRipple(ColorRole.ON_SURFACE));
                 
                 // DO NOT override corner radius - preserve existing value
                 // preserveCornerRadius(card, context);
@@ -783,10 +913,7 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
             // Determine button type and apply appropriate styling
             String buttonType = determineButtonType(button);
             
-            // Create lighter ripple colors for better visibility
-            int lightRippleColor = createOptimizedRippleColor("primary", "button");
-            int lightSurfaceRippleColor = createOptimizedRippleColor("surfaceVariant", "button");
-            int lightOutlineRippleColor = createOptimizedRippleColor("outline", "button");
+            ThemeStyleCache styles = themeManager.getStyleCache();
             
             switch (buttonType) {
                 case "outlined":
@@ -798,15 +925,15 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
                     // Animate stroke color transition
                     if (button.getStrokeColor() != null) {
                         int currentStroke = button.getStrokeColor().getDefaultColor();
-                        int targetStroke = themeManager.getColor("outline");
+                        int targetStroke = themeManager.getColor(ColorRole.OUTLINE);
                         animateColorTransition(currentStroke, targetStroke, duration, 
                             va -> button.setStrokeColor(ColorStateList.valueOf((int) va.getAnimatedValue())));
                     }
                     
                     // Apply other properties immediately
-                    button.setBackgroundTintList(ColorStateList.valueOf(android.graphics.Color.TRANSPARENT));
+                    button.setBackgroundTintList(TRANSPARENT_LIST);
                     button.setStrokeWidth((int) (1 * context.getResources().getDisplayMetrics().density));
-                    button.setRippleColor(ColorStateList.valueOf(lightOutlineRippleColor));
+                    button.setRippleColor(styles.rippleList(ColorRole.OUTLINE, ThemeStyleCache.RippleKind.BUTTON));
                     break;
                     
                 case "text":
@@ -816,8 +943,8 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
                     animateTextColorTransition(button, currentTextColorText, targetTextColorText, duration);
                     
                     // Apply other properties immediately
-                    button.setBackgroundTintList(ColorStateList.valueOf(android.graphics.Color.TRANSPARENT));
-                    button.setRippleColor(ColorStateList.valueOf(lightRippleColor));
+                    button.setBackgroundTintList(TRANSPARENT_LIST);
+                    button.setRippleColor(styles.rippleList(ColorRole.PRIMARY, ThemeStyleCache.RippleKind.BUTTON));
                     break;
                     
                 case "filled":
@@ -825,17 +952,17 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
                     // Animate background color transition
                     if (button.getBackgroundTintList() != null) {
                         int currentBackground = button.getBackgroundTintList().getDefaultColor();
-                        int targetBackground = themeManager.getColor("primary");
+                        int targetBackground = themeManager.getColor(ColorRole.PRIMARY);
                         animateColorTransition(currentBackground, targetBackground, duration, 
                             va -> button.setBackgroundTintList(ColorStateList.valueOf((int) va.getAnimatedValue())));
                     }
                     
                     // Animate text color transition
                     int currentTextColorFilled = button.getCurrentTextColor();
-                    int targetTextColorFilled = themeManager.getColor("onPrimary");
+                    int targetTextColorFilled = themeManager.getColor(ColorRole.ON_PRIMARY);
                     animateTextColorTransition(button, currentTextColorFilled, targetTextColorFilled, duration);
                     
-                    button.setRippleColor(ColorStateList.valueOf(lightSurfaceRippleColor));
+                    button.setRippleColor(styles.rippleList(ColorRole.SURFACE_VARIANT, ThemeStyleCache.RippleKind.BUTTON));
                     break;
             }
         } catch (Exception e) {
@@ -856,9 +983,9 @@ public static void applyThemeToBottomNavigation(View bottomNavView) {
         }
         
         if (resourceName.contains("import") || resourceName.contains("export")) {
-            return themeManager.getColor("primary");
+            return themeManager.getColor(ColorRole.PRIMARY);
         } else {
-            return themeManager.getColor("onSurface");
+            return themeManager.getColor(ColorRole.ON_SURFACE);
         }
     }
     
@@ -79,7 +79,7 @@ public class ThemesFragment extends BaseThemedFragment {
         if (selectedTheme == null || selectedTheme.isEmpty()) {
             selectedTheme = DEFAULT_THEME;
             // Load default theme to ensure it's properly initialized
-            themeManager.loadTheme(DEFAULT_THEME);
+            themeManager.loadThemeAsync(DEFAULT_THEME, null);
         }
         
         Log.d(TAG, "Current selected theme: " + selectedTheme);
@@ -203,6 +203,9 @@ public class ThemesFragment extends BaseThemedFragment {
                 return false;
             }
             
+            // A theme imported again under the same name must not keep its old colors
+            ThemeManager.getInstance().forgetTheme(themeKey);
+            
             // Verify manifest.json exists
             File manifestFile = new File(themeDir, "manifest.json");
             if (!manifestFile.exists()) {
@@ -418,14 +421,14 @@ public class ThemesFragment extends BaseThemedFragment {
     nameText.setText(theme.name);
     nameText.setTextSize(16);
     nameText.setTypeface(null, android.graphics.Typeface.BOLD);
-    ThemeUtils.applyThemeToTextView(nameText, "onSurface");
+    ThemeUtils.applyThemeToTextView(nameText, ColorRole.ON_SURFACE);
     
     // Author text (if available)
     if (theme.author != null && !theme.author.isEmpty()) {
         TextView authorText = new TextView(requireContext());
         authorText.setText("by " + theme.author);
         authorText.setTextSize(14);
-        ThemeUtils.applyThemeToTextView(authorText, "onSurfaceVariant");
+        ThemeUtils.applyThemeToTextView(authorText, ColorRole.ON_SURFACE_VARIANT);
         LinearLayout.LayoutParams authorParams = new LinearLayout.LayoutParams(
             LinearLayout.LayoutParams.WRAP_CONTENT, 
             LinearLayout.LayoutParams.WRAP_CONTENT
@@ -439,7 +442,7 @@ public class ThemesFragment extends BaseThemedFragment {
     TextView descText = new TextView(requireContext());
     descText.setText(theme.description);
     descText.setTextSize(14);
-    ThemeUtils.applyThemeToTextView(descText, "onSurfaceVariant");
+    ThemeUtils.applyThemeToTextView(descText, ColorRole.ON_SURFACE_VARIANT);
     LinearLayout.LayoutParams descParams = new LinearLayout.LayoutParams(
         LinearLayout.LayoutParams.WRAP_CONTENT, 
         LinearLayout.LayoutParams.WRAP_CONTENT
@@ -470,14 +473,14 @@ public class ThemesFragment extends BaseThemedFragment {
     infoParams.setMarginEnd((int) (8 * getResources().getDisplayMetrics().density));
     infoButton.setLayoutParams(infoParams);
     infoButton.setImageResource(android.R.drawable.ic_dialog_info); // You can replace with your own icon
-    infoButton.setColorFilter(ThemeManager.getInstance().getColor("onSurfaceVariant"));
+    infoButton.setColorFilter(ThemeManager.getInstance().getColor(ColorRole.ON_SURFACE_VARIANT));
     
     // Create circle ripple background for info button
     android.graphics.drawable.GradientDrawable circle = new android.graphics.drawable.GradientDrawable();
     circle.setShape(android.graphics.drawable.GradientDrawable.OVAL);
     circle.setColor(android.graphics.Color.TRANSPARENT);
     
-    infoButton.setBackground(ThemeUtils.createCircularRipple("onSurfaceVariant"));
+    infoButton.setBackground(ThemeUtils.createCircularRipple(ColorRole.ON_SURFACE_VARIANT));
     infoButton.setClickable(true);
     infoButton.setFocusable(true);
     infoButton.setOnClickListener(v -> showThemeInfoDialog(theme));
@@ -509,14 +512,14 @@ public class ThemesFragment extends BaseThemedFragment {
         deleteParams.setMarginStart((int) (8 * getResources().getDisplayMetrics().density));
         deleteButton.setLayoutParams(deleteParams);
         deleteButton.setImageResource(android.R.drawable.ic_menu_delete); // You can replace with your own icon
-        deleteButton.setColorFilter(ThemeManager.getInstance().getColor("error"));
+        deleteButton.setColorFilter(ThemeManager.getInstance().getColor(ColorRole.ERROR));
         
         // Create circle ripple background for delete button
         android.graphics.drawable.GradientDrawable deleteCircle = new android.graphics.drawable.GradientDrawable();
         deleteCircle.setShape(android.graphics.drawable.GradientDrawable.OVAL);
         deleteCircle.setColor(android.graphics.Color.TRANSPARENT);
         
-        deleteButton.setBackground(ThemeUtils.createCircularRipple("error"));
+        deleteButton.setBackground(ThemeUtils.createCircularRipple(ColorRole.ERROR));
         deleteButton.setClickable(true);
         deleteButton.setFocusable(true);
         deleteButton.setContentDescription("Delete theme");
@@ -533,25 +536,27 @@ public class ThemesFragment extends BaseThemedFragment {
     // Set card click listener with ripple effect
     card.setOnClickListener(v -> {
         if (!theme.key.equals(selectedTheme)) {
-            // Apply theme using ThemeManager
-            ThemeManager themeManager = ThemeManager.getInstance();
-            boolean success = themeManager.loadTheme(theme.key);
-            
-            if (success) {
-                selectedTheme = theme.key; // Update selectedTheme after successful load
-                displayThemes(); // Refresh to update radio buttons
-                Toast.makeText(getContext(), "Theme applied: " + theme.name, Toast.LENGTH_SHORT).show();
-                
-                // Refresh the current view with new theme
-                refreshTheme();
-                
-                // Also refresh the parent activity if it's a BaseThemedActivity
-                if (getActivity() instanceof BaseThemedActivity) {
-                    ((BaseThemedActivity) getActivity()).refreshTheme();
+            // Apply theme using ThemeManager; a theme used before applies without reading its file
+            ThemeManager.getInstance().loadThemeAsync(theme.key, (themeName, success) -> {
+                if (!isAdded()) {
+                    return;
                 }
-            } else {
-                Toast.makeText(getContext(), "Failed to apply theme", Toast.LENGTH_SHORT).show();
-            }
+                if (success) {
+                    selectedTheme = theme.key; // Update selectedTheme after successful load
+                    displayThemes(); // Refresh to update radio buttons
+                    Toast.makeText(getContext(), "Theme applied: " + theme.name, Toast.LENGTH_SHORT).show();
+                    
+                    // Refresh the current view with new theme
+                    refreshTheme();
+                    
+                    // Also refresh the parent activity if it's a BaseThemedActivity
+                    if (getActivity() instanceof BaseThemedActivity) {
+                        ((BaseThemedActivity) getActivity()).refreshTheme();
+                    }
+                } else {
+                    Toast.makeText(getContext(), "Failed to apply theme", Toast.LENGTH_SHORT).show();
+                }
+            });
         }
     });
     
@@ -583,17 +588,22 @@ public class ThemesFragment extends BaseThemedFragment {
             File themeDir = new File(themesDirectory, theme.key);
             if (themeDir.exists() && themeDir.isDirectory()) {
                 deleteDirectory(themeDir);
+                ThemeManager.getInstance().forgetTheme(theme.key);
                 
                 // If this was the selected theme, revert to default
                 if (theme.key.equals(selectedTheme)) {
                     selectedTheme = DEFAULT_THEME;
-                    ThemeManager.getInstance().loadTheme(DEFAULT_THEME);
-                    refreshTheme();
-                    
-                    // Also refresh the parent activity
-                    if (getActivity() instanceof BaseThemedActivity) {
-                        ((BaseThemedActivity) getActivity()).refreshTheme();
-                    }
+                    ThemeManager.getInstance().loadThemeAsync(DEFAULT_THEME, (themeName, success) -> {
+                        if (!isAdded()) {
+                            return;
+                        }
+                        refreshTheme();
+                        
+                        // Also refresh the parent activity
+                        if (getActivity() instanceof BaseThemedActivity) {
+                            ((BaseThemedActivity) getActivity()).refreshTheme();
+                        }
+                    });
                 }
                 
                 themesList.remove(position);
@@ -631,7 +641,7 @@ public class ThemesFragment extends BaseThemedFragment {
             titleText.setText(theme.name);
             titleText.setTextSize(20);
             titleText.setTypeface(null, android.graphics.Typeface.BOLD);
-            ThemeUtils.applyThemeToTextView(titleText, "onSurface");
+            ThemeUtils.applyThemeToTextView(titleText, ColorRole.ON_SURFACE);
             dialogLayout.addView(titleText);
             
             // Author (if available)
@@ -639,7 +649,7 @@ public class ThemesFragment extends BaseThemedFragment {
                 TextView authorText = new TextView(requireContext());
                 authorText.setText("by " + theme.author);
                 authorText.setTextSize(14);
-                ThemeUtils.applyThemeToTextView(authorText, "onSurfaceVariant");
+                ThemeUtils.applyThemeToTextView(authorText, ColorRole.ON_SURFACE_VARIANT);
                 LinearLayout.LayoutParams authorParams = new LinearLayout.LayoutParams(
                     LinearLayout.LayoutParams.WRAP_CONTENT, 
                     LinearLayout.LayoutParams.WRAP_CONTENT
@@ -674,7 +684,7 @@ public class ThemesFragment extends BaseThemedFragment {
             TextView descriptionText = new TextView(requireContext());
             descriptionText.setText(theme.description);
             descriptionText.setTextSize(14);
-            ThemeUtils.applyThemeToTextView(descriptionText, "onSurfaceVariant");
+            ThemeUtils.applyThemeToTextView(descriptionText, ColorRole.ON_SURFACE_VARIANT);
             LinearLayout.LayoutParams descParams = new LinearLayout.LayoutParams(
                 LinearLayout.LayoutParams.WRAP_CONTENT, 
                 LinearLayout.LayoutParams.WRAP_CONTENT
@@ -717,7 +727,7 @@ public class ThemesFragment extends BaseThemedFragment {
                 
                 // Add divider
                 View divider = new View(requireContext());
-                divider.setBackgroundColor(ThemeManager.getInstance().getColor("outline"));
+                divider.setBackgroundColor(ThemeManager.getInstance().getColor(ColorRole.OUTLINE));
                 LinearLayout.LayoutParams dividerParams = new LinearLayout.LayoutParams(
                     LinearLayout.LayoutParams.MATCH_PARENT, 
                     (int) (1 * getResources().getDisplayMetrics().density)
@@ -763,12 +773,12 @@ public class ThemesFragment extends BaseThemedFragment {
         labelText.setText(label + ": ");
         labelText.setTextSize(12);
         labelText.setTypeface(null, android.graphics.Typeface.BOLD);
-        ThemeUtils.applyThemeToTextView(labelText, "onSurfaceVariant");
+        ThemeUtils.applyThemeToTextView(labelText, ColorRole.ON_SURFACE_VARIANT);
         
         TextView valueText = new TextView(requireContext());
         valueText.setText(value);
         valueText.setTextSize(12);
-        ThemeUtils.applyThemeToTextView(valueText, "onSurfaceVariant");
+        ThemeUtils.applyThemeToTextView(valueText, ColorRole.ON_SURFACE_VARIANT);
         
         row.addView(labelText);
         row.addView(valueText);
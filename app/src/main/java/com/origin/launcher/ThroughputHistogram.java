@@ -0,0 +1,71 @@
+package com.origin.launcher;
+
+import java.util.Locale;
+
+/**
+ * Distribution of throughput samples of one download, in power-of-two buckets from 1 KB/s up. A
+ * sample is the rate over a short window, so stalls and bursts show up instead of averaging out.
+ */
+public final class ThroughputHistogram {
+    public static final int BUCKETS = 18;
+    private static final long FIRST_BUCKET_BYTES_PER_SECOND = 1024;
+
+    private final long[] counts = new long[BUCKETS];
+    private long samples;
+    private long maxBytesPerSecond;
+
+    public synchronized void record(long bytesPerSecond) {
+        counts[bucketOf(bytesPerSecond)]++;
+        samples++;
+        maxBytesPerSecond = Math.max(maxBytesPerSecond, bytesPerSecond);
+    }
+
+    public synchronized long getSampleCount() {
+        return samples;
+    }
+
+    public synchronized long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public synchronized long getMax() {
+        return maxBytesPerSecond;
+    }
+
+    /** Lowest rate that falls into bucket; bucket 0 also holds everything slower */
+    public static long lowerBound(int bucket) {
+        return bucket == 0 ? 0 : FIRST_BUCKET_BYTES_PER_SECOND << (bucket - 1);
+    }
+
+    /**
+     * Rate below which the given fraction (0..1) of samples lie, to bucket resolution; 0 if empty
+     */
+    public synchronized long percentile(double fraction) {
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.max(0, Math.min(1, fraction)) * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return i == BUCKETS - 1 ? maxBytesPerSecond : Math.min(lowerBound(i + 1), maxBytesPerSecond);
+            }
+        }
+        return maxBytesPerSecond;
+    }
+
+    private static int bucketOf(long bytesPerSecond) {
+        if (bytesPerSecond < FIRST_BUCKET_BYTES_PER_SECOND) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(bytesPerSecond / FIRST_BUCKET_BYTES_PER_SECOND);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d samples, p10 %d KB/s, p50 %d KB/s, p90 %d KB/s, max %d KB/s",
+                samples, percentile(0.1) / 1024, percentile(0.5) / 1024, percentile(0.9) / 1024, maxBytesPerSecond / 1024);
+    }
+}
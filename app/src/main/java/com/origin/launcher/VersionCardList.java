@@ -0,0 +1,273 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.lifecycle.LifecycleOwner;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.card.MaterialCardView;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The version cards of one channel, shared by the stable and beta tabs. Fills the container from
+ * VersionsRepository, applies refreshes card by card, and turns a card's Download button into
+ * Select once the queued download of its APK completes.
+ */
+final class VersionCardList {
+    private final BaseThemedFragment fragment;
+    private final LinearLayout container;
+    private final VersionsRepository.Channel channel;
+    private final String tag;
+    private final Map<VersionsRepository.VersionEntry, Card> cards = new HashMap<>();
+
+    /** The views of one card, and the file its button downloads to or selects */
+    private static final class Card {
+        final View[] views;
+        final MaterialButton button;
+        final File apkFile;
+
+        Card(View[] views, MaterialButton button, File apkFile) {
+            this.views = views;
+            this.button = button;
+            this.apkFile = apkFile;
+        }
+    }
+
+    VersionCardList(BaseThemedFragment fragment, LinearLayout container, VersionsRepository.Channel channel, String tag) {
+        this.fragment = fragment;
+        this.container = container;
+        this.channel = channel;
+        this.tag = tag;
+    }
+
+    /**
+     * Show the cached versions now, apply the background refresh when it arrives, and follow the
+     * download queue; everything stops when the fragment's view is destroyed, since the cards go
+     * with it. Call from onCreateView or later.
+     */
+    void populate() {
+        Log.d(tag, "Starting to fetch versions...");
+        Context context = fragment.requireContext();
+        LifecycleOwner viewOwner = fragment.getViewLifecycleOwner();
+        DownloadQueue.getInstance(context).addObserver(viewOwner, this::onDownloadChanged);
+        VersionsRepository.getInstance().getVersionsAsync(context, viewOwner, new VersionsRepository.VersionsListener() {
+            @Override
+            public void onVersionsLoaded(VersionIndex index) {
+                if (!fragment.isAdded()) return;
+                container.removeAllViews();
+                cards.clear();
+                List<VersionsRepository.VersionEntry> entries = index.getEntries(channel);
+                for (VersionsRepository.VersionEntry e : entries) {
+                    cards.put(e, addVersionCard(-1, e));
+                }
+                Log.d(tag, "Added " + entries.size() + " cached version cards to UI");
+                migrateLegacyApks(viewOwner, entries);
+            }
+
+            @Override
+            public void onVersionsChanged(VersionIndex index,
+                                          List<VersionsRepository.VersionEntry> added,
+                                          List<VersionsRepository.VersionEntry> removed) {
+                if (!fragment.isAdded()) return;
+                // Only touch the cards that changed; each card is followed by its spacer
+                for (VersionsRepository.VersionEntry e : removed) {
+                    Card card = cards.remove(e);
+                    if (card != null) {
+                        for (View v : card.views) container.removeView(v);
+                    }
+                }
+                Set<VersionsRepository.VersionEntry> addedSet = new HashSet<>(added);
+                List<VersionsRepository.VersionEntry> entries = index.getEntries(channel);
+                for (int i = 0; i < entries.size(); i++) {
+                    VersionsRepository.VersionEntry e = entries.get(i);
+                    if (addedSet.contains(e) && !cards.containsKey(e)) {
+                        cards.put(e, addVersionCard(Math.min(i * 2, container.getChildCount()), e));
+                    }
+                }
+                Log.d(tag, "Updated version cards: +" + added.size() + " -" + removed.size());
+                migrateLegacyApks(viewOwner, added);
+            }
+
+            @Override
+            public void onRefreshFailed(Exception ex) {
+                Log.e(tag, "Failed to load versions", ex);
+                if (fragment.isAdded() && cards.isEmpty()) {
+                    Toast.makeText(fragment.requireContext(), "Failed to load versions: " + ex.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+    }
+
+    /**
+     * Move the APKs of entries still under their legacy names, off the main thread, and turn the
+     * buttons of the cards whose APK moved into Select
+     */
+    private void migrateLegacyApks(LifecycleOwner owner, List<VersionsRepository.VersionEntry> entries) {
+        Context context = fragment.requireContext().getApplicationContext();
+        List<VersionsRepository.VersionEntry> pending = new ArrayList<>(entries);
+        TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.NORMAL, owner, () -> {
+            List<VersionsRepository.VersionEntry> migrated = VersionFiles.migrateLegacyApks(context, pending);
+            if (migrated.isEmpty()) {
+                return;
+            }
+            container.post(() -> {
+                if (!fragment.isAdded()) return;
+                for (VersionsRepository.VersionEntry e : migrated) {
+                    Card card = cards.get(e);
+                    if (card != null) {
+                        bindButton(card.button, card.apkFile, e);
+                    }
+                }
+            });
+        });
+    }
+
+    private void onDownloadChanged(DownloadQueue.Item item) {
+        if (item.state != DownloadQueue.State.COMPLETED || !fragment.isAdded()) {
+            return;
+        }
+        for (Map.Entry<VersionsRepository.VersionEntry, Card> entry : cards.entrySet()) {
+            Card card = entry.getValue();
+            if (card.apkFile.getAbsolutePath().equals(item.target.getAbsolutePath())) {
+                bindButton(card.button, card.apkFile, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Insert a card and its spacer at index (-1 appends)
+     */
+    private Card addVersionCard(int index, VersionsRepository.VersionEntry entry) {
+        Context context = fragment.requireContext();
+        float density = fragment.getResources().getDisplayMetrics().density;
+        // Create card
+        MaterialCardView card = new MaterialCardView(context);
+        LinearLayout.LayoutParams cardParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.MATCH_PARENT,
+            LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        card.setLayoutParams(cardParams);
+        card.setRadius(12 * density);
+        card.setCardElevation(0);
+        card.setClickable(true);
+        card.setFocusable(true);
+        ThemeUtils.applyThemeToCard(card, context);
+
+        // Main horizontal layout
+        LinearLayout main = new LinearLayout(context);
+        main.setOrientation(LinearLayout.HORIZONTAL);
+        main.setPadding((int) (16 * density), (int) (16 * density), (int) (16 * density), (int) (16 * density));
+        main.setGravity(android.view.Gravity.CENTER_VERTICAL);
+
+        // Text column
+        LinearLayout textCol = new LinearLayout(context);
+        textCol.setOrientation(LinearLayout.VERTICAL);
+        LinearLayout.LayoutParams textParams = new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1f);
+        textCol.setLayoutParams(textParams);
+
+        TextView titleView = new TextView(context);
+        titleView.setText(entry.title);
+        titleView.setTextSize(16);
+        titleView.setTypeface(null, android.graphics.Typeface.BOLD);
+        ThemeUtils.applyThemeToTextView(titleView, ColorRole.ON_SURFACE);
+
+        TextView subView = new TextView(context);
+        subView.setText("");
+        subView.setTextSize(14);
+        LinearLayout.LayoutParams subParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.WRAP_CONTENT,
+            LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        subParams.topMargin = (int) (8 * density);
+        subView.setLayoutParams(subParams);
+        ThemeUtils.applyThemeToTextView(subView, ColorRole.ON_SURFACE_VARIANT);
+
+        textCol.addView(titleView);
+        textCol.addView(subView);
+
+        // Right action column
+        LinearLayout actions = new LinearLayout(context);
+        actions.setOrientation(LinearLayout.HORIZONTAL);
+        actions.setGravity(android.view.Gravity.CENTER_VERTICAL);
+        LinearLayout.LayoutParams actionsParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.WRAP_CONTENT,
+            LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        actionsParams.setMarginStart((int) (16 * density));
+        actions.setLayoutParams(actionsParams);
+
+        android.view.ContextThemeWrapper buttonCtx = new android.view.ContextThemeWrapper(
+            context, com.google.android.material.R.style.Widget_Material3_Button
+        );
+        MaterialButton downloadBtn = new MaterialButton(buttonCtx, null, 0);
+        // Match Home fragment button sizing/shape
+        downloadBtn.setTextSize(14);
+        downloadBtn.setTypeface(null, android.graphics.Typeface.BOLD);
+        int pad = (int) (16 * density);
+        downloadBtn.setPadding(pad, pad, pad, pad);
+        downloadBtn.setCornerRadius((int) (28 * density));
+        // Apply theme like Home fragment does
+        ThemeUtils.applyThemeToButton(downloadBtn, context);
+        File apkFile = VersionFiles.apkFile(VersionFiles.versionsDir(context), entry.title);
+        bindButton(downloadBtn, apkFile, entry);
+
+        actions.addView(downloadBtn);
+
+        main.addView(textCol);
+        main.addView(actions);
+        card.addView(main);
+
+        // Add card and spacing
+        container.addView(card, index);
+        View spacer = new View(context);
+        LinearLayout.LayoutParams spacerParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.MATCH_PARENT,
+            (int) (12 * density)
+        );
+        spacer.setLayoutParams(spacerParams);
+        container.addView(spacer, index < 0 ? -1 : index + 1);
+        return new Card(new View[] { card, spacer }, downloadBtn, apkFile);
+    }
+
+    /** Select if the APK is on disk, Download otherwise */
+    private void bindButton(MaterialButton button, File apkFile, VersionsRepository.VersionEntry entry) {
+        if (apkFile.exists()) {
+            button.setText("Select");
+            button.setOnClickListener(v -> selectApk(apkFile, entry.title));
+        } else {
+            button.setText("Download");
+            button.setOnClickListener(v -> startDownload(apkFile, entry));
+        }
+    }
+
+    private void startDownload(File outFile, VersionsRepository.VersionEntry entry) {
+        Context context = fragment.requireContext();
+        // The queue owns the transfer, so it outlives this fragment; MainActivity shows its progress
+        DownloadQueue.getInstance(context).enqueue(entry.url, entry.url, entry.title, outFile, entry.sha256);
+        Toast.makeText(context, "Download queued: " + entry.title, Toast.LENGTH_SHORT).show();
+    }
+
+    private void selectApk(File apkFile, String title) {
+        Context context = fragment.requireContext();
+        try {
+            // Store the selected APK path in SharedPreferences for the launcher to use
+            SharedPreferences prefs = context.getSharedPreferences("selected_apk", Context.MODE_PRIVATE);
+            prefs.edit().putString("apk_path", apkFile.getAbsolutePath()).apply();
+
+            Toast.makeText(context, "Selected: " + title, Toast.LENGTH_SHORT).show();
+        } catch (Exception e) {
+            Toast.makeText(context, "Failed to select APK", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.origin.launcher;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Single-pass parser for the versions feed. Lines are scanned in place in a reusable char buffer;
+ * only the title and URL of each accepted line become Strings.
+ *
+ * A line is "title|url", "title\turl" or "title url", optionally followed by the SHA-256 of the
+ * APK as 64 hex digits after another '|' or whitespace; titles with three or more dots in their
+ * version number are betas.
+ */
+public class VersionFeedParser {
+    private static final String TAG = "VersionFeedParser";
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int[] NO_VERSION = new int[0];
+
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private char[] line = new char[256];
+    private int lineLength;
+    private final int[] versionParts = new int[8];
+    private int versionCount;
+    private int versionDots;
+
+    /**
+     * Parse every line of in. When copy is not null each non-empty trimmed line is also written to it,
+     * one per line, so the caller can cache the feed without holding it in memory.
+     */
+    public List<VersionsRepository.VersionEntry> parse(Reader in, Writer copy) throws IOException {
+        List<VersionsRepository.VersionEntry> entries = new ArrayList<>();
+        int skipped = 0;
+        lineLength = 0;
+        int read;
+        while ((read = in.read(readBuffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = readBuffer[i];
+                if (c == '\n' || c == '\r') {
+                    skipped += endLine(entries, copy);
+                } else {
+                    append(c);
+                }
+            }
+        }
+        skipped += endLine(entries, copy);
+        if (skipped > 0) {
+            Log.w(TAG, "Skipped " + skipped + " unparseable lines");
+        }
+        return entries;
+    }
+
+    private void append(char c) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = c;
+    }
+
+    /**
+     * Parse the buffered line and reset it; returns 1 if a non-empty line had to be skipped
+     */
+    private int endLine(List<VersionsRepository.VersionEntry> entries, Writer copy) throws IOException {
+        int start = 0;
+        int end = lineLength;
+        lineLength = 0;
+        while (start < end && line[start] <= ' ') start++;
+        while (end > start && line[end - 1] <= ' ') end--;
+        if (start == end) {
+            return 0;
+        }
+        if (copy != null) {
+            copy.write(line, start, end - start);
+            copy.write('\n');
+        }
+        VersionsRepository.VersionEntry entry = parseLine(start, end);
+        if (entry == null) {
+            Log.w(TAG, "Skipping unparseable line: " + new String(line, start, end - start));
+            return 1;
+        }
+        entries.add(entry);
+        return 0;
+    }
+
+    private VersionsRepository.VersionEntry parseLine(int start, int end) {
+        int titleEnd = -1;
+        int urlStart = -1;
+
+        // Try common separators: |, tab, or the last whitespace before a URL
+        int pipe = indexOf('|', start, end);
+        if (pipe >= 0) {
+            titleEnd = pipe;
+            urlStart = pipe + 1;
+        } else {
+            int tab = indexOf('\t', start, end);
+            if (tab >= 0 && regionMatchesHttp(tab + 1, end)) {
+                titleEnd = tab;
+                urlStart = tab + 1;
+            } else {
+                int idx = lastIndexOfSeparatedHttp(start, end);
+                if (idx >= 0) {
+                    titleEnd = idx;
+                    urlStart = idx + 1;
+                } else {
+                    int h = indexOfHttp(start, end);
+                    if (h > start) {
+                        titleEnd = h;
+                        urlStart = h;
+                    }
+                }
+            }
+        }
+        if (titleEnd < 0) {
+            return null;
+        }
+
+        int titleStart = start;
+        while (titleStart < titleEnd && line[titleStart] <= ' ') titleStart++;
+        while (titleEnd > titleStart && line[titleEnd - 1] <= ' ') titleEnd--;
+        while (urlStart < end && line[urlStart] <= ' ') urlStart++;
+        if (!regionMatchesHttp(urlStart, end)) {
+            return null;
+        }
+
+        String sha256 = null;
+        int urlEnd = urlStart;
+        while (urlEnd < end && line[urlEnd] > ' ' && line[urlEnd] != '|') urlEnd++;
+        int hashStart = urlEnd;
+        while (hashStart < end && (line[hashStart] <= ' ' || line[hashStart] == '|')) hashStart++;
+        if (hashStart > urlEnd && isSha256(hashStart, end)) {
+            sha256 = new String(line, hashStart, end - hashStart).toLowerCase(Locale.ROOT);
+        } else {
+            // No hash column: keep everything after the separator as the URL, as before
+            urlEnd = end;
+        }
+
+        int dotCount = scanVersion(titleStart, titleEnd) ? versionDots : count('.', titleStart, titleEnd);
+        int[] version = versionCount > 0 ? Arrays.copyOf(versionParts, versionCount) : NO_VERSION;
+        return new VersionsRepository.VersionEntry(cleanTitle(titleStart, titleEnd),
+                new String(line, urlStart, urlEnd - urlStart), dotCount >= 3, version, sha256);
+    }
+
+    private boolean isSha256(int start, int end) {
+        if (end - start != 64) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = line[i];
+            if (!isDigit(c) && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first run of the form \d+\.\d+\.\d+(\.\d+)* in [start, end) and store its components;
+     * returns false (with no components) when there is none
+     */
+    private boolean scanVersion(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(line[i]) || (i > start && isDigit(line[i - 1]))) {
+                continue;
+            }
+            versionCount = 0;
+            int pos = i;
+            while (true) {
+                long value = 0;
+                int digitsStart = pos;
+                while (pos < end && isDigit(line[pos])) {
+                    value = Math.min(Integer.MAX_VALUE, value * 10 + (line[pos] - '0'));
+                    pos++;
+                }
+                if (pos == digitsStart) {
+                    break;
+                }
+                if (versionCount < versionParts.length) {
+                    versionParts[versionCount] = (int) value;
+                }
+                versionCount++;
+                if (pos + 1 < end && line[pos] == '.' && isDigit(line[pos + 1])) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (versionCount >= 3) {
+                versionDots = versionCount - 1;
+                versionCount = Math.min(versionCount, versionParts.length);
+                return true;
+            }
+        }
+        versionCount = 0;
+        return false;
+    }
+
+    private String cleanTitle(int start, int end) {
+        // Remove any ':' characters, then trim again
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            if (line[i] != ':') sb.append(line[i]);
+        }
+        return sb.toString().trim();
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == c) return i;
+        }
+        return -1;
+    }
+
+    private int indexOfHttp(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (regionMatchesHttp(i, end)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Last index of " http", or of "\thttp" if there is no space-separated URL
+     */
+    private int lastIndexOfSeparatedHttp(int start, int end) {
+        int tab = -1;
+        for (int i = end - 5; i >= start; i--) {
+            if (regionMatchesHttp(i + 1, end)) {
+                if (line[i] == ' ') return i;
+                if (line[i] == '\t' && tab < 0) tab = i;
+            }
+        }
+        return tab;
+    }
+
+    private boolean regionMatchesHttp(int pos, int end) {
+        return pos + 4 <= end && line[pos] == 'h' && line[pos + 1] == 't' && line[pos + 2] == 't' && line[pos + 3] == 'p';
+    }
+
+    private int count(char c, int start, int end) {
+        int n = 0;
+        for (int i = start; i < end; i++) if (line[i] == c) n++;
+        return n;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
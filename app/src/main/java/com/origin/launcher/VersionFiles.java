@@ -0,0 +1,143 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Where the APK of a version title lives in the versions directory
+ */
+final class VersionFiles {
+    private static final String TAG = "VersionFiles";
+    // Legacy files checked against a title and found not to be its APK, as "title\npath"
+    private static final Set<String> rejectedLegacy = new HashSet<>();
+
+    private VersionFiles() {
+    }
+
+    static File versionsDir(Context context) {
+        return new File(context.getExternalFilesDir(null), "versions");
+    }
+
+    /**
+     * The APK of title, whether it has been downloaded yet or not. Files saved under the old names
+     * are moved here by migrateLegacyApks once they are verified to be this title's.
+     */
+    static File apkFile(File versionsDir, String title) {
+        return new File(versionsDir, apkFileName(title));
+    }
+
+    static String apkFileName(String title) {
+        // File-system safe form of the whole title; if that changed it, a hash of the original keeps
+        // distinct titles from sharing a file
+        String name = title.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        if (name.isEmpty() || !name.equals(title)) {
+            name += "-" + Integer.toHexString(title.hashCode());
+        }
+        return name + ".apk";
+    }
+
+    /**
+     * Name earlier releases gave the APK of title, the digits of its version (1.21.100 became
+     * 121100.apk), or null if the title has none; those releases fell back to a timestamp then,
+     * which cannot be found again
+     */
+    static String legacyApkFileName(String title) {
+        String version = title.replaceAll("[^0-9.]", "").replace(".", "");
+        return version.isEmpty() ? null : version + ".apk";
+    }
+
+    /**
+     * Move the APKs of entries that are still under their legacy names to their current names, and
+     * return the entries that got one. The digits-only names are shared by titles such as 1.21.1.03
+     * and 1.2.11.03, so a file only moves when it is verified to be the title's: its cataloged
+     * SHA-256 is the one the feed lists, or the version in its manifest is the title's, component
+     * by component. A selected APK that moves stays selected. Files that fail are not checked
+     * again for the same title in this process. Reads APK manifests, so call it off the main thread.
+     */
+    static List<VersionsRepository.VersionEntry> migrateLegacyApks(Context context, List<VersionsRepository.VersionEntry> entries) {
+        List<VersionsRepository.VersionEntry> migrated = new ArrayList<>();
+        File versionsDir = versionsDir(context);
+        for (VersionsRepository.VersionEntry entry : entries) {
+            String legacyName = legacyApkFileName(entry.title);
+            File current = apkFile(versionsDir, entry.title);
+            if (legacyName == null || current.exists()) {
+                continue;
+            }
+            File legacy = new File(versionsDir, legacyName);
+            String key = entry.title + "\n" + legacy.getAbsolutePath();
+            synchronized (rejectedLegacy) {
+                if (!legacy.isFile() || rejectedLegacy.contains(key)) {
+                    continue;
+                }
+            }
+            if (!isApkOf(context, legacy, entry)) {
+                synchronized (rejectedLegacy) {
+                    rejectedLegacy.add(key);
+                }
+                continue;
+            }
+            if (!legacy.renameTo(current)) {
+                Log.w(TAG, "Failed to move " + legacyName + " to " + current.getName());
+                continue;
+            }
+            String sha256 = ApkCatalog.getInstance(context).lookup(legacy);
+            if (sha256 != null) {
+                ApkCatalog.getInstance(context).add(current, sha256);
+            }
+            SharedPreferences prefs = context.getSharedPreferences("selected_apk", Context.MODE_PRIVATE);
+            if (legacy.getAbsolutePath().equals(prefs.getString("apk_path", null))) {
+                prefs.edit().putString("apk_path", current.getAbsolutePath()).apply();
+            }
+            Log.d(TAG, "Moved " + legacyName + " to " + current.getName());
+            migrated.add(entry);
+        }
+        return migrated;
+    }
+
+    /**
+     * Whether file is the APK of entry, by the catalog's hash if the feed lists one, else by the
+     * version name in its manifest
+     */
+    private static boolean isApkOf(Context context, File file, VersionsRepository.VersionEntry entry) {
+        if (entry.sha256 != null) {
+            String sha256 = ApkCatalog.getInstance(context).lookup(file);
+            if (sha256 != null) {
+                return sha256.equals(entry.sha256);
+            }
+        }
+        if (entry.version.length == 0) {
+            return false;
+        }
+        PackageInfo info = context.getPackageManager().getPackageArchiveInfo(file.getAbsolutePath(), 0);
+        return info != null && info.versionName != null && sameVersion(entry.version, info.versionName);
+    }
+
+    /**
+     * Whether versionName starts with the components of version; "1.21.100.03" matches 1.21.100 and
+     * 1.21.100.3 but not 1.2.1100.3
+     */
+    static boolean sameVersion(int[] version, String versionName) {
+        String[] parts = versionName.split("\\.");
+        if (parts.length < version.length) {
+            return false;
+        }
+        for (int i = 0; i < version.length; i++) {
+            try {
+                if (Integer.parseInt(parts[i].trim()) != version[i]) {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.origin.launcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-sorted view of a version list. Per-channel lists and the latest version of each
+ * channel are computed once; series and prefix lookups are binary searches.
+ */
+public class VersionIndex {
+    private static final VersionIndex EMPTY = new VersionIndex(Collections.<VersionsRepository.VersionEntry>emptyList());
+
+    private final List<VersionsRepository.VersionEntry> entries;
+    private final Map<VersionsRepository.Channel, List<VersionsRepository.VersionEntry>> byChannel =
+            new EnumMap<>(VersionsRepository.Channel.class);
+    private final Map<VersionsRepository.Channel, VersionsRepository.VersionEntry> latest =
+            new EnumMap<>(VersionsRepository.Channel.class);
+    private final VersionsRepository.VersionEntry[] sorted;
+    private final String[] names;
+    private final VersionsRepository.VersionEntry[] byName;
+
+    public static VersionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Index entries; the lists returned by getEntries keep the order of the feed
+     */
+    public VersionIndex(List<VersionsRepository.VersionEntry> entries) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        for (VersionsRepository.Channel channel : VersionsRepository.Channel.values()) {
+            byChannel.put(channel, new ArrayList<VersionsRepository.VersionEntry>());
+        }
+        for (VersionsRepository.VersionEntry entry : entries) {
+            byChannel.get(entry.channel).add(entry);
+            VersionsRepository.VersionEntry current = latest.get(entry.channel);
+            if (current == null || entry.compareTo(current) > 0) {
+                latest.put(entry.channel, entry);
+            }
+        }
+        for (VersionsRepository.Channel channel : VersionsRepository.Channel.values()) {
+            byChannel.put(channel, Collections.unmodifiableList(byChannel.get(channel)));
+        }
+
+        sorted = entries.toArray(new VersionsRepository.VersionEntry[0]);
+        Arrays.sort(sorted);
+
+        byName = sorted.clone();
+        Arrays.sort(byName, (a, b) -> a.versionName().compareTo(b.versionName()));
+        names = new String[byName.length];
+        for (int i = 0; i < byName.length; i++) {
+            names[i] = byName[i].versionName();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<VersionsRepository.VersionEntry> getEntries() {
+        return entries;
+    }
+
+    public List<VersionsRepository.VersionEntry> getEntries(VersionsRepository.Channel channel) {
+        return byChannel.get(channel);
+    }
+
+    /**
+     * Highest version of channel, or null if the channel is empty
+     */
+    public VersionsRepository.VersionEntry getLatest(VersionsRepository.Channel channel) {
+        return latest.get(channel);
+    }
+
+    /**
+     * All versions whose leading components equal series, ascending; e.g. (1, 21) for 1.21.x
+     */
+    public List<VersionsRepository.VersionEntry> getSeries(int... series) {
+        int from = lowerBound(series, false);
+        int to = lowerBound(series, true);
+        return Collections.unmodifiableList(Arrays.asList(sorted).subList(from, to));
+    }
+
+    /**
+     * All versions whose dotted name starts with prefix (e.g. "1.21.1" matches 1.21.1 and 1.21.100),
+     * in name order
+     */
+    public List<VersionsRepository.VersionEntry> search(String prefix) {
+        int from = lowerBound(names, prefix);
+        int to = lowerBound(names, prefix + Character.MAX_VALUE);
+        return Collections.unmodifiableList(Arrays.asList(byName).subList(from, to));
+    }
+
+    /**
+     * First index whose version is not below series (or, with after, above it) on the series' components
+     */
+    private int lowerBound(int[] series, boolean after) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = VersionsRepository.VersionEntry.compareVersions(sorted[mid].version, series, series.length);
+            if (cmp < 0 || (after && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
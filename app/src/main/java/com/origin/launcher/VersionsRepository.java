@@ -1,244 +1,467 @@
 package com.origin.launcher;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONException;
+import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Version list shared by the Stable and Beta tabs. The parsed list is kept in memory and on disk
+ * together with the ETag/Last-Modified of the response it came from, so refreshing is a conditional
+ * request and an unchanged list (304) is neither downloaded nor parsed again.
+ */
 public class VersionsRepository {
     private static final String TAG = "VersionsRepository";
     private static final String REMOTE_URL = "https://raw.githubusercontent.com/Xelo-Client/cdn/refs/heads/main/results.txt";
     private static final String CACHE_FILE_NAME = "mcpe_versions.txt";
+    private static final String META_FILE_NAME = "mcpe_versions.meta.json";
+    private static final String SNAPSHOT_FILE_NAME = "mcpe_versions.bin";
+    // Tabs asking again within this window get the in-memory list without touching the network
+    private static final long REVALIDATE_INTERVAL_MS = 60_000;
 
-    public static class VersionEntry {
+    private static VersionsRepository instance;
+
+    private List<VersionEntry> entries;
+    private VersionIndex index = VersionIndex.empty();
+    private String etag;
+    private String lastModified;
+    private long validatedAt;
+    private boolean diskLoaded;
+    private final Object refreshLock = new Object();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized VersionsRepository getInstance() {
+        if (instance == null) {
+            instance = new VersionsRepository();
+        }
+        return instance;
+    }
+
+    private VersionsRepository() {
+    }
+
+    public enum Channel {
+        STABLE,
+        BETA
+    }
+
+    /**
+     * One downloadable version. Entries order by their numeric version components (1.21.9 before
+     * 1.21.100), then by title; entries without a version sort first.
+     */
+    public static class VersionEntry implements Comparable<VersionEntry> {
         public final String title;
         public final String url;
         public final boolean isBeta; // true: 4 dots, false: 3 dots
+        public final Channel channel;
+        public final int[] version; // numeric components of the version in the title, empty if none
+        public final String sha256; // lowercase hex SHA-256 of the APK if the feed lists one, else null
+        private volatile String versionName;
 
         public VersionEntry(String title, String url, boolean isBeta) {
+            this(title, url, isBeta, new int[0], null);
+        }
+
+        public VersionEntry(String title, String url, boolean isBeta, int[] version) {
+            this(title, url, isBeta, version, null);
+        }
+
+        public VersionEntry(String title, String url, boolean isBeta, int[] version, String sha256) {
             this.title = title;
             this.url = url;
             this.isBeta = isBeta;
+            this.channel = isBeta ? Channel.BETA : Channel.STABLE;
+            this.version = version;
+            this.sha256 = sha256;
         }
-    }
 
-    public List<VersionEntry> getVersions(Context context) {
-        Log.d(TAG, "Fetching versions from: " + REMOTE_URL);
-        // Try refresh cache; if fails, fall back to cached file
-        File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
-        try {
-            List<String> lines = downloadLines();
-            Log.d(TAG, "Downloaded " + lines.size() + " lines");
-            if (!lines.isEmpty()) {
-                writeCache(cacheFile, lines);
-                List<VersionEntry> entries = parse(lines);
-                Log.d(TAG, "Parsed " + entries.size() + " version entries");
-                return entries;
+        /**
+         * The version components joined with dots, e.g. "1.21.100.10"; empty if there is none
+         */
+        public String versionName() {
+            String name = versionName;
+            if (name == null) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < version.length; i++) {
+                    if (i > 0) sb.append('.');
+                    sb.append(version[i]);
+                }
+                name = sb.toString();
+                versionName = name;
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Failed to fetch remote versions, using cache if available", e);
+            return name;
         }
 
-        // Fallback to cache
-        try {
-            if (cacheFile.exists()) {
-                Log.d(TAG, "Using cached versions");
-                List<String> cachedLines = readCache(cacheFile);
-                List<VersionEntry> entries = parse(cachedLines);
-                Log.d(TAG, "Parsed " + entries.size() + " cached version entries");
-                return entries;
+        @Override
+        public int compareTo(VersionEntry other) {
+            int result = compareVersions(version, other.version, Integer.MAX_VALUE);
+            if (result == 0) result = title.compareTo(other.title);
+            return result != 0 ? result : url.compareTo(other.url);
+        }
+
+        /**
+         * Compare the first limit components of a and b; a version that runs out first is smaller
+         */
+        static int compareVersions(int[] a, int[] b, int limit) {
+            int n = Math.min(limit, Math.min(a.length, b.length));
+            for (int i = 0; i < n; i++) {
+                if (a[i] != b[i]) {
+                    return a[i] < b[i] ? -1 : 1;
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to read cached versions", e);
+            return Math.min(limit, a.length) - Math.min(limit, b.length);
         }
 
-        Log.w(TAG, "No versions found, returning empty list");
-        return new ArrayList<>();
-    }
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VersionEntry)) return false;
+            VersionEntry other = (VersionEntry) o;
+            return title.equals(other.title) && url.equals(other.url)
+                    && (sha256 == null ? other.sha256 == null : sha256.equals(other.sha256));
+        }
 
-    public void clearCache(Context context) {
-        File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
-        if (cacheFile.exists()) {
-            cacheFile.delete();
-            Log.d(TAG, "Cleared version cache");
+        @Override
+        public int hashCode() {
+            return 31 * (31 * title.hashCode() + url.hashCode()) + (sha256 != null ? sha256.hashCode() : 0);
         }
     }
 
-    private List<String> downloadLines() throws Exception {
-        HttpURLConnection connection = null;
-        List<String> result = new ArrayList<>();
+    /**
+     * Callbacks of getVersionsAsync, delivered on the main thread while the owner is not destroyed
+     */
+    public interface VersionsListener {
+        /** The last known list, delivered right away; empty if nothing was cached yet */
+        void onVersionsLoaded(VersionIndex index);
+
+        /** A background refresh produced a list that differs from the one delivered before */
+        void onVersionsChanged(VersionIndex index, List<VersionEntry> added, List<VersionEntry> removed);
+
+        /** The background refresh failed; the list delivered before stays current */
+        void onRefreshFailed(Exception e);
+    }
+
+    /**
+     * Returns the current version list, revalidating it with the server at most once per
+     * REVALIDATE_INTERVAL_MS. Falls back to the last known list when the network fails.
+     */
+    public List<VersionEntry> getVersions(Context context) {
+        return getIndex(context).getEntries();
+    }
+
+    /**
+     * Like getVersions, but returns the sorted index for lookups such as the latest version of a channel
+     */
+    public VersionIndex getIndex(Context context) {
+        VersionIndex cached = getCachedIndex(context);
         try {
-            URL url = new URL(REMOTE_URL);
-            Log.d(TAG, "Connecting to: " + url);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(15000);
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Linux; Android 10; SM-G975F) AppleWebKit/537.36");
-            connection.connect();
-            int code = connection.getResponseCode();
-            Log.d(TAG, "HTTP response code: " + code);
-            if (code != 200) {
-                // Try to read error response
-                try (InputStream errorStream = connection.getErrorStream();
-                     BufferedReader errorReader = new BufferedReader(new InputStreamReader(errorStream))) {
-                    StringBuilder errorResponse = new StringBuilder();
-                    String errorLine;
-                    while ((errorLine = errorReader.readLine()) != null) {
-                        errorResponse.append(errorLine).append("\n");
+            return refresh(context);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to fetch remote versions, using cache if available", e);
+        }
+        if (cached.size() == 0) {
+            Log.w(TAG, "No versions found, returning empty list");
+        }
+        return cached;
+    }
+
+    /**
+     * Stale-while-revalidate: deliver the cached list without waiting for the network, then refresh
+     * in the background and report only what changed
+     */
+    public void getVersionsAsync(Context context, LifecycleOwner owner, VersionsListener listener) {
+        Context appContext = context.getApplicationContext();
+        TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.HIGH, owner, () -> {
+            VersionIndex cached = getCachedIndex(appContext);
+            deliver(owner, () -> listener.onVersionsLoaded(cached));
+            TaskScheduler.get().submit(TaskScheduler.Lane.NETWORK, TaskScheduler.Priority.NORMAL, owner, () -> {
+                try {
+                    VersionIndex fresh = refresh(appContext);
+                    if (fresh == cached) {
+                        return;
                     }
-                    Log.e(TAG, "Error response: " + errorResponse.toString());
-                } catch (Exception e) {
-                    Log.e(TAG, "Could not read error response", e);
-                }
-                throw new Exception("HTTP " + code);
-            }
-            try (InputStream in = connection.getInputStream();
-                 BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (!line.isEmpty()) {
-                        result.add(line);
-                        Log.d(TAG, "Downloaded line: " + line);
+                    List<VersionEntry> added = difference(fresh.getEntries(), cached.getEntries());
+                    List<VersionEntry> removed = difference(cached.getEntries(), fresh.getEntries());
+                    if (!added.isEmpty() || !removed.isEmpty()) {
+                        Log.d(TAG, "Refresh added " + added.size() + " and removed " + removed.size() + " versions");
+                        deliver(owner, () -> listener.onVersionsChanged(fresh, added, removed));
                     }
+                } catch (Exception e) {
+                    Log.w(TAG, "Background refresh of versions failed", e);
+                    deliver(owner, () -> listener.onRefreshFailed(e));
                 }
-            }
-        } finally {
-            if (connection != null) connection.disconnect();
-        }
-        return result;
+            });
+        });
     }
 
+    /**
+     * The last known list from memory or disk, without any network access; empty if there is none
+     */
+    public List<VersionEntry> getCachedVersions(Context context) {
+        return getCachedIndex(context).getEntries();
+    }
 
-    private void writeCache(File file, List<String> lines) throws Exception {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (String l : lines) {
-                writer.write(l);
-                writer.newLine();
-            }
+    /**
+     * Index of the last known list, without any network access
+     */
+    public synchronized VersionIndex getCachedIndex(Context context) {
+        if (!diskLoaded) {
+            diskLoaded = true;
+            loadFromDisk(new File(context.getCacheDir(), CACHE_FILE_NAME),
+                    new File(context.getCacheDir(), META_FILE_NAME),
+                    new File(context.getCacheDir(), SNAPSHOT_FILE_NAME));
         }
+        return index;
     }
 
-    private List<String> readCache(File file) throws Exception {
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty()) lines.add(line);
+    /**
+     * Revalidate the list with the server unless that happened within REVALIDATE_INTERVAL_MS and
+     * return it. Readers of the cached list are never blocked by the network; concurrent refreshes
+     * are serialized so the second one sees the first one's result.
+     */
+    private VersionIndex refresh(Context context) throws Exception {
+        synchronized (refreshLock) {
+            String ifNoneMatch;
+            String ifModifiedSince;
+            VersionIndex current;
+            synchronized (this) {
+                if (entries != null && System.currentTimeMillis() - validatedAt < REVALIDATE_INTERVAL_MS) {
+                    Log.d(TAG, "Using in-memory versions validated " + (System.currentTimeMillis() - validatedAt) + " ms ago");
+                    return index;
+                }
+                current = index;
+                ifNoneMatch = entries != null ? etag : null;
+                ifModifiedSince = entries != null ? lastModified : null;
+            }
+
+            Log.d(TAG, "Fetching versions from: " + REMOTE_URL);
+            File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
+            File metaFile = new File(context.getCacheDir(), META_FILE_NAME);
+            File snapshotFile = new File(context.getCacheDir(), SNAPSHOT_FILE_NAME);
+            File tempFile = new File(context.getCacheDir(), CACHE_FILE_NAME + ".tmp");
+            Download download = download(ifNoneMatch, ifModifiedSince, tempFile);
+            if (download == null) {
+                Log.d(TAG, "Versions not modified, keeping " + current.size() + " entries");
+                synchronized (this) {
+                    validatedAt = System.currentTimeMillis();
+                }
+                return current;
+            }
+            Log.d(TAG, "Downloaded and parsed " + download.entries.size() + " version entries");
+            if (download.entries.isEmpty()) {
+                tempFile.delete();
+                throw new IOException("Version feed is empty");
+            }
+            synchronized (this) {
+                // Drop the old validators first so a torn cache write is never revalidated as current
+                metaFile.delete();
+                snapshotFile.delete();
+                if (!tempFile.renameTo(cacheFile)) {
+                    Log.w(TAG, "Failed to update " + CACHE_FILE_NAME);
+                } else if (writeMeta(metaFile, download.etag, download.lastModified)) {
+                    writeSnapshot(snapshotFile, download.etag, download.entries);
+                }
+                setEntries(download.entries);
+                etag = download.etag;
+                lastModified = download.lastModified;
+                validatedAt = System.currentTimeMillis();
+                return index;
             }
         }
-        return lines;
     }
 
-    private List<VersionEntry> parse(List<String> lines) {
-        List<VersionEntry> list = new ArrayList<>();
-        Log.d(TAG, "Parsing " + lines.size() + " lines");
-        for (String raw : lines) {
-            Log.d(TAG, "Parsing line: " + raw);
-            Parsed p = parseLine(raw);
-            if (p != null) {
-                Log.d(TAG, "Parsed: " + p.title + " -> " + p.url + " (beta: " + p.isBeta + ")");
-                list.add(new VersionEntry(p.title, p.url, p.isBeta));
-            } else {
-                Log.w(TAG, "Failed to parse line: " + raw);
+    private void setEntries(List<VersionEntry> list) {
+        index = new VersionIndex(list);
+        entries = index.getEntries();
+    }
+
+    private static List<VersionEntry> difference(List<VersionEntry> from, List<VersionEntry> minus) {
+        Set<VersionEntry> exclude = new HashSet<>(minus);
+        List<VersionEntry> result = new ArrayList<>();
+        for (VersionEntry entry : from) {
+            if (!exclude.contains(entry)) {
+                result.add(entry);
             }
         }
-        Log.d(TAG, "Parsed " + list.size() + " version entries");
-        return list;
+        return result;
     }
 
-    private static class Parsed {
-        String title;
-        String url;
-        boolean isBeta;
+    private void deliver(LifecycleOwner owner, Runnable callback) {
+        mainHandler.post(() -> {
+            if (owner.getLifecycle().getCurrentState() != Lifecycle.State.DESTROYED) {
+                callback.run();
+            }
+        });
     }
 
-    private Parsed parseLine(String raw) {
-        // Try common separators: |, tab, comma, or last-whitespace URL
-        String title = null;
-        String url = null;
+    public synchronized void clearCache(Context context) {
+        File cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
+        File metaFile = new File(context.getCacheDir(), META_FILE_NAME);
+        metaFile.delete();
+        new File(context.getCacheDir(), SNAPSHOT_FILE_NAME).delete();
+        if (cacheFile.exists()) {
+            cacheFile.delete();
+            Log.d(TAG, "Cleared version cache");
+        }
+        entries = null;
+        index = VersionIndex.empty();
+        etag = null;
+        lastModified = null;
+        validatedAt = 0;
+    }
 
-        if (raw.contains("|") ) {
-            String[] parts = raw.split("\\|", 2);
-            if (parts.length == 2) {
-                title = parts[0].trim();
-                url = parts[1].trim();
+    /**
+     * Load the last known list, preferring the binary snapshot when it was written from the same
+     * response as the text cache and falling back to re-parsing the text otherwise
+     */
+    private void loadFromDisk(File cacheFile, File metaFile, File snapshotFile) {
+        boolean hasMeta = false;
+        if (metaFile.exists()) {
+            try {
+                JSONObject meta = new JSONObject(new String(Files.readAllBytes(metaFile.toPath()), StandardCharsets.UTF_8));
+                etag = meta.optString("etag", null);
+                lastModified = meta.optString("last_modified", null);
+                hasMeta = true;
+            } catch (Exception e) {
+                Log.w(TAG, "Ignoring unreadable " + META_FILE_NAME, e);
             }
         }
-        if (title == null || url == null) {
-            String[] parts = raw.split("\t", 2);
-            if (parts.length == 2 && parts[1].startsWith("http")) {
-                title = parts[0].trim();
-                url = parts[1].trim();
+
+        if (hasMeta && snapshotFile.exists()) {
+            long start = System.nanoTime();
+            try {
+                VersionsSnapshot snapshot = VersionsSnapshot.read(snapshotFile);
+                if (Objects.equals(snapshot.etag, etag) && !snapshot.entries.isEmpty()) {
+                    setEntries(snapshot.entries);
+                    Log.d(TAG, "Loaded " + entries.size() + " version entries from snapshot in " + (System.nanoTime() - start) / 1000 + " us");
+                    return;
+                }
+                Log.d(TAG, "Snapshot is from another response, re-parsing " + CACHE_FILE_NAME);
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable " + SNAPSHOT_FILE_NAME, e);
             }
+            snapshotFile.delete();
         }
-        if (title == null || url == null) {
-            int idx = raw.lastIndexOf(" http");
-            if (idx == -1) idx = raw.lastIndexOf("\thttp");
-            if (idx == -1) {
-                // fallback: find first http
-                int h = raw.indexOf("http");
-                if (h > 0) {
-                    title = raw.substring(0, h).trim();
-                    url = raw.substring(h).trim();
+
+        try {
+            if (cacheFile.exists()) {
+                List<VersionEntry> cached = readCache(cacheFile);
+                if (!cached.isEmpty()) {
+                    setEntries(cached);
+                    Log.d(TAG, "Loaded " + entries.size() + " cached version entries");
+                    if (hasMeta) {
+                        writeSnapshot(snapshotFile, etag, cached);
+                    }
                 }
-            } else {
-                title = raw.substring(0, idx).trim();
-                url = raw.substring(idx + 1).trim();
             }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read cached versions", e);
+        }
+        if (entries == null) {
+            etag = null;
+            lastModified = null;
         }
+    }
+
+    private static class Download {
+        final List<VersionEntry> entries;
+        final String etag;
+        final String lastModified;
 
-        if (title == null || url == null || !url.startsWith("http")) {
-            Log.w(TAG, "Skipping unparseable line: " + raw);
-            return null;
+        Download(List<VersionEntry> entries, String etag, String lastModified) {
+            this.entries = entries;
+            this.etag = etag;
+            this.lastModified = lastModified;
         }
+    }
 
-        // Determine isBeta by counting dots in version pattern inside title
-        String version = extractVersion(title);
-        int dotCount = version != null ? count(version, '.') : count(title, '.');
-        // Classification rule:
-        // - 2 dots (e.g., 1.21.100) => stable
-        // - 3 dots (e.g., 1.21.100.10) => beta
-        // Fallback: >=3 => beta, otherwise stable
-        boolean isBeta = (dotCount == 3) || (dotCount > 3);
+    /**
+     * Download and parse the version list in one pass, copying its lines to cacheCopy; returns null
+     * if validators were sent and the server answered 304
+     */
+    private Download download(String ifNoneMatch, String ifModifiedSince, File cacheCopy) throws Exception {
+        Request.Builder request = new Request.Builder().url(REMOTE_URL);
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        if (ifModifiedSince != null) {
+            request.header("If-Modified-Since", ifModifiedSince);
+        }
+        Log.d(TAG, "Requesting " + REMOTE_URL);
+        // Uncached: the feed copy and its validators above are the cache, OkHttp's would hold it twice
+        try (Response response = NetworkClient.getUncached().newCall(request.build()).execute()) {
+            int code = response.code();
+            Log.d(TAG, "HTTP response code: " + code + " (" + response.protocol() + ")");
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && (ifNoneMatch != null || ifModifiedSince != null)) {
+                return null;
+            }
+            if (code != HttpURLConnection.HTTP_OK || response.body() == null) {
+                try {
+                    Log.e(TAG, "Error response: " + (response.body() != null ? response.body().string() : ""));
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not read error response", e);
+                }
+                throw new Exception("HTTP " + code);
+            }
+            List<VersionEntry> result;
+            try (Reader reader = new InputStreamReader(response.body().byteStream(), StandardCharsets.UTF_8);
+                 Writer copy = new BufferedWriter(new FileWriter(cacheCopy))) {
+                result = new VersionFeedParser().parse(reader, copy);
+            }
+            return new Download(result, response.header("ETag"), response.header("Last-Modified"));
+        }
+    }
 
-        // Clean up title: remove any ':' characters
-        String cleanTitle = title.replace(":", "").trim();
 
-        Parsed p = new Parsed();
-        p.title = cleanTitle;
-        p.url = url;
-        p.isBeta = isBeta;
-        return p;
+    private boolean writeMeta(File file, String etag, String lastModified) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            JSONObject meta = new JSONObject();
+            meta.put("etag", etag);
+            meta.put("last_modified", lastModified);
+            writer.write(meta.toString());
+            return true;
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to write " + META_FILE_NAME, e);
+            file.delete();
+            return false;
+        }
     }
 
-    private String extractVersion(String title) {
+    private void writeSnapshot(File file, String etag, List<VersionEntry> entries) {
         try {
-            Pattern pattern = Pattern.compile("(\\d+\\.\\d+\\.\\d+(?:\\.\\d+)*)");
-            Matcher m = pattern.matcher(title);
-            if (m.find()) return m.group(1);
-        } catch (Exception ignored) {}
-        return null;
+            VersionsSnapshot.write(file, etag, entries);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write " + SNAPSHOT_FILE_NAME, e);
+            file.delete();
+        }
     }
 
-    private int count(String s, char c) {
-        int n = 0;
-        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == c) n++;
-        return n;
+    private List<VersionEntry> readCache(File file) throws Exception {
+        try (Reader reader = new FileReader(file)) {
+            return new VersionFeedParser().parse(reader, null);
+        }
     }
 }
-
@@ -0,0 +1,177 @@
+package com.origin.launcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the parsed version list, so an offline start maps one small file instead of
+ * re-parsing the text feed. URLs are stored as an index into a table of distinct prefixes (everything
+ * up to the last '/') plus the remaining file name.
+ *
+ * Layout: magic, format version, ETag of the source response, payload length, CRC32 of the payload, payload.
+ */
+public class VersionsSnapshot {
+    private static final int MAGIC = 0x58565331; // "XVS1"
+    private static final int FORMAT_VERSION = 2;
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    public final String etag;
+    public final List<VersionsRepository.VersionEntry> entries;
+
+    private VersionsSnapshot(String etag, List<VersionsRepository.VersionEntry> entries) {
+        this.etag = etag;
+        this.entries = entries;
+    }
+
+    /**
+     * Write entries to file through a temp file, so a reader never sees a partial snapshot
+     */
+    public static void write(File file, String etag, List<VersionsRepository.VersionEntry> entries) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        Map<String, Integer> prefixIds = new HashMap<>();
+        List<String> prefixes = new ArrayList<>();
+        for (VersionsRepository.VersionEntry entry : entries) {
+            String prefix = urlPrefix(entry.url);
+            if (!prefixIds.containsKey(prefix)) {
+                prefixIds.put(prefix, prefixes.size());
+                prefixes.add(prefix);
+            }
+        }
+        payload.writeInt(prefixes.size());
+        for (String prefix : prefixes) {
+            writeString(payload, prefix);
+        }
+        payload.writeInt(entries.size());
+        for (VersionsRepository.VersionEntry entry : entries) {
+            String prefix = urlPrefix(entry.url);
+            writeString(payload, entry.title);
+            payload.writeInt(prefixIds.get(prefix));
+            writeString(payload, entry.url.substring(prefix.length()));
+            payload.writeBoolean(entry.isBeta);
+            payload.writeByte(entry.version.length);
+            for (int part : entry.version) {
+                payload.writeInt(part);
+            }
+            writeString(payload, entry.sha256 != null ? entry.sha256 : "");
+        }
+        payload.flush();
+        byte[] body = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(fileOut)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, etag != null ? etag : "");
+            out.writeInt(body.length);
+            out.writeLong(crc.getValue());
+            out.write(body);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to publish " + file.getName());
+        }
+    }
+
+    /**
+     * Map and decode file; throws IOException if it is missing, from another format version or corrupt
+     */
+    public static VersionsSnapshot read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IOException("Not a versions snapshot");
+                }
+                int formatVersion = buffer.getInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IOException("Unsupported snapshot format " + formatVersion);
+                }
+                String etag = readString(buffer);
+                int payloadLength = buffer.getInt();
+                long checksum = buffer.getLong();
+                if (payloadLength != buffer.remaining()) {
+                    throw new IOException("Truncated snapshot");
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.duplicate());
+                if (crc.getValue() != checksum) {
+                    throw new IOException("Snapshot checksum mismatch");
+                }
+
+                String[] prefixes = new String[checkedCount(buffer)];
+                for (int i = 0; i < prefixes.length; i++) {
+                    prefixes[i] = readString(buffer);
+                }
+                int count = checkedCount(buffer);
+                List<VersionsRepository.VersionEntry> entries = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String title = readString(buffer);
+                    int prefixId = buffer.getInt();
+                    if (prefixId < 0 || prefixId >= prefixes.length) {
+                        throw new IOException("Bad URL prefix " + prefixId);
+                    }
+                    String url = prefixes[prefixId] + readString(buffer);
+                    boolean isBeta = buffer.get() != 0;
+                    int[] version = new int[buffer.get() & 0xFF];
+                    for (int v = 0; v < version.length; v++) {
+                        version[v] = buffer.getInt();
+                    }
+                    String sha256 = readString(buffer);
+                    entries.add(new VersionsRepository.VersionEntry(title, url, isBeta, version, sha256.isEmpty() ? null : sha256));
+                }
+                return new VersionsSnapshot(etag.isEmpty() ? null : etag, entries);
+            } catch (RuntimeException e) {
+                // BufferUnderflowException and friends: the file is shorter than its own header claims
+                throw new IOException("Corrupt snapshot", e);
+            }
+        }
+    }
+
+    private static String urlPrefix(String url) {
+        return url.substring(0, url.lastIndexOf('/') + 1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > MAX_STRING_BYTES || length > buffer.remaining()) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkedCount(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Bad count " + count);
+        }
+        return count;
+    }
+}
@@ -5,6 +5,7 @@ import android.util.Log;
 
 public class XeloApplication extends Application {
     private static final String TAG = "XeloApplication";
+    private static TaskScheduler scheduler;
     
     @Override
     public void onCreate() {
@@ -12,9 +13,31 @@ public class XeloApplication extends Application {
         
         Log.d(TAG, "Initializing Xelo Application");
         
+        // Create the shared background scheduler before anything can submit work
+        getScheduler();
+        
+        // Give the shared HTTP client its disk cache before the first request
+        NetworkClient.init(this);
+        
         // Initialize ThemeManager globally
         ThemeManager.getInstance(this);
         
         Log.d(TAG, "ThemeManager initialized");
     }
-}
\ No newline at end of file
+    
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        Log.d(TAG, "Scheduler state on trim memory (" + level + "):\n" + getScheduler().describeMetrics());
+    }
+    
+    /**
+     * App-wide scheduler for background work (I/O, CPU and network lanes)
+     */
+    public static synchronized TaskScheduler getScheduler() {
+        if (scheduler == null) {
+            scheduler = new TaskScheduler();
+        }
+        return scheduler;
+    }
+}
@@ -0,0 +1,443 @@
+package com.origin.launcher;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Minimal reader for the central directory of an APK, exposing where each entry's data
+ * starts so STORED entries can be copied or mapped without going through an inflater.
+ * It is the only index of the entries it covers: compressed ones are inflated from the same
+ * offsets, so callers need no ZipFile next to it. Layouts this reader does not handle (ZIP64)
+ * are indexed through ZipFile instead, and then no entry counts as stored.
+ */
+public class ZipCentralDirectory implements Closeable {
+    private static final String TAG = "ZipCentralDirectory";
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    // transferTo may move a whole entry in one call; slices keep a cancelled extraction responsive
+    private static final long TRANSFER_SLICE = 8L * 1024 * 1024;
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    public static class Entry {
+        public final String name;
+        public final int method;
+        public final long crc;
+        public final long compressedSize;
+        public final long size;
+        final long localHeaderOffset;
+        long dataOffset = -1;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        /** Stored uncompressed at a known offset, so it can be copied or mapped as it is */
+        public boolean isStored() {
+            return method == METHOD_STORED && compressedSize == size && localHeaderOffset >= 0;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Entry> entries;
+    private final ZipFile fallback; // only for layouts read() rejects
+
+    private ZipCentralDirectory(File file, Map<String, Entry> entries, ZipFile fallback) {
+        this.file = file;
+        this.entries = entries;
+        this.fallback = fallback;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    public Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    /**
+     * Index the files under prefix in file: with read() where it can, else through ZipFile, which
+     * then stays open until close()
+     */
+    public static ZipCentralDirectory open(File file, String prefix) throws IOException {
+        try {
+            return read(file, prefix);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not index " + file.getName() + " directly, falling back to ZipFile", e);
+        }
+        ZipFile zip = new ZipFile(file);
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        Enumeration<? extends ZipEntry> all = zip.entries();
+        while (all.hasMoreElements()) {
+            ZipEntry ze = all.nextElement();
+            if (!ze.isDirectory() && ze.getName().startsWith(prefix)) {
+                entries.put(ze.getName(), new Entry(ze.getName(), ze.getMethod(), ze.getCrc(), ze.getCompressedSize(), ze.getSize(), -1));
+            }
+        }
+        return new ZipCentralDirectory(file, entries, zip);
+    }
+
+    /**
+     * Read the central directory of file, keeping only files whose name starts with prefix
+     */
+    public static ZipCentralDirectory read(File file, String prefix) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long fileSize = channel.size();
+            if (fileSize < EOCD_MIN_SIZE) {
+                throw new IOException("Not a ZIP file: " + file.getName());
+            }
+
+            int tailSize = (int) Math.min(fileSize, EOCD_MIN_SIZE + MAX_COMMENT_SIZE);
+            ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+            int eocd = -1;
+            for (int i = tailSize - EOCD_MIN_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIGNATURE) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("End of central directory not found in " + file.getName());
+            }
+
+            long cdSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long cdOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            if (cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL || cdOffset + cdSize > fileSize) {
+                throw new IOException("Unsupported or corrupt central directory in " + file.getName());
+            }
+
+            ByteBuffer cd = readFully(channel, cdOffset, (int) cdSize);
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            int pos = 0;
+            while (pos + 46 <= cdSize && cd.getInt(pos) == CENTRAL_SIGNATURE) {
+                int method = cd.getShort(pos + 10) & 0xFFFF;
+                long crc = cd.getInt(pos + 16) & 0xFFFFFFFFL;
+                long compressedSize = cd.getInt(pos + 20) & 0xFFFFFFFFL;
+                long size = cd.getInt(pos + 24) & 0xFFFFFFFFL;
+                int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+                int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+                int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+                long localHeaderOffset = cd.getInt(pos + 42) & 0xFFFFFFFFL;
+                int nameStart = pos + 46;
+                if (nameStart + nameLength > cdSize) {
+                    throw new IOException("Truncated central directory in " + file.getName());
+                }
+                boolean directory = nameLength > 0 && cd.get(nameStart + nameLength - 1) == '/';
+                if (!directory && startsWith(cd, nameStart, nameLength, prefixBytes)) {
+                    byte[] nameBytes = new byte[nameLength];
+                    cd.position(nameStart);
+                    cd.get(nameBytes);
+                    String name = new String(nameBytes, StandardCharsets.UTF_8);
+                    entries.put(name, new Entry(name, method, crc, compressedSize, size, localHeaderOffset));
+                }
+                pos = nameStart + nameLength + extraLength + commentLength;
+            }
+            return new ZipCentralDirectory(file, entries, null);
+        }
+    }
+
+    /**
+     * Offset of the first byte of entry data, resolved from its local header on first use
+     */
+    public synchronized long dataOffset(Entry entry) throws IOException {
+        if (entry.localHeaderOffset < 0) {
+            throw new IOException("No offset known for " + entry.name);
+        }
+        if (entry.dataOffset < 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                ByteBuffer header = readFully(raf.getChannel(), entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+                if (header.getInt(0) != LOCAL_SIGNATURE) {
+                    throw new IOException("Bad local header for " + entry.name);
+                }
+                int nameLength = header.getShort(26) & 0xFFFF;
+                int extraLength = header.getShort(28) & 0xFFFF;
+                entry.dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            }
+        }
+        return entry.dataOffset;
+    }
+
+    /**
+     * Stream the uncompressed data of entry; the caller closes it. Reading it to the end checks its
+     * size and CRC-32 against the central directory and throws ZipException if either differs.
+     */
+    public InputStream openStream(Entry entry) throws IOException {
+        return new VerifyingInputStream(openUnchecked(entry), entry);
+    }
+
+    private InputStream openUnchecked(Entry entry) throws IOException {
+        if (fallback != null) {
+            ZipEntry ze = fallback.getEntry(entry.name);
+            if (ze == null) {
+                throw new IOException(entry.name + " not found in " + file.getName());
+            }
+            return fallback.getInputStream(ze);
+        }
+        if (entry.method != METHOD_STORED && entry.method != METHOD_DEFLATED) {
+            throw new IOException("Unsupported compression method " + entry.method + " for " + entry.name);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        InputStream raw;
+        try {
+            raw = new RangeInputStream(raf, dataOffset(entry), entry.compressedSize);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        if (entry.method == METHOD_STORED) {
+            return raw;
+        }
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(raw, inflater, INFLATE_BUFFER_SIZE) {
+            private boolean eof;
+
+            @Override
+            protected void fill() throws IOException {
+                if (eof) {
+                    throw new EOFException("Unexpected end of " + entry.name);
+                }
+                len = in.read(buf, 0, buf.length);
+                if (len == -1) {
+                    // A raw inflater may need one byte past the data to finish, as ZipFile gives it
+                    buf[0] = 0;
+                    len = 1;
+                    eof = true;
+                }
+                inflater.setInput(buf, 0, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    /**
+     * Copy a STORED entry to out with FileChannel.transferTo, bypassing any user-space buffer, and
+     * so without the CRC-32 check of openStream; the bytes are the archive's own, uncompressed.
+     * Interrupting the calling thread stops the copy between slices, or within one, where the
+     * channel gives up; either way this throws InterruptedIOException.
+     */
+    public void transferStored(Entry entry, File out) throws IOException {
+        if (!entry.isStored()) {
+            throw new IOException(entry.name + " is compressed");
+        }
+        try {
+            long offset = dataOffset(entry);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileOutputStream output = new FileOutputStream(out)) {
+                FileChannel source = raf.getChannel();
+                FileChannel target = output.getChannel();
+                long written = 0;
+                while (written < entry.size) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Copy of " + entry.name + " cancelled");
+                    }
+                    long n = source.transferTo(offset + written, Math.min(TRANSFER_SLICE, entry.size - written), target);
+                    if (n <= 0) {
+                        throw new IOException("Unexpected end of " + entry.name);
+                    }
+                    written += n;
+                }
+                output.getFD().sync();
+            }
+        } catch (ClosedByInterruptException e) {
+            // The interrupt closed a channel mid-call; report it like the check between slices
+            InterruptedIOException cancelled = new InterruptedIOException("Copy of " + entry.name + " cancelled");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
+    }
+
+    /**
+     * Data of an entry, checked against the size and CRC-32 the central directory lists once it has
+     * been read to the end, so a damaged entry fails the extraction instead of leaving a corrupt file
+     */
+    private static final class VerifyingInputStream extends FilterInputStream {
+        private final Entry entry;
+        private final CRC32 crc = new CRC32();
+        private long count;
+        private boolean verified;
+
+        VerifyingInputStream(InputStream in, Entry entry) {
+            super(in);
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n == -1) {
+                verify();
+            } else {
+                crc.update(b, off, n);
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes still count towards the checksum
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void verify() throws IOException {
+            if (verified) {
+                return;
+            }
+            if (entry.size != -1 && count != entry.size) {
+                throw new ZipException("Size mismatch for " + entry.name + ": expected " + entry.size + ", got " + count);
+            }
+            if (entry.crc != -1 && crc.getValue() != entry.crc) {
+                throw new ZipException("CRC-32 mismatch for " + entry.name + ": expected "
+                        + Long.toHexString(entry.crc) + ", got " + Long.toHexString(crc.getValue()));
+            }
+            verified = true;
+        }
+    }
+
+    /**
+     * length bytes of a file from position on, read with positional reads; closes the file when closed
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        RangeInputStream(RandomAccessFile raf, long position, long length) {
+            this.raf = raf;
+            this.channel = raf.getChannel();
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int start, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * BandwidthLimiter's token bucket: the sustained rate, the burst an idle period may save up, and
+ * cancellation while waiting; then the rate DownloadEngine achieves under a cap, against a server
+ * that throttles each connection. Timings are checked with generous margins.
+ */
+public class BandwidthLimiterTest {
+    private static final int KB = 1024;
+    private static final long RATE = 1024 * KB;
+
+    @Test
+    public void noCapNeverWaits() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+
+        long millis = timeAcquire(limiter, 64 * KB, 1024);
+
+        assertEquals(0, limiter.getRate());
+        assertTrue("took " + millis + " ms", millis < 100);
+    }
+
+    @Test
+    public void negativeRateRemovesTheCap() {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setRate(RATE);
+        limiter.setRate(-1);
+
+        assertEquals(0, limiter.getRate());
+    }
+
+    @Test
+    public void sustainedTransferRunsAtTheRate() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setRate(RATE);
+
+        // Half a second of data; setRate starts the bucket empty, so nothing is free
+        long millis = timeAcquire(limiter, 64 * KB, 8);
+
+        assertTrue("took " + millis + " ms", millis >= 450);
+        assertTrue("took " + millis + " ms", millis < 1000);
+    }
+
+    @Test
+    public void idleTimeSavesUpAtMostAQuarterSecond() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setRate(RATE);
+        Thread.sleep(1000);
+
+        // The saved quarter second covers the first 256 KB...
+        long burst = timeAcquire(limiter, 64 * KB, 4);
+        // ...but not a full second's worth, so the next 256 KB is paced again
+        long paced = timeAcquire(limiter, 64 * KB, 4);
+
+        assertTrue("burst took " + burst + " ms", burst < 100);
+        assertTrue("paced part took " + paced + " ms", paced >= 200);
+    }
+
+    @Test
+    public void interruptWhileWaitingCancels() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setRate(KB);
+        Thread.currentThread().interrupt();
+        try {
+            limiter.acquire(64 * KB);
+            fail("acquire should throw when interrupted");
+        } catch (InterruptedIOException expected) {
+            // The interrupt is kept for the caller
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void cappedDownloadRunsAtTheCap() throws Exception {
+        // Four connections at 1 MB/s each could move 4 MB/s; the cap allows a quarter of that
+        long cap = RATE;
+        byte[] content = new byte[3 * 1024 * KB];
+        new Random(3).nextBytes(content);
+        File dir = Files.createTempDirectory("limiter-test").toFile();
+        File out = new File(dir, "file.apk");
+        AtomicReference<ThroughputHistogram> histogram = new AtomicReference<>();
+        try (TestHttpServer server = new TestHttpServer(content, "\"v1\"")) {
+            server.setBytesPerSecond(RATE);
+            DownloadEngine.get().setBandwidthLimit(cap);
+
+            long start = System.nanoTime();
+            DownloadEngine.get().download(server.url(), out, null, new DownloadEngine.Listener() {
+                @Override
+                public void onStart(long total, ThroughputHistogram throughput) {
+                    histogram.set(throughput);
+                }
+
+                @Override
+                public void onProgress(long downloaded, long total) {
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertArrayEquals(content, Files.readAllBytes(out.toPath()));
+            long rate = (long) (content.length / seconds);
+            assertTrue("achieved " + rate / KB + " KB/s", rate >= cap * 0.8);
+            // The bucket starts empty and saves up at most a quarter second, so it cannot run ahead
+            assertTrue("achieved " + rate / KB + " KB/s", rate <= cap * 1.1);
+            long median = histogram.get().percentile(0.5);
+            assertTrue(histogram.get().toString(), median >= cap / 2 && median <= cap * 2);
+        } finally {
+            DownloadEngine.get().setBandwidthLimit(0);
+            out.delete();
+            dir.delete();
+        }
+    }
+
+    private static long timeAcquire(BandwidthLimiter limiter, int bytes, int times) throws InterruptedIOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            limiter.acquire(bytes);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
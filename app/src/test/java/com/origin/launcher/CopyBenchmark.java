@@ -0,0 +1,128 @@
+package com.origin.launcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * CopyEngine and ZipCentralDirectory.transferStored against the 8 KB buffered-stream copy
+ * HomeFragment used before, on a DEFLATED and a STORED library of the same size in one archive.
+ * The copies do not sync, so they measure the copy itself rather than the device's flash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyBenchmark {
+    private static final String LIB = "lib/arm64-v8a/";
+
+    @Param({"8", "48"})
+    public int megabytes;
+
+    private File dir;
+    private File out;
+    private ZipFile zip;
+    private ZipCentralDirectory index;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("copy-benchmark").toFile();
+        File apk = new File(dir, "test.apk");
+        out = new File(dir, "out.so");
+        // Four bits of entropy per byte, so inflating costs about what it does for a real library
+        byte[] library = new byte[megabytes * 1024 * 1024];
+        Random random = new Random(megabytes);
+        for (int i = 0; i < library.length; i++) {
+            library[i] = (byte) random.nextInt(16);
+        }
+        try (ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(apk))) {
+            stream.putNextEntry(new ZipEntry(LIB + "libdeflated.so"));
+            stream.write(library);
+            stream.closeEntry();
+            ZipEntry stored = new ZipEntry(LIB + "libstored.so");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(library.length);
+            CRC32 crc = new CRC32();
+            crc.update(library);
+            stored.setCrc(crc.getValue());
+            stream.putNextEntry(stored);
+            stream.write(library);
+            stream.closeEntry();
+        }
+        zip = new ZipFile(apk);
+        index = ZipCentralDirectory.read(apk, LIB);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        zip.close();
+        index.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public long legacyDeflatedCopy() throws IOException {
+        return legacyCopy(zip.getInputStream(zip.getEntry(LIB + "libdeflated.so")), out);
+    }
+
+    @Benchmark
+    public long deflatedCopy() throws IOException {
+        return CopyEngine.copy(zip.getInputStream(zip.getEntry(LIB + "libdeflated.so")), out, false);
+    }
+
+    @Benchmark
+    public long legacyStoredCopy() throws IOException {
+        return legacyCopy(zip.getInputStream(zip.getEntry(LIB + "libstored.so")), out);
+    }
+
+    @Benchmark
+    public long storedTransfer() throws IOException {
+        ZipCentralDirectory.Entry entry = index.get(LIB + "libstored.so");
+        index.transferStored(entry, out);
+        return entry.size;
+    }
+
+    /** HomeFragment.copyFile as it was before CopyEngine */
+    private static long legacyCopy(InputStream from, File to) throws IOException {
+        try (BufferedInputStream input = new BufferedInputStream(from);
+             BufferedOutputStream output = new BufferedOutputStream(Files.newOutputStream(to.toPath()))) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            long total = 0;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                output.write(buffer, 0, bytesRead);
+                total += bytesRead;
+            }
+            return total;
+        }
+    }
+}
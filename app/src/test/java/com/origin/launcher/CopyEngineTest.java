@@ -0,0 +1,188 @@
+package com.origin.launcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * CopyEngine's inline and pipelined copies: contents and progress, the reader taking over when no
+ * IO thread is free for the writer, copies started on the IO lane, and cancellation.
+ */
+public class CopyEngineTest {
+    private static final int MB = 1024 * 1024;
+
+    private File dir;
+    private File target;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("copy-test").toFile();
+        target = new File(dir, "nested/out.bin");
+    }
+
+    @After
+    public void tearDown() {
+        target.delete();
+        target.getParentFile().delete();
+        dir.delete();
+    }
+
+    @Test
+    public void smallSourceIsCopiedInline() throws Exception {
+        byte[] content = randomBytes(100_000);
+
+        long copied = CopyEngine.copy(new ByteArrayInputStream(content), target, false);
+
+        assertEquals(content.length, copied);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void largeSourceIsPipelinedWithProgress() throws Exception {
+        // Several buffers and a short last one, read in odd-sized pieces
+        byte[] content = randomBytes(5 * MB + 12_345);
+        ProgressAggregator.Task progress = new ProgressAggregator.Task("copy", content.length);
+
+        long copied = CopyEngine.copy(new TrickleInputStream(content, 77_777), target, true, progress);
+
+        assertEquals(content.length, copied);
+        assertEquals(content.length, progress.getDone());
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void emptySourceMakesEmptyFile() throws Exception {
+        long copied = CopyEngine.copy(new ByteArrayInputStream(new byte[0]), target, false);
+
+        assertEquals(0, copied);
+        assertTrue(target.isFile());
+        assertEquals(0, target.length());
+    }
+
+    @Test(timeout = 20000)
+    public void readerWritesItselfWhenTheIoLaneIsBusy() throws Exception {
+        byte[] content = randomBytes(6 * MB + 1);
+        CountDownLatch started = new CountDownLatch(TaskScheduler.Lane.IO.threads);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < TaskScheduler.Lane.IO.threads; i++) {
+            TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.HIGH, () -> {
+                started.countDown();
+                release.await();
+                return null;
+            });
+        }
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Would wait forever if the copy needed its writer to run
+            long copied = CopyEngine.copy(new ByteArrayInputStream(content), target, false);
+
+            assertEquals(content.length, copied);
+            assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void copyOnTheIoLaneDoesNotWaitOnItsOwnLane() throws Exception {
+        byte[] content = randomBytes(3 * MB);
+        // Every IO thread runs a copy at once, so none is left for a writer
+        int copies = TaskScheduler.Lane.IO.threads;
+        CountDownLatch ready = new CountDownLatch(copies);
+        Future<?>[] futures = new Future<?>[copies];
+        for (int i = 0; i < copies; i++) {
+            File out = new File(dir, "lane-" + i + ".bin");
+            futures[i] = TaskScheduler.get().submit(TaskScheduler.Lane.IO, TaskScheduler.Priority.NORMAL, () -> {
+                ready.countDown();
+                ready.await();
+                return CopyEngine.copy(new ByteArrayInputStream(content), out, false);
+            });
+        }
+        for (int i = 0; i < copies; i++) {
+            File out = new File(dir, "lane-" + i + ".bin");
+            assertEquals((long) content.length, futures[i].get());
+            assertArrayEquals(content, Files.readAllBytes(out.toPath()));
+            out.delete();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void interruptCancelsTheCopy() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch reading = new CountDownLatch(1);
+        Thread copier = new Thread(() -> {
+            try {
+                CopyEngine.copy(new EndlessInputStream(reading), target, false);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        copier.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        copier.interrupt();
+        copier.join();
+
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof InterruptedIOException);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** Hands out at most step bytes per read, like an inflater or a socket */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+        private final int step;
+
+        TrickleInputStream(byte[] buf, int step) {
+            super(buf);
+            this.step = step;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, step));
+        }
+    }
+
+    /** Zeros forever; signals once the copy has read several buffers */
+    private static final class EndlessInputStream extends InputStream {
+        private final CountDownLatch reading;
+        private long total;
+
+        EndlessInputStream(CountDownLatch reading) {
+            this.reading = reading;
+        }
+
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            total += len;
+            if (total > 4L * MB) {
+                reading.countDown();
+            }
+            return len;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.origin.launcher;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * DownloadEngine against a local server: ranged downloads, resuming from saved chunk progress,
+ * starting over when If-Range says the file changed, SHA-256 verification, segmented against
+ * single-stream throughput, and how the chunk size follows the measured link.
+ */
+public class DownloadEngineTest {
+    private static final int MB = 1024 * 1024;
+    // Four 1 MB chunks, the last one short; the engine never picks chunks below 1 MB
+    private static final int LENGTH = 3 * MB + 123_457;
+
+    private final DownloadEngine.Listener listener = new DownloadEngine.Listener() {
+        @Override
+        public void onStart(long total, ThroughputHistogram throughput) {
+        }
+
+        @Override
+        public void onProgress(long downloaded, long total) {
+        }
+    };
+
+    private File dir;
+    private File outFile;
+    private byte[] content;
+    private TestHttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("download-test").toFile();
+        outFile = new File(dir, "file.apk");
+        content = randomBytes(LENGTH, 1);
+        server = new TestHttpServer(content, "\"v1\"");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void rangedDownloadWritesFileAndReturnsItsHash() throws Exception {
+        String sha256 = DownloadEngine.get().download(server.url(), outFile, null, listener);
+
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+        assertEquals(sha256(content), sha256);
+        assertFalse(partFile().exists());
+        assertFalse(stateFile().exists());
+        // The probe plus one request per chunk
+        assertEquals(5, server.getRanges().size());
+        assertTrue(server.getRanges().contains("bytes=" + 3 * MB + "-" + (LENGTH - 1)));
+    }
+
+    @Test
+    public void resumeFetchesOnlyUnfinishedRanges() throws Exception {
+        // A previous attempt finished chunk 0 and half of chunk 2
+        writePart(0, MB);
+        writePart(2 * MB, MB / 2);
+        writeState("\"v1\"", new long[]{MB, 0, MB / 2, 0});
+
+        String sha256 = DownloadEngine.get().download(server.url(), outFile, null, listener);
+
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+        // The resumed prefix is hashed from disk, so the hash still covers the whole file
+        assertEquals(sha256(content), sha256);
+        List<String> ranges = server.getRanges();
+        assertEquals("bytes=0-0", ranges.get(0));
+        assertEquals(4, ranges.size());
+        assertTrue(ranges.contains("bytes=" + MB + "-" + (2 * MB - 1)));
+        assertTrue(ranges.contains("bytes=" + (2 * MB + MB / 2) + "-" + (3 * MB - 1)));
+        assertTrue(ranges.contains("bytes=" + 3 * MB + "-" + (LENGTH - 1)));
+        assertEquals(1 + LENGTH - MB - MB / 2, server.getBodyBytes());
+    }
+
+    @Test
+    public void savedStateOfOtherContentIsIgnored() throws Exception {
+        writePart(0, MB);
+        writeState("\"v0\"", new long[]{MB, 0, 0, 0});
+
+        DownloadEngine.get().download(server.url(), outFile, null, listener);
+
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+        assertEquals(1 + LENGTH, server.getBodyBytes());
+    }
+
+    @Test
+    public void failedIfRangeDiscardsPartialDataAndNextAttemptStartsOver() throws Exception {
+        writePart(0, MB);
+        writeState("\"v1\"", new long[]{MB, 0, 0, 0});
+        // The probe still sees v1, every range request after it finds v2
+        byte[] replaced = randomBytes(LENGTH, 2);
+        ReplacingListener replacing = new ReplacingListener(replaced, "\"v2\"");
+
+        try {
+            DownloadEngine.get().download(server.url(), outFile, null, replacing);
+            fail("Download should fail when If-Range does not match");
+        } catch (IOException expected) {
+            // The server answered a range with 200
+        }
+        assertFalse(outFile.exists());
+        assertFalse(partFile().exists());
+        assertFalse(stateFile().exists());
+
+        String sha256 = DownloadEngine.get().download(server.url(), outFile, null, listener);
+        assertArrayEquals(replaced, Files.readAllBytes(outFile.toPath()));
+        assertEquals(sha256(replaced), sha256);
+    }
+
+    @Test
+    public void hashMismatchDiscardsTheDownload() throws Exception {
+        try {
+            DownloadEngine.get().download(server.url(), outFile, sha256(new byte[]{1}), listener);
+            fail("Download should fail on a SHA-256 mismatch");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("SHA-256 mismatch"));
+        }
+        assertFalse(outFile.exists());
+        assertFalse(partFile().exists());
+        assertFalse(stateFile().exists());
+    }
+
+    @Test
+    public void expectedHashIsComparedIgnoringCase() throws Exception {
+        String expected = sha256(content).toUpperCase(Locale.ROOT);
+
+        String sha256 = DownloadEngine.get().download(server.url(), outFile, expected, listener);
+
+        assertTrue(expected.equalsIgnoreCase(sha256));
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+    }
+
+    @Test
+    public void serverWithoutRangesGetsOnePlainStream() throws Exception {
+        server.setRangesSupported(false);
+
+        String sha256 = DownloadEngine.get().download(server.url(), outFile, sha256(content), listener);
+
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+        assertEquals(sha256(content), sha256);
+        assertEquals(2, server.getRanges().size());
+        assertEquals("", server.getRanges().get(1));
+    }
+
+    @Test(timeout = 30000)
+    public void segmentsBeatOneStreamOnAThrottledServer() throws Exception {
+        // Like a mirror that limits each connection to 1 MB/s
+        server.setBytesPerSecond(MB);
+        long segmented = timeDownload();
+        server.setRangesSupported(false);
+        long single = timeDownload();
+
+        // Four connections at once against one; setup and the short last chunk eat some of the 4x
+        assertTrue("segmented " + segmented + " ms, single " + single + " ms", single >= 2 * segmented);
+    }
+
+    @Test
+    public void chunkSizeFollowsThroughputAndRoundTrip() {
+        long large = 1024L * MB;
+        long k64 = 64 * 1024;
+
+        // Nothing measured yet
+        assertEquals(4 * MB, DownloadEngine.chunkSizeFor(large, 0, 0, 0));
+        // Two seconds of transfer at the measured rate
+        assertEquals(2 * MB, DownloadEngine.chunkSizeFor(large, MB, 10, 0));
+        assertEquals(8 * MB, DownloadEngine.chunkSizeFor(large, 4 * MB, 10, 0));
+        // A slow round trip stretches a chunk to twenty of them
+        assertEquals(6 * MB, DownloadEngine.chunkSizeFor(large, 2 * MB, 150, 0));
+        // Within 1..16 MB, and whole 64 KB buffers
+        assertEquals(16 * MB, DownloadEngine.chunkSizeFor(large, 100 * MB, 10, 0));
+        assertEquals(MB, DownloadEngine.chunkSizeFor(large, 100 * 1024, 10, 0));
+        assertEquals((2_000_000 + k64 - 1) / k64 * k64, DownloadEngine.chunkSizeFor(large, 1_000_000, 10, 0));
+        // Every connection gets a chunk of a small file, down to the 1 MB floor
+        assertEquals(5 * MB, DownloadEngine.chunkSizeFor(20 * MB, 100 * MB, 10, 0));
+        assertEquals(MB, DownloadEngine.chunkSizeFor(2 * MB, 100 * MB, 10, 0));
+    }
+
+    @Test
+    public void capLimitsTheRateAChunkIsSizedFor() {
+        long large = 1024L * MB;
+
+        // Each connection gets a quarter of the cap, however fast the link measured
+        assertEquals(4 * MB, DownloadEngine.chunkSizeFor(large, 100 * MB, 10, 8 * MB));
+        assertEquals(8 * MB, DownloadEngine.chunkSizeFor(large, 0, 0, 16 * MB));
+        assertEquals(MB, DownloadEngine.chunkSizeFor(large, 100 * MB, 10, MB));
+        // A link slower than the share keeps its own rate
+        assertEquals(2 * MB, DownloadEngine.chunkSizeFor(large, MB, 10, 16 * MB));
+    }
+
+    /** Milliseconds a fresh download of the served file takes */
+    private long timeDownload() throws Exception {
+        outFile.delete();
+        long start = System.nanoTime();
+        DownloadEngine.get().download(server.url(), outFile, sha256(content), listener);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertArrayEquals(content, Files.readAllBytes(outFile.toPath()));
+        return millis;
+    }
+
+    /** Replaces the served file once the probe is answered, before any range is requested */
+    private final class ReplacingListener implements DownloadEngine.Listener {
+        private final byte[] body;
+        private final String etag;
+
+        ReplacingListener(byte[] body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        @Override
+        public void onStart(long total, ThroughputHistogram throughput) {
+            server.replace(body, etag);
+        }
+
+        @Override
+        public void onProgress(long downloaded, long total) {
+        }
+    }
+
+    private File partFile() {
+        return new File(outFile.getPath() + ".part");
+    }
+
+    private File stateFile() {
+        return new File(outFile.getPath() + ".part.json");
+    }
+
+    private void writePart(int offset, int length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(partFile(), "rw")) {
+            raf.setLength(LENGTH);
+            raf.seek(offset);
+            raf.write(content, offset, length);
+        }
+    }
+
+    /** Resume state as DownloadEngine saves it, for 1 MB chunks */
+    private void writeState(String etag, long[] done) throws Exception {
+        JSONObject state = new JSONObject();
+        state.put("url", server.url());
+        state.put("length", LENGTH);
+        state.put("etag", etag);
+        state.put("chunk_size", MB);
+        JSONArray chunks = new JSONArray();
+        for (long d : done) chunks.put(d);
+        state.put("done", chunks);
+        Files.write(stateFile().toPath(), state.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
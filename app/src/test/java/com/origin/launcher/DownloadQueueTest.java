@@ -0,0 +1,145 @@
+package com.origin.launcher;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * DownloadQueue holding downloads back on a metered network: nothing is requested while metered,
+ * a running download goes back to the queue and later resumes from its partial file. The queue is
+ * a process-wide singleton, so every test uses its own ids and files.
+ */
+public class DownloadQueueTest {
+    private static final int MB = 1024 * 1024;
+    private static final int LENGTH = 3 * MB + 123_457;
+
+    private static File dir;
+    private static DownloadQueue queue;
+
+    private final byte[] content = randomBytes(LENGTH);
+    private TestHttpServer server;
+
+    @BeforeClass
+    public static void setUpQueue() throws IOException {
+        dir = Files.createTempDirectory("queue-test").toFile();
+        queue = DownloadQueue.getInstance(new TestContext(dir));
+        queue.setDeferOnMetered(true);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        queue.networkChanged(true);
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void meteredNetworkHoldsQueuedDownloadsBack() throws Exception {
+        server = new TestHttpServer(content, "\"v1\"");
+        File target = new File(dir, "deferred.apk");
+        queue.networkChanged(false);
+
+        queue.enqueue("deferred", server.url(), "deferred", target, null);
+        Thread.sleep(500);
+
+        assertTrue(queue.isDeferring());
+        assertEquals(DownloadQueue.State.QUEUED, item("deferred").state);
+        assertTrue(server.getRanges().isEmpty());
+
+        queue.networkChanged(true);
+        awaitDone("deferred");
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test(timeout = 30000)
+    public void runningDownloadWaitsOutAMeteredNetworkAndResumes() throws Exception {
+        server = new TestHttpServer(content, "\"v1\"");
+        // Slow enough to still be running when the network turns metered
+        server.setBytesPerSecond(MB / 2);
+        File target = new File(dir, "interrupted.apk");
+
+        queue.enqueue("interrupted", server.url(), "interrupted", target, null);
+        while (server.getBodyBytes() < MB / 2) {
+            Thread.sleep(20);
+        }
+        queue.networkChanged(false);
+
+        assertEquals(DownloadQueue.State.QUEUED, item("interrupted").state);
+        // The workers stop once their next read returns; after that nothing more is fetched
+        Thread.sleep(500);
+        long sent = server.getBodyBytes();
+        int requests = server.getRanges().size();
+        Thread.sleep(500);
+        assertEquals(sent, server.getBodyBytes());
+        assertEquals(requests, server.getRanges().size());
+
+        server.setBytesPerSecond(0);
+        queue.networkChanged(true);
+        awaitDone("interrupted");
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        // Resumed: the bytes fetched before the pause were not fetched again
+        assertTrue(server.getBodyBytes() + " bytes sent", server.getBodyBytes() < LENGTH + sent);
+    }
+
+    private static DownloadQueue.Item item(String id) {
+        for (DownloadQueue.Item item : queue.getItems()) {
+            if (item.id.equals(id)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /** Wait until id has left the queue, which it does on completing or failing */
+    private static void awaitDone(String id) throws InterruptedException {
+        DownloadQueue.Item item;
+        while ((item = item(id)) != null) {
+            assertNotEquals(item.error, DownloadQueue.State.FAILED, item.state);
+            Thread.sleep(20);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** Application context whose files live in dir */
+    private static final class TestContext extends ContextWrapper {
+        private final File dir;
+
+        TestContext(File dir) {
+            super(null);
+            this.dir = dir;
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+
+        @Override
+        public File getFilesDir() {
+            return dir;
+        }
+
+        @Override
+        public File getExternalFilesDir(String type) {
+            return dir;
+        }
+    }
+}
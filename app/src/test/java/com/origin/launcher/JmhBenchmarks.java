@@ -0,0 +1,28 @@
+package com.origin.launcher;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks whose names match the benchmarks property, which the build sets from
+ * -Pbenchmarks=<regex>; skipped in ordinary test runs. Results go to build/jmh-results.txt.
+ */
+public class JmhBenchmarks {
+
+    @Test
+    public void run() throws Exception {
+        String include = System.getProperty("benchmarks", "");
+        Assume.assumeFalse("No -Pbenchmarks given", include.isEmpty());
+        File results = new File("build", "jmh-results.txt");
+        results.getParentFile().mkdirs();
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .output(results.getPath())
+                .build()).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.origin.launcher;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal HTTP/1.1 file server on a plain ServerSocket for download tests. Serves one body with an
+ * ETag, honours single Range requests and If-Range, and records what it was asked for. Every
+ * response closes its connection, which keeps the parsing trivial. Bodies can be paced to a rate
+ * per connection, like a mirror that throttles each client connection.
+ */
+final class TestHttpServer implements Closeable {
+    // Bodies are written in slices this large, so pacing stays smooth at low rates
+    private static final int SLICE = 16 * 1024;
+
+    private final ServerSocket socket;
+    private final Thread acceptor;
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong bodyBytes = new AtomicLong();
+    private volatile byte[] body;
+    private volatile String etag;
+    private volatile boolean rangesSupported = true;
+    private volatile long bytesPerSecond;
+
+    TestHttpServer(byte[] body, String etag) throws IOException {
+        this.body = body;
+        this.etag = etag;
+        socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "TestHttpServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + socket.getLocalPort() + "/file.apk";
+    }
+
+    /** Serve other content from now on, as a mirror that replaced the file would */
+    void replace(byte[] body, String etag) {
+        this.body = body;
+        this.etag = etag;
+    }
+
+    void setRangesSupported(boolean rangesSupported) {
+        this.rangesSupported = rangesSupported;
+    }
+
+    /** Send every response body at no more than bytesPerSecond on its connection; 0 removes the limit */
+    void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /** Range header of every request so far, "" for requests without one */
+    List<String> getRanges() {
+        synchronized (ranges) {
+            return new ArrayList<>(ranges);
+        }
+    }
+
+    /** Body bytes sent so far, across all responses */
+    long getBodyBytes() {
+        return bodyBytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void acceptLoop() {
+        while (!socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                Thread handler = new Thread(() -> serve(client), "TestHttpServer-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket c = client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.ISO_8859_1));
+            if (in.readLine() == null) {
+                return;
+            }
+            String range = null;
+            String ifRange = null;
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon < 0) continue;
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = line.substring(colon + 1).trim();
+                if (name.equals("range")) range = value;
+                if (name.equals("if-range")) ifRange = value;
+            }
+            ranges.add(range != null ? range : "");
+
+            byte[] content = body;
+            String tag = etag;
+            long start = 0;
+            long end = content.length - 1;
+            boolean partial = rangesSupported && range != null && (ifRange == null || ifRange.equals(tag));
+            if (partial) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                start = Long.parseLong(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = Math.min(end, Long.parseLong(bounds[1]));
+                }
+            }
+            StringBuilder head = new StringBuilder();
+            head.append(partial ? "HTTP/1.1 206 Partial Content\r\n" : "HTTP/1.1 200 OK\r\n");
+            head.append("Content-Length: ").append(end - start + 1).append("\r\n");
+            if (partial) {
+                head.append("Content-Range: bytes ").append(start).append('-').append(end).append('/').append(content.length).append("\r\n");
+            }
+            if (rangesSupported) {
+                head.append("Accept-Ranges: bytes\r\n");
+            }
+            head.append("ETag: ").append(tag).append("\r\n");
+            head.append("Connection: close\r\n\r\n");
+            OutputStream out = c.getOutputStream();
+            out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            long rate = bytesPerSecond;
+            long began = System.nanoTime();
+            long sent = 0;
+            long length = end - start + 1;
+            while (sent < length) {
+                int n = (int) Math.min(SLICE, length - sent);
+                out.write(content, (int) (start + sent), n);
+                out.flush();
+                sent += n;
+                bodyBytes.addAndGet(n);
+                if (rate > 0) {
+                    // Sleep until this much data is due at the rate
+                    long dueMillis = (began + sent * 1_000_000_000L / rate - System.nanoTime()) / 1_000_000;
+                    if (dueMillis > 0) {
+                        Thread.sleep(dueMillis);
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // The client hung up, e.g. after reading the one-byte probe
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.origin.launcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiling a theme into a ThemePalette and reading every role back, against the HashMap of boxed
+ * colors ThemeManager kept before, whose misses parsed the default hex on every call. The theme
+ * defines the non-toggle roles with even ordinals, so both hits and misses are measured.
+ * ThemePalette.parseColor stands in for Color.parseColor on both sides, as Color is a stub off
+ * Android.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThemePaletteBenchmark {
+    private static final ColorRole[] ROLES = ColorRole.values();
+
+    private final Map<String, String> theme = new HashMap<>();
+    private final Map<String, String> legacyDefaults = new HashMap<>();
+    private Map<String, Integer> legacyColors;
+    private ThemePalette palette;
+
+    @Setup
+    public void setUp() {
+        for (ColorRole role : ROLES) {
+            legacyDefaults.put(role.key, hex(role.defaultColor));
+            if (role.ordinal() % 2 == 0 && !role.isToggle()) {
+                theme.put(role.key, hex(role.defaultColor ^ 0x00102030));
+            }
+        }
+        legacyColors = legacyCompile();
+        palette = compile();
+    }
+
+    @Benchmark
+    public Map<String, Integer> legacyCompile() {
+        Map<String, Integer> colors = new HashMap<>();
+        for (ColorRole role : ROLES) {
+            String value = theme.get(role.key);
+            if (value != null) {
+                colors.put(role.key, ThemePalette.parseColor(value));
+            }
+        }
+        return colors;
+    }
+
+    @Benchmark
+    public ThemePalette compile() {
+        ThemePalette.Builder builder = new ThemePalette.Builder();
+        for (ColorRole role : ROLES) {
+            String value = theme.get(role.key);
+            if (value != null) {
+                builder.set(role, value);
+            }
+        }
+        return builder.build();
+    }
+
+    /** One pass over every role, like theming a view hierarchy */
+    @Benchmark
+    public int legacyLookup() {
+        int sum = 0;
+        for (ColorRole role : ROLES) {
+            Integer color = legacyColors.get(role.key);
+            sum += color != null ? color : ThemePalette.parseColor(legacyDefaults.get(role.key));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int lookup() {
+        int sum = 0;
+        for (ColorRole role : ROLES) {
+            sum += palette.get(role);
+        }
+        return sum;
+    }
+
+    private static String hex(int color) {
+        return String.format(Locale.ROOT, "#%08X", color);
+    }
+}
@@ -0,0 +1,128 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compiling a palette: hex parsing, defaults for roles a theme leaves out, the defined mask, and
+ * the masks diff reports between palettes.
+ */
+public class ThemePaletteTest {
+
+    @Test
+    public void parsesHexLikeColorParseColor() {
+        assertEquals(0xFF123456, ThemePalette.parseColor("#123456"));
+        assertEquals(0x80123456, ThemePalette.parseColor("#80123456"));
+        assertEquals(0x00ABCDEF, ThemePalette.parseColor("#00abcdef"));
+        for (String invalid : new String[]{"#", "#12345", "#1234567", "#GGGGGG", "#1234567890"}) {
+            try {
+                ThemePalette.parseColor(invalid);
+                fail(invalid + " should not parse");
+            } catch (IllegalArgumentException expected) {
+                // Same exception type Color.parseColor throws
+            }
+        }
+    }
+
+    @Test
+    public void undefinedRolesKeepTheirDefaults() {
+        ThemePalette palette = build(ColorRole.PRIMARY, "#FF0000");
+
+        assertEquals(0xFFFF0000, palette.get(ColorRole.PRIMARY));
+        assertTrue(palette.isDefined(ColorRole.PRIMARY));
+        for (ColorRole role : ColorRole.values()) {
+            if (role != ColorRole.PRIMARY) {
+                assertEquals(role.name(), role.defaultColor, palette.get(role));
+                assertFalse(role.name(), palette.isDefined(role));
+            }
+        }
+        assertFalse(palette.isEmpty());
+        assertFalse(palette.hasToggleColors());
+    }
+
+    @Test
+    public void invalidColorIsSkippedNotFatal() {
+        ThemePalette.Builder builder = new ThemePalette.Builder();
+
+        assertTrue(builder.set(ColorRole.SURFACE, "#202020"));
+        assertFalse(builder.set(ColorRole.PRIMARY, "#nothex"));
+        ThemePalette palette = builder.build();
+
+        assertEquals(0xFF202020, palette.get(ColorRole.SURFACE));
+        assertEquals(ColorRole.PRIMARY.defaultColor, palette.get(ColorRole.PRIMARY));
+        assertFalse(palette.isDefined(ColorRole.PRIMARY));
+    }
+
+    @Test
+    public void builtPalettesDoNotShareState() {
+        ThemePalette.Builder builder = new ThemePalette.Builder();
+        builder.set(ColorRole.PRIMARY, "#111111");
+        ThemePalette first = builder.build();
+        builder.set(ColorRole.PRIMARY, "#222222");
+
+        assertEquals(0xFF111111, first.get(ColorRole.PRIMARY));
+        assertEquals(0xFF222222, builder.build().get(ColorRole.PRIMARY));
+    }
+
+    @Test
+    public void emptyAndFallbackMasks() {
+        ThemePalette empty = ThemePalette.EMPTY;
+        ThemePalette fallback = ThemePalette.fallback();
+
+        assertTrue(empty.isEmpty());
+        assertFalse(fallback.isEmpty());
+        assertFalse(fallback.hasToggleColors());
+        for (ColorRole role : ColorRole.values()) {
+            assertEquals(role.defaultColor, empty.get(role));
+            assertEquals(role.defaultColor, fallback.get(role));
+            assertEquals(role.name(), !role.isToggle(), fallback.isDefined(role));
+        }
+        // Same colors, so only whether they are defined differs: every role but the toggles
+        long toggles = 0;
+        for (ColorRole role : ColorRole.values()) {
+            if (role.isToggle()) toggles |= ColorRole.mask(role);
+        }
+        assertEquals(((1L << ColorRole.count()) - 1) & ~toggles, empty.diff(fallback));
+    }
+
+    @Test
+    public void diffReportsChangedColorsAndDefinitions() {
+        ThemePalette base = build(ColorRole.PRIMARY, "#FF0000", ColorRole.TOGGLE_TRACK, "#00FF00");
+        ThemePalette same = build(ColorRole.PRIMARY, "#FF0000", ColorRole.TOGGLE_TRACK, "#00FF00");
+        ThemePalette recolored = build(ColorRole.PRIMARY, "#0000FF", ColorRole.TOGGLE_TRACK, "#00FF00");
+        // Defines SURFACE as the color it has anyway: only the defined bit changes
+        ThemePalette explicit = build(ColorRole.PRIMARY, "#FF0000", ColorRole.TOGGLE_TRACK, "#00FF00",
+                ColorRole.SURFACE, String.format("#%08X", ColorRole.SURFACE.defaultColor));
+
+        assertTrue(base.hasToggleColors());
+        assertEquals(0, base.diff(same));
+        assertEquals(ColorRole.mask(ColorRole.PRIMARY), base.diff(recolored));
+        assertEquals(ColorRole.mask(ColorRole.SURFACE), base.diff(explicit));
+        assertEquals(base.diff(recolored), recolored.diff(base));
+        assertEquals(ColorRole.mask(ColorRole.PRIMARY, ColorRole.TOGGLE_TRACK), ThemePalette.EMPTY.diff(base));
+    }
+
+    @Test
+    public void mapHoldsOnlyDefinedRoles() {
+        ThemePalette palette = build(ColorRole.PRIMARY, "#FF0000", ColorRole.TOGGLE_THUMB, "#ABCDEF");
+
+        Map<String, Integer> map = palette.toMap();
+
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(0xFFFF0000), map.get("primary"));
+        assertEquals(Integer.valueOf(0xFFABCDEF), map.get("toggle_thumb"));
+        assertSame(map, palette.toMap());
+    }
+
+    /** Palette from role, value pairs */
+    private static ThemePalette build(Object... rolesAndValues) {
+        ThemePalette.Builder builder = new ThemePalette.Builder();
+        for (int i = 0; i < rolesAndValues.length; i += 2) {
+            assertTrue(builder.set((ColorRole) rolesAndValues[i], (String) rolesAndValues[i + 1]));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ThroughputHistogram's power-of-two buckets, the percentiles read back from them, and the empty
+ * histogram.
+ */
+public class ThroughputHistogramTest {
+    private static final long KB = 1024;
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        ThroughputHistogram histogram = new ThroughputHistogram();
+
+        assertEquals(0, histogram.getSampleCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void samplesFallIntoPowerOfTwoBuckets() {
+        ThroughputHistogram histogram = new ThroughputHistogram();
+        histogram.record(0);
+        histogram.record(1023);
+        histogram.record(KB);
+        histogram.record(2 * KB - 1);
+        histogram.record(2 * KB);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(2, histogram.getCount(1));
+        assertEquals(1, histogram.getCount(2));
+        // Everything past the last bound shares the last bucket
+        assertEquals(1, histogram.getCount(ThroughputHistogram.BUCKETS - 1));
+        assertEquals(6, histogram.getSampleCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+
+        assertEquals(0, ThroughputHistogram.lowerBound(0));
+        assertEquals(KB, ThroughputHistogram.lowerBound(1));
+        assertEquals(2 * KB, ThroughputHistogram.lowerBound(2));
+        assertEquals(KB << 16, ThroughputHistogram.lowerBound(17));
+    }
+
+    @Test
+    public void percentilesReportTheUpperBoundOfTheirBucket() {
+        ThroughputHistogram histogram = new ThroughputHistogram();
+        // Eight samples near 600 KB/s, one burst and one stall
+        for (int i = 0; i < 8; i++) {
+            histogram.record(600 * KB + i);
+        }
+        histogram.record(1500 * KB);
+        histogram.record(10 * KB);
+
+        // The stall's bucket tops out at 16 KB/s, the steady samples' at 1 MB/s
+        assertEquals(16 * KB, histogram.percentile(0.1));
+        assertEquals(1024 * KB, histogram.percentile(0.5));
+        assertEquals(1024 * KB, histogram.percentile(0.9));
+        // The burst's bucket reaches 2 MB/s, but no sample was faster than the burst
+        assertEquals(1500 * KB, histogram.percentile(1));
+        assertEquals(1500 * KB, histogram.getMax());
+        // Fractions outside 0..1 are clamped
+        assertEquals(1500 * KB, histogram.percentile(1.5));
+        assertEquals(16 * KB, histogram.percentile(-1));
+    }
+}
@@ -0,0 +1,71 @@
+package com.origin.launcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VersionFeedParser against the split and regex line parser it replaced (VersionFeedParserTest's
+ * legacyParse), on a generated feed of release and preview lines in every separator style. Only
+ * parsing is measured; neither side writes the cache copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionFeedParserBenchmark {
+    private static final String[] SEPARATORS = {"|", " | ", "\t", " "};
+
+    @Param({"500", "50000"})
+    public int lines;
+
+    private String feed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(lines);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            String version = "1." + (16 + random.nextInt(6)) + "." + random.nextInt(130);
+            if (random.nextBoolean()) {
+                version += "." + random.nextInt(30);
+            }
+            sb.append(random.nextBoolean() ? "Minecraft " + version : version)
+                    .append(SEPARATORS[random.nextInt(SEPARATORS.length)])
+                    .append("https://cdn.example.com/minecraft/").append(version).append(".apk")
+                    .append(random.nextInt(8) == 0 ? "\r\n" : "\n");
+        }
+        feed = sb.toString();
+    }
+
+    @Benchmark
+    public List<VersionsRepository.VersionEntry> legacyParse() throws Exception {
+        List<VersionsRepository.VersionEntry> entries = new ArrayList<>();
+        for (String line : VersionFeedParserTest.legacyLines(feed)) {
+            VersionsRepository.VersionEntry entry = VersionFeedParserTest.legacyParse(line);
+            if (entry != null) entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public List<VersionsRepository.VersionEntry> streamingParse() throws Exception {
+        return new VersionFeedParser().parse(new StringReader(feed), null);
+    }
+}
@@ -0,0 +1,229 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * VersionFeedParser against the line parser it replaced, kept below as legacyParse: every separator
+ * rule on its own, then a generated feed mixing them with every line ending. The SHA-256 column is
+ * new, so it is checked separately.
+ */
+public class VersionFeedParserTest {
+    private static final String HASH = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Test
+    public void pipeSeparatesTitleAndUrl() throws Exception {
+        assertParity("Minecraft 1.21.100 | https://example.com/mc.apk");
+        assertParity("1.21.100|https://example.com/a|b.apk");
+        // Everything after the first pipe is the URL, so this line is skipped
+        assertParity("1.21.100 | not a url | https://example.com/mc.apk");
+    }
+
+    @Test
+    public void tabSeparatesTitleAndUrl() throws Exception {
+        assertParity("Minecraft 1.21.100\thttps://example.com/mc.apk");
+        assertParity("Minecraft\t1.21.100\thttps://example.com/mc.apk");
+    }
+
+    @Test
+    public void lastSpaceBeforeHttpSeparates() throws Exception {
+        assertParity("Minecraft 1.21.100 https://example.com/mc.apk");
+        assertParity("Mirror of https://a.example 1.21.100 https://example.com/mc.apk");
+        assertParity("Preview 1.21.100.10 http://example.com/mc.apk");
+    }
+
+    @Test
+    public void tabBeforeHttpIsTheFallbackSeparator() throws Exception {
+        // The first tab is not followed by http, so the tab before the URL is found by the last-match rule
+        assertParity("Minecraft\tstable 1.21.100\thttps://example.com/mc.apk");
+        assertParity("a\tb\thttps://example.com/x.apk\thttps://example.com/y.apk");
+    }
+
+    @Test
+    public void urlGluedToTitleIsSplitAtHttp() throws Exception {
+        assertParity("1.21.100:https://example.com/mc.apk");
+        assertParity("https://example.com/no-title.apk");
+        assertParity("no url here");
+    }
+
+    @Test
+    public void titlesAreCleanedAndChannelsClassified() throws Exception {
+        List<VersionsRepository.VersionEntry> entries = parse(
+                "Minecraft: 1.21.100 | https://example.com/a.apk\n"
+                        + "Preview 1.21.100.10 | https://example.com/b.apk\n"
+                        + "Build 1.2 with 3.4.5 dots | https://example.com/c.apk\n");
+
+        assertEquals("Minecraft 1.21.100", entries.get(0).title);
+        assertEquals(VersionsRepository.Channel.STABLE, entries.get(0).channel);
+        assertArrayEquals(new int[]{1, 21, 100}, entries.get(0).version);
+        assertEquals(VersionsRepository.Channel.BETA, entries.get(1).channel);
+        assertEquals("1.21.100.10", entries.get(1).versionName());
+        // The first run with three components counts, not the dots of the whole title
+        assertArrayEquals(new int[]{3, 4, 5}, entries.get(2).version);
+        assertFalse(entries.get(2).isBeta);
+    }
+
+    @Test
+    public void generatedFeedMatchesLegacyParser() throws Exception {
+        String[] titles = {"Minecraft 1.21.100", "1.21.100.10", "Beta: 1.20.0.1 ", "Release 1.2", "title", "",
+                "a.b.c.d", " 1.21.90 ", "1.21.9x.1", "http"};
+        String[] separators = {"|", " | ", "\t", " ", "  ", "\t\t", "", ":", " \t"};
+        String[] urls = {"https://example.com/mc.apk", "http://host/path/file name.apk", "https://a/b|c",
+                "ftp://nope", "https://x/y https://x/z", "http"};
+        String[] endings = {"\n", "\r\n", "\r", "\n\n", " \n"};
+        Random random = new Random(42);
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            feed.append(pick(random, titles)).append(pick(random, separators)).append(pick(random, urls))
+                    .append(pick(random, endings));
+        }
+
+        StringWriter copy = new StringWriter();
+        List<VersionsRepository.VersionEntry> parsed = new VersionFeedParser().parse(new StringReader(feed.toString()), copy);
+
+        List<String> lines = legacyLines(feed.toString());
+        List<VersionsRepository.VersionEntry> expected = new ArrayList<>();
+        for (String line : lines) {
+            VersionsRepository.VersionEntry entry = legacyParse(line);
+            if (entry != null) expected.add(entry);
+        }
+        assertTrue("too few accepted lines to compare: " + expected.size(), expected.size() > 1000);
+        assertEntriesEqual(expected, parsed);
+        // The cache copy holds the same trimmed, non-empty lines the old cache file did
+        assertEquals(String.join("\n", lines) + "\n", copy.toString());
+    }
+
+    @Test
+    public void sha256ColumnIsOptional() throws Exception {
+        List<VersionsRepository.VersionEntry> entries = parse(
+                "1.21.100 | https://example.com/a.apk | " + HASH + "\n"
+                        + "1.21.101 https://example.com/b.apk " + HASH.toUpperCase(Locale.ROOT) + "\n"
+                        + "1.21.102\thttps://example.com/c.apk\t" + HASH + "\n"
+                        + "1.21.103 | https://example.com/d.apk\n"
+                        + "1.21.104 | https://example.com/e.apk | " + HASH.substring(1) + "\n");
+
+        assertEquals(5, entries.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HASH, entries.get(i).sha256);
+        }
+        assertEquals("https://example.com/a.apk", entries.get(0).url);
+        assertEquals("https://example.com/b.apk", entries.get(1).url);
+        assertEquals("https://example.com/c.apk", entries.get(2).url);
+        assertNull(entries.get(3).sha256);
+        // 63 digits is no hash, so the whole rest of the line stays the URL as before
+        assertNull(entries.get(4).sha256);
+        assertEquals("https://example.com/e.apk | " + HASH.substring(1), entries.get(4).url);
+    }
+
+    @Test
+    public void parserIsReusableAndKeepsLongLines() throws Exception {
+        VersionFeedParser parser = new VersionFeedParser();
+        char[] longPath = new char[5000];
+        Arrays.fill(longPath, 'p');
+        String longLine = "1.21.100 | https://example.com/" + new String(longPath) + ".apk";
+
+        List<VersionsRepository.VersionEntry> first = parser.parse(new StringReader(longLine), null);
+        List<VersionsRepository.VersionEntry> second = parser.parse(new StringReader("1.21.101 | https://example.com/x.apk"), null);
+
+        assertEquals(longLine.substring(longLine.indexOf("https")), first.get(0).url);
+        assertEquals(1, second.size());
+        assertEquals("1.21.101", second.get(0).title);
+    }
+
+    private static void assertParity(String line) throws Exception {
+        VersionsRepository.VersionEntry expected = legacyParse(line.trim());
+        List<VersionsRepository.VersionEntry> parsed = parse(line);
+        assertEntriesEqual(expected == null ? new ArrayList<VersionsRepository.VersionEntry>() : Arrays.asList(expected), parsed);
+    }
+
+    private static void assertEntriesEqual(List<VersionsRepository.VersionEntry> expected, List<VersionsRepository.VersionEntry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("title " + i, expected.get(i).title, actual.get(i).title);
+            assertEquals("url " + i, expected.get(i).url, actual.get(i).url);
+            assertEquals("beta " + i, expected.get(i).isBeta, actual.get(i).isBeta);
+        }
+    }
+
+    private static List<VersionsRepository.VersionEntry> parse(String feed) throws Exception {
+        return new VersionFeedParser().parse(new StringReader(feed), null);
+    }
+
+    private static String pick(Random random, String[] options) {
+        return options[random.nextInt(options.length)];
+    }
+
+    /** Trimmed non-empty lines, read the way the old download and cache code did */
+    static List<String> legacyLines(String feed) throws Exception {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(feed));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty()) lines.add(line);
+        }
+        return lines;
+    }
+
+    /** The line parser VersionsRepository used before VersionFeedParser, unchanged apart from logging */
+    static VersionsRepository.VersionEntry legacyParse(String raw) {
+        String title = null;
+        String url = null;
+
+        if (raw.contains("|")) {
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length == 2) {
+                title = parts[0].trim();
+                url = parts[1].trim();
+            }
+        }
+        if (title == null || url == null) {
+            String[] parts = raw.split("\t", 2);
+            if (parts.length == 2 && parts[1].startsWith("http")) {
+                title = parts[0].trim();
+                url = parts[1].trim();
+            }
+        }
+        if (title == null || url == null) {
+            int idx = raw.lastIndexOf(" http");
+            if (idx == -1) idx = raw.lastIndexOf("\thttp");
+            if (idx == -1) {
+                int h = raw.indexOf("http");
+                if (h > 0) {
+                    title = raw.substring(0, h).trim();
+                    url = raw.substring(h).trim();
+                }
+            } else {
+                title = raw.substring(0, idx).trim();
+                url = raw.substring(idx + 1).trim();
+            }
+        }
+
+        if (title == null || url == null || !url.startsWith("http")) {
+            return null;
+        }
+
+        Matcher m = Pattern.compile("(\\d+\\.\\d+\\.\\d+(?:\\.\\d+)*)").matcher(title);
+        String version = m.find() ? m.group(1) : null;
+        int dotCount = count(version != null ? version : title, '.');
+        return new VersionsRepository.VersionEntry(title.replace(":", "").trim(), url, dotCount >= 3);
+    }
+
+    private static int count(String s, char c) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == c) n++;
+        return n;
+    }
+}
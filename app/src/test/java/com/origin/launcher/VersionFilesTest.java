@@ -0,0 +1,38 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * APK file names of version titles, and telling apart the titles whose old digits-only names collide.
+ */
+public class VersionFilesTest {
+
+    @Test
+    public void legacyNamesCollideWhereCurrentNamesDoNot() {
+        assertEquals("121103.apk", VersionFiles.legacyApkFileName("1.21.1.03"));
+        assertEquals("121103.apk", VersionFiles.legacyApkFileName("1.2.11.03"));
+        assertNotEquals(VersionFiles.apkFileName("1.21.1.03"), VersionFiles.apkFileName("1.2.11.03"));
+        assertNull(VersionFiles.legacyApkFileName("Preview"));
+    }
+
+    @Test
+    public void currentNameKeepsSafeTitlesAndHashesOthers() {
+        assertEquals("1.21.100.apk", VersionFiles.apkFileName("1.21.100"));
+        String spaced = VersionFiles.apkFileName("Minecraft 1.21.100");
+        assertTrue(spaced, spaced.startsWith("Minecraft_1.21.100-"));
+        assertNotEquals(spaced, VersionFiles.apkFileName("Minecraft_1.21.100"));
+    }
+
+    @Test
+    public void manifestVersionMustMatchEveryComponent() {
+        assertTrue(VersionFiles.sameVersion(new int[]{1, 21, 1, 3}, "1.21.1.03"));
+        assertFalse(VersionFiles.sameVersion(new int[]{1, 2, 11, 3}, "1.21.1.03"));
+        // The manifest may carry more components than the title
+        assertTrue(VersionFiles.sameVersion(new int[]{1, 21, 100}, "1.21.100.03"));
+        assertFalse(VersionFiles.sameVersion(new int[]{1, 21, 100, 3}, "1.21.100"));
+        assertFalse(VersionFiles.sameVersion(new int[]{1, 21, 1}, "1.21.100"));
+        assertFalse(VersionFiles.sameVersion(new int[]{1, 21}, "1.beta"));
+    }
+}
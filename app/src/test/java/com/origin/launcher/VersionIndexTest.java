@@ -0,0 +1,83 @@
+package com.origin.launcher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * VersionIndex lookups: channel lists in feed order, the latest of each channel, series and prefix search.
+ */
+public class VersionIndexTest {
+    private static final VersionsRepository.VersionEntry V1_21_100 = entry("1.21.100", 1, 21, 100);
+    private static final VersionsRepository.VersionEntry V1_21_90 = entry("1.21.90", 1, 21, 90);
+    private static final VersionsRepository.VersionEntry V1_21_1 = entry("1.21.1", 1, 21, 1);
+    private static final VersionsRepository.VersionEntry V1_20_80 = entry("1.20.80", 1, 20, 80);
+    private static final VersionsRepository.VersionEntry V1_21_100_10 = entry("1.21.100.10", 1, 21, 100, 10);
+    private static final VersionsRepository.VersionEntry V1_21_110_2 = entry("1.21.110.2", 1, 21, 110, 2);
+
+    private final VersionIndex index = new VersionIndex(Arrays.asList(
+            V1_21_90, V1_21_100_10, V1_20_80, V1_21_100, V1_21_110_2, V1_21_1));
+
+    @Test
+    public void channelsKeepFeedOrder() {
+        assertEquals(Arrays.asList(V1_21_90, V1_20_80, V1_21_100, V1_21_1), index.getEntries(VersionsRepository.Channel.STABLE));
+        assertEquals(Arrays.asList(V1_21_100_10, V1_21_110_2), index.getEntries(VersionsRepository.Channel.BETA));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void latestComparesVersionsNumerically() {
+        assertSame(V1_21_100, index.getLatest(VersionsRepository.Channel.STABLE));
+        assertSame(V1_21_110_2, index.getLatest(VersionsRepository.Channel.BETA));
+    }
+
+    @Test
+    public void seriesIsAscendingAcrossChannels() {
+        assertEquals(Arrays.asList(V1_21_1, V1_21_90, V1_21_100, V1_21_100_10, V1_21_110_2), index.getSeries(1, 21));
+        assertEquals(Arrays.asList(V1_21_100, V1_21_100_10), index.getSeries(1, 21, 100));
+        assertEquals(Arrays.asList(V1_20_80), index.getSeries(1, 20));
+        assertTrue(index.getSeries(2).isEmpty());
+    }
+
+    @Test
+    public void searchMatchesNamePrefix() {
+        assertEquals(Arrays.asList(V1_21_1, V1_21_100, V1_21_100_10, V1_21_110_2), index.search("1.21.1"));
+        assertEquals(Arrays.asList(V1_21_100_10), index.search("1.21.100."));
+        assertTrue(index.search("1.19").isEmpty());
+        assertEquals(6, index.search("").size());
+    }
+
+    @Test
+    public void emptyIndexAnswersEverything() {
+        VersionIndex empty = VersionIndex.empty();
+
+        assertEquals(0, empty.size());
+        assertTrue(empty.getEntries(VersionsRepository.Channel.STABLE).isEmpty());
+        assertNull(empty.getLatest(VersionsRepository.Channel.BETA));
+        assertTrue(empty.getSeries(1, 21).isEmpty());
+        assertTrue(empty.search("1").isEmpty());
+    }
+
+    @Test
+    public void indexIsACopy() {
+        List<VersionsRepository.VersionEntry> entries = new ArrayList<>(Arrays.asList(V1_21_100));
+        VersionIndex copy = new VersionIndex(entries);
+        entries.add(V1_21_90);
+
+        assertEquals(1, copy.size());
+        try {
+            copy.getEntries().add(V1_21_90);
+            fail("getEntries should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // Shared between screens, so nobody may change it
+        }
+    }
+
+    private static VersionsRepository.VersionEntry entry(String title, int... version) {
+        return new VersionsRepository.VersionEntry(title, "https://example.com/" + title + ".apk", version.length >= 4, version);
+    }
+}
@@ -0,0 +1,131 @@
+package com.origin.launcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * VersionsSnapshot round trips, and every kind of damaged file is refused rather than half read.
+ */
+public class VersionsSnapshotTest {
+    private static final String HASH = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final List<VersionsRepository.VersionEntry> entries = Arrays.asList(
+            new VersionsRepository.VersionEntry("Minecraft 1.21.100", "https://cdn.example.com/mc/1.21.100.apk", false, new int[]{1, 21, 100}, HASH),
+            new VersionsRepository.VersionEntry("Preview 1.21.100.10", "https://cdn.example.com/mc/beta.apk", true, new int[]{1, 21, 100, 10}),
+            new VersionsRepository.VersionEntry("No version", "https://other.example.com/x.apk", false),
+            new VersionsRepository.VersionEntry("Bare host", "http://no-slash-after-host", false));
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot-test").toFile();
+        file = new File(dir, "versions.bin");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void roundTripKeepsEveryField() throws Exception {
+        VersionsSnapshot.write(file, "\"etag-1\"", entries);
+
+        VersionsSnapshot snapshot = VersionsSnapshot.read(file);
+
+        assertEquals("\"etag-1\"", snapshot.etag);
+        assertEquals(entries.size(), snapshot.entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            VersionsRepository.VersionEntry expected = entries.get(i);
+            VersionsRepository.VersionEntry actual = snapshot.entries.get(i);
+            assertEquals(expected, actual);
+            assertEquals(expected.isBeta, actual.isBeta);
+            assertArrayEquals(expected.version, actual.version);
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void missingEtagAndEmptyListRoundTrip() throws Exception {
+        VersionsSnapshot.write(file, null, Collections.<VersionsRepository.VersionEntry>emptyList());
+
+        VersionsSnapshot snapshot = VersionsSnapshot.read(file);
+
+        assertNull(snapshot.etag);
+        assertTrue(snapshot.entries.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingFileIsRefused() throws Exception {
+        VersionsSnapshot.read(file);
+    }
+
+    @Test
+    public void flippedPayloadByteFailsTheChecksum() throws Exception {
+        VersionsSnapshot.write(file, "e", entries);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long last = raf.length() - 1;
+            raf.seek(last);
+            int b = raf.read();
+            raf.seek(last);
+            raf.write(b ^ 0x01);
+        }
+
+        assertRefused("Snapshot checksum mismatch");
+    }
+
+    @Test
+    public void truncatedFileIsRefused() throws Exception {
+        VersionsSnapshot.write(file, "e", entries);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+        assertRefused("Truncated snapshot");
+
+        // Cut inside the header too
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(6);
+        }
+        assertRefused("Corrupt snapshot");
+    }
+
+    @Test
+    public void otherFilesAndFormatsAreRefused() throws Exception {
+        Files.write(file.toPath(), "1.21.100 | https://example.com/a.apk\n".getBytes(StandardCharsets.UTF_8));
+        assertRefused("Not a versions snapshot");
+
+        VersionsSnapshot.write(file, "e", entries);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(1);
+        }
+        assertRefused("Unsupported snapshot format 1");
+    }
+
+    private void assertRefused(String message) {
+        try {
+            VersionsSnapshot.read(file);
+            fail("read should refuse the file with: " + message);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
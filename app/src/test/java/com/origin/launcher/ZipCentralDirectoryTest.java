@@ -0,0 +1,219 @@
+package com.origin.launcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * ZipCentralDirectory on archives written by ZipOutputStream: the prefix filter, transferStored for
+ * STORED entries (including ones spanning several transfer slices), inflating DEFLATED entries from
+ * the same index, the CRC-32 check of openStream, and cancellation.
+ */
+public class ZipCentralDirectoryTest {
+    private static final String LIB = "lib/arm64-v8a/";
+
+    private File dir;
+    private File apk;
+    private File out;
+    private byte[] small;
+    private byte[] large;
+    private byte[] text;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("zip-test").toFile();
+        apk = new File(dir, "test.apk");
+        out = new File(dir, "out.so");
+        small = randomBytes(70_000, 1);
+        // Larger than one 8 MB transfer slice
+        large = randomBytes(9 * 1024 * 1024 + 7, 2);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) sb.append("line ").append(i).append('\n');
+        text = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(apk))) {
+            zip.putNextEntry(new ZipEntry("AndroidManifest.xml"));
+            zip.write(text);
+            zip.closeEntry();
+            putStored(zip, LIB + "libsmall.so", small);
+            putStored(zip, LIB + "liblarge.so", large);
+            zip.putNextEntry(new ZipEntry(LIB + "libdeflated.so"));
+            zip.write(text);
+            zip.closeEntry();
+            zip.setComment("archive comment, which the end record search has to skip");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        apk.delete();
+        out.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void indexesOnlyEntriesUnderPrefix() throws Exception {
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            assertEquals(3, index.entries().size());
+            assertNull(index.get("AndroidManifest.xml"));
+            assertTrue(index.get(LIB + "libsmall.so").isStored());
+            assertFalse(index.get(LIB + "libdeflated.so").isStored());
+            assertEquals(large.length, index.get(LIB + "liblarge.so").size);
+        }
+    }
+
+    @Test
+    public void transferStoredCopiesExactBytes() throws Exception {
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            index.transferStored(index.get(LIB + "libsmall.so"), out);
+            assertArrayEquals(small, Files.readAllBytes(out.toPath()));
+
+            index.transferStored(index.get(LIB + "liblarge.so"), out);
+            assertArrayEquals(large, Files.readAllBytes(out.toPath()));
+        }
+    }
+
+    @Test
+    public void transferStoredRefusesCompressedEntries() throws Exception {
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            try {
+                index.transferStored(index.get(LIB + "libdeflated.so"), out);
+                fail("A DEFLATED entry cannot be transferred as it is");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("compressed"));
+            }
+        }
+    }
+
+    @Test
+    public void openStreamReadsBothMethods() throws Exception {
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            assertArrayEquals(text, readAll(index.openStream(index.get(LIB + "libdeflated.so"))));
+            assertArrayEquals(small, readAll(index.openStream(index.get(LIB + "libsmall.so"))));
+        }
+    }
+
+    @Test
+    public void crcMismatchFailsTheRead() throws Exception {
+        // Damage the checksums the central directory lists, not the data, so only the CRC check can tell
+        corruptCentralCrc(LIB + "libdeflated.so");
+        corruptCentralCrc(LIB + "libsmall.so");
+
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            for (String name : new String[]{LIB + "libdeflated.so", LIB + "libsmall.so"}) {
+                try {
+                    readAll(index.openStream(index.get(name)));
+                    fail(name + " should fail its CRC-32 check");
+                } catch (ZipException expected) {
+                    assertTrue(expected.getMessage(), expected.getMessage().startsWith("CRC-32 mismatch"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void interruptedTransferStops() throws Exception {
+        try (ZipCentralDirectory index = ZipCentralDirectory.read(apk, LIB)) {
+            Thread.currentThread().interrupt();
+            try {
+                index.transferStored(index.get(LIB + "liblarge.so"), out);
+                fail("transferStored should stop when interrupted");
+            } catch (InterruptedIOException expected) {
+                // Stopped before copying anything
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Test
+    public void nonZipFilesAreRejectedByReadAndOpen() throws Exception {
+        File notZip = new File(dir, "not.apk");
+        Files.write(notZip.toPath(), new byte[10]);
+        try {
+            ZipCentralDirectory.read(notZip, LIB);
+            fail("A 10-byte file is no ZIP");
+        } catch (IOException expected) {
+            // read() rejects it, and so does the ZipFile fallback of open()
+        }
+        try {
+            ZipCentralDirectory.open(notZip, LIB).close();
+            fail("open should fail when ZipFile cannot read the file either");
+        } catch (IOException expected) {
+            // As above
+        } finally {
+            notZip.delete();
+        }
+    }
+
+    /** Flip a bit of name's CRC-32 in its central directory header */
+    private void corruptCentralCrc(String name) throws IOException {
+        byte[] zip = Files.readAllBytes(apk.toPath());
+        byte[] target = name.getBytes(StandardCharsets.UTF_8);
+        // The central header comes after the local one; its name starts 46 bytes in, the CRC 16 bytes in
+        int header = lastIndexOf(zip, target) - 46;
+        assertEquals(0x02014b50, ByteBuffer.wrap(zip, header, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
+        zip[header + 16] ^= 0x01;
+        Files.write(apk.toPath(), zip);
+    }
+
+    private static int lastIndexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = haystack.length - needle.length; i >= 0; i--) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void putStored(ZipOutputStream zip, String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}